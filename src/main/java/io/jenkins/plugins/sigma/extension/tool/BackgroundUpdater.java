@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import jenkins.util.SystemProperties;
+
+/**
+ * Checks for updates and installs them off the critical path of builds. Builds keep running the installed binary
+ * while an update downloads, the new binary is swapped in atomically once it is verified. Each tool home has at most
+ * one update scheduled at a time.
+ */
+@Extension
+public class BackgroundUpdater {
+    /**
+     * Number of tool homes updated at the same time.
+     */
+    static final int CONCURRENCY =
+            Math.max(1, SystemProperties.getInteger(BackgroundUpdater.class.getName() + ".concurrency", 2));
+
+    private static final Logger LOGGER = Logger.getLogger(BackgroundUpdater.class.getName());
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            CONCURRENCY, new NamingThreadFactory(new DaemonThreadFactory(), "Rapid Scan Static background update"));
+    private final Set<String> scheduledUpdates = ConcurrentHashMap.newKeySet();
+
+    public static BackgroundUpdater get() {
+        return ExtensionList.lookupSingleton(BackgroundUpdater.class);
+    }
+
+    /**
+     * Schedules an update of the tool home unless one is already scheduled.
+     *
+     * @return the scheduled update, null when an update of the tool home was already scheduled.
+     */
+    @Nullable
+    Future<?> schedule(SigmaBinaryInstaller installer, Node node, FilePath installLocation) {
+        String updateKey = node.getNodeName() + ':' + installLocation.getRemote();
+        if (!scheduledUpdates.add(updateKey)) {
+            return null;
+        }
+        return executor.submit(() -> {
+            try {
+                update(installer, node, installLocation);
+            } finally {
+                scheduledUpdates.remove(updateKey);
+            }
+        });
+    }
+
+    private static void update(SigmaBinaryInstaller installer, Node node, FilePath installLocation) {
+        Computer computer = node.toComputer();
+        if (computer == null || computer.isOffline()) {
+            return;
+        }
+        TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+        try {
+            installer.installOnNode(node, installLocation, listener);
+        } catch (IOException ex) {
+            LOGGER.log(
+                    Level.WARNING,
+                    String.format(
+                            "Failed to update Rapid Scan Static in %s on %s",
+                            installLocation.getRemote(), node.getNodeName()),
+                    ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the rate at which a download reads from the network. Streams wrapped by the same throttle share the limit, so
+ * parallel byte ranges together stay below it.
+ */
+final class BandwidthThrottle {
+    private final long bytesPerSecond;
+    private long nextReadNanos = System.nanoTime();
+
+    /**
+     * @param bytesPerSecond the rate limit, 0 doesn't limit the rate.
+     */
+    BandwidthThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    InputStream throttle(InputStream inputStream) {
+        if (bytesPerSecond <= 0) {
+            return inputStream;
+        }
+        return new FilterInputStream(inputStream) {
+            @Override
+            public int read() throws IOException {
+                int read = super.read();
+                if (read != -1) {
+                    consume(1);
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    consume(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    /**
+     * Reserves the time the bytes take at the limited rate and waits until the reservation begins.
+     */
+    private void consume(int bytes) throws InterruptedIOException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            // an idle stream doesn't build up credit for a later burst.
+            nextReadNanos = Math.max(nextReadNanos, now);
+            waitNanos = nextReadNanos - now;
+            nextReadNanos += TimeUnit.SECONDS.toNanos(bytes) / bytesPerSecond;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the download bandwidth limit.");
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Util;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * Applies a patch in the bsdiff 4 format to an installed binary. The old binary is read at the offsets the patch asks
+ * for and the new binary is written sequentially, so neither is held in memory.
+ */
+final class BinaryPatch {
+    private static final byte[] MAGIC = "BSDIFF40".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 32;
+    private static final int OFFSET_SIZE = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinaryPatch() {}
+
+    /**
+     * Writes the new binary the patch describes.
+     *
+     * @return the SHA-256 checksum of the new binary.
+     */
+    static String apply(Path oldFile, Path patchFile, Path newFile) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(patchFile)) {
+            IOUtils.readFully(inputStream, header);
+        } catch (EOFException ex) {
+            throw new IOException("The patch is not in the bsdiff format.", ex);
+        }
+        if (!Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC)) {
+            throw new IOException("The patch is not in the bsdiff format.");
+        }
+        long controlLength = readOffset(header, 8);
+        long diffLength = readOffset(header, 16);
+        long newSize = readOffset(header, 24);
+        long patchSize = Files.size(patchFile);
+        if (controlLength < 0
+                || diffLength < 0
+                || newSize < 0
+                || HEADER_SIZE + controlLength + diffLength > patchSize) {
+            throw new IOException("The patch header is corrupt.");
+        }
+        long diffOffset = HEADER_SIZE + controlLength;
+        long extraOffset = diffOffset + diffLength;
+        MessageDigest digest = FileDownloadInstaller.createDigest();
+        try (DataInputStream control = new DataInputStream(openBlock(patchFile, HEADER_SIZE, controlLength));
+                InputStream diff = openBlock(patchFile, diffOffset, diffLength);
+                InputStream extra = openBlock(patchFile, extraOffset, patchSize - extraOffset);
+                FileChannel old = FileChannel.open(oldFile, StandardOpenOption.READ);
+                OutputStream target =
+                        new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(newFile)), digest)) {
+            byte[] controlEntry = new byte[OFFSET_SIZE];
+            byte[] patchBuffer = new byte[BUFFER_SIZE];
+            byte[] oldBuffer = new byte[BUFFER_SIZE];
+            long newPosition = 0;
+            long oldPosition = 0;
+            while (newPosition < newSize) {
+                long diffBytes = readOffset(control, controlEntry);
+                long extraBytes = readOffset(control, controlEntry);
+                long oldSeek = readOffset(control, controlEntry);
+                if (diffBytes < 0 || extraBytes < 0 || newPosition + diffBytes + extraBytes > newSize) {
+                    throw new IOException("The patch control block is corrupt.");
+                }
+                // the diff block holds the bytewise difference to the old binary at the current old position.
+                for (long remaining = diffBytes; remaining > 0; ) {
+                    int length = (int) Math.min(BUFFER_SIZE, remaining);
+                    IOUtils.readFully(diff, patchBuffer, 0, length);
+                    readOld(old, oldPosition, oldBuffer, length);
+                    for (int i = 0; i < length; i++) {
+                        patchBuffer[i] += oldBuffer[i];
+                    }
+                    target.write(patchBuffer, 0, length);
+                    oldPosition += length;
+                    remaining -= length;
+                }
+                for (long remaining = extraBytes; remaining > 0; ) {
+                    int length = (int) Math.min(BUFFER_SIZE, remaining);
+                    IOUtils.readFully(extra, patchBuffer, 0, length);
+                    target.write(patchBuffer, 0, length);
+                    remaining -= length;
+                }
+                newPosition += diffBytes + extraBytes;
+                oldPosition += oldSeek;
+            }
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    private static InputStream openBlock(Path patchFile, long offset, long length) throws IOException {
+        InputStream inputStream = Files.newInputStream(patchFile);
+        try {
+            IOUtils.skipFully(inputStream, offset);
+            return new BZip2CompressorInputStream(
+                    new BufferedInputStream(new BoundedInputStream(inputStream, length), BUFFER_SIZE));
+        } catch (IOException ex) {
+            inputStream.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads old bytes into the buffer, bytes before the start or past the end of the old binary are zero.
+     */
+    private static void readOld(FileChannel old, long oldPosition, byte[] buffer, int length) throws IOException {
+        Arrays.fill(buffer, 0, length, (byte) 0);
+        long start = Math.max(oldPosition, 0);
+        long end = Math.min(oldPosition + length, old.size());
+        if (start >= end) {
+            return;
+        }
+        ByteBuffer window = ByteBuffer.wrap(buffer, (int) (start - oldPosition), (int) (end - start));
+        long position = start;
+        while (window.hasRemaining()) {
+            int read = old.read(window, position);
+            if (read == -1) {
+                throw new EOFException("The installed binary changed while it was patched.");
+            }
+            position += read;
+        }
+    }
+
+    private static long readOffset(DataInputStream control, byte[] controlEntry) throws IOException {
+        control.readFully(controlEntry);
+        return readOffset(controlEntry, 0);
+    }
+
+    /**
+     * Offsets are stored as 8 bytes little endian with the sign in the highest bit.
+     */
+    static long readOffset(byte[] bytes, int offset) {
+        long value = bytes[offset + 7] & 0x7F;
+        for (int i = 6; i >= 0; i--) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return (bytes[offset + 7] & 0x80) != 0 ? -value : value;
+    }
+}
@@ -6,29 +6,68 @@ package io.jenkins.plugins.sigma.extension.tool;
 import hudson.FilePath;
 import hudson.ProxyConfiguration;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 
 public class BinaryUpdateCheck implements Serializable {
+    public static final String LAST_CHECK_FILE_NAME = ".lastCheck";
+    public static final String ETAG_FILE_NAME = ".etag";
     private static final long serialVersionUID = 1L;
+    private static final String UP_TO_DATE = "up-to-date";
     private final String downloadUrl;
     private final int timeoutInMilliseconds;
+    private final long checkIntervalInMilliseconds;
+    private boolean compressedTransfer = true;
+    private transient HttpURLConnection pendingDownload;
 
     public BinaryUpdateCheck(final String downloadUrl, final int timeoutInMilliseconds) {
+        this(downloadUrl, timeoutInMilliseconds, 0);
+    }
+
+    /**
+     * @param checkIntervalInMilliseconds how long a successful check is trusted before the download host is asked
+     *     again, 0 checks on every installation.
+     */
+    public BinaryUpdateCheck(
+            final String downloadUrl, final int timeoutInMilliseconds, final long checkIntervalInMilliseconds) {
         this.downloadUrl = downloadUrl;
         this.timeoutInMilliseconds = timeoutInMilliseconds;
+        this.checkIntervalInMilliseconds = checkIntervalInMilliseconds;
+    }
+
+    /**
+     * @param compressedTransfer false checks without asking for a compressed response, so a new binary in the response
+     *     can still be downloaded in parallel byte ranges.
+     */
+    void setCompressedTransfer(boolean compressedTransfer) {
+        this.compressedTransfer = compressedTransfer;
     }
 
     public boolean isUpToDate(FilePath installedFrom, FilePath timestampPath, FilePath binaryPath)
             throws IOException, InterruptedException {
         boolean sameInstalledFromURL =
                 installedFrom.exists() && installedFrom.readToString().equals(downloadUrl);
-        boolean notModifiedSinceInstalled = !hasModifiedSinceInstalled(timestampPath);
         // SIGMA-3269: Added check for binaryPathExists because windows might have a "sigma" binary installed,
         // not a "sigma.exe" binary because of the bug in SIGMA-3269. So we need to download the binary as "sigma.exe".
         boolean binaryPathExists = binaryPath.exists();
-        return sameInstalledFromURL && notModifiedSinceInstalled && binaryPathExists;
+        if (!sameInstalledFromURL || !binaryPathExists) {
+            return false;
+        }
+        if (isCheckedRecently(timestampPath)) {
+            return true;
+        }
+        boolean notModifiedSinceInstalled = !hasModifiedSinceInstalled(timestampPath);
+        if (notModifiedSinceInstalled) {
+            recordCheck(timestampPath);
+        }
+        return notModifiedSinceInstalled;
     }
 
     public boolean hasModifiedSinceInstalled(FilePath timestampFilePath) throws IOException, InterruptedException {
@@ -37,14 +76,89 @@ public class BinaryUpdateCheck implements Serializable {
             return true;
         }
         long lastModified = timestampFilePath.lastModified();
+        FilePath etagPath = timestampFilePath.sibling(ETAG_FILE_NAME);
+        String installedETag = etagPath.exists() ? etagPath.readToString() : null;
         URL binarySourceUrl = new URL(downloadUrl);
         URLConnection binaryHostConnection = ProxyConfiguration.open(binarySourceUrl);
         if (lastModified != 0) {
             binaryHostConnection.setIfModifiedSince(lastModified);
         }
+        if (StringUtils.isNotBlank(installedETag)) {
+            binaryHostConnection.setRequestProperty("If-None-Match", installedETag);
+        }
+        if (compressedTransfer) {
+            // the response may become the download of the new binary.
+            FileDownloadInstaller.acceptCompressedTransfer(binaryHostConnection, downloadUrl);
+        }
         binaryHostConnection.setConnectTimeout(timeoutInMilliseconds);
         binaryHostConnection.connect();
+        if (binaryHostConnection instanceof HttpURLConnection) {
+            HttpURLConnection httpConnection = (HttpURLConnection) binaryHostConnection;
+            int responseCode = httpConnection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                // reading the empty body hands the connection back to the keep-alive cache for the download.
+                closeResponse(httpConnection);
+                return false;
+            }
+            if (responseCode == HttpURLConnection.HTTP_OK && isModified(httpConnection, lastModified, installedETag)) {
+                // the response already carries the new binary, keep it for the download instead of asking again.
+                pendingDownload = httpConnection;
+                return true;
+            }
+            // a server ignoring the conditional headers would send the whole binary, don't read it.
+            httpConnection.disconnect();
+            return false;
+        }
         long serverLastModified = binaryHostConnection.getLastModified();
         return serverLastModified > lastModified;
     }
+
+    /**
+     * Hands over the response of an update check that found a new binary, so the binary is downloaded with the
+     * request that checked for it.
+     *
+     * @return the open response, or null when the last check didn't leave one.
+     */
+    @Nullable
+    public HttpURLConnection takePendingDownload() {
+        HttpURLConnection download = pendingDownload;
+        pendingDownload = null;
+        return download;
+    }
+
+    private static boolean isModified(HttpURLConnection httpConnection, long lastModified, String installedETag) {
+        String serverETag = httpConnection.getHeaderField("ETag");
+        if (StringUtils.isNotBlank(installedETag) && StringUtils.isNotBlank(serverETag)) {
+            return !installedETag.equals(serverETag);
+        }
+        return httpConnection.getLastModified() > lastModified;
+    }
+
+    private static void closeResponse(HttpURLConnection httpConnection) throws IOException {
+        try (InputStream inputStream = httpConnection.getInputStream()) {
+            IOUtils.skip(inputStream, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Records that the installed binary matched the download host, next to the installation timestamp.
+     */
+    public void recordCheck(FilePath timestampFilePath) throws IOException, InterruptedException {
+        FilePath lastCheckPath = timestampFilePath.sibling(LAST_CHECK_FILE_NAME);
+        lastCheckPath.write(UP_TO_DATE, StandardCharsets.UTF_8.name());
+        lastCheckPath.touch(System.currentTimeMillis());
+    }
+
+    private boolean isCheckedRecently(FilePath timestampFilePath) throws IOException, InterruptedException {
+        if (checkIntervalInMilliseconds <= 0) {
+            return false;
+        }
+        FilePath lastCheckPath = timestampFilePath.sibling(LAST_CHECK_FILE_NAME);
+        if (!lastCheckPath.exists() || !UP_TO_DATE.equals(lastCheckPath.readToString())) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - lastCheckPath.lastModified();
+        // a check time in the future means the clock moved, ask the download host again.
+        return age >= 0 && age < checkIntervalInMilliseconds;
+    }
 }
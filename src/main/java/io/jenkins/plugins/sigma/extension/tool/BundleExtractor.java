@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Functions;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.Nullable;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Extracts a bundle of the binary and its rule packs while it downloads. Entries are written as they arrive from the
+ * download host, so the archive itself is never stored. Execute permissions recorded in the archive are kept.
+ */
+final class BundleExtractor {
+    private static final String[] TAR_GZIP_EXTENSIONS = {".tar.gz", ".tgz"};
+    private static final String ZIP_EXTENSION = ".zip";
+    private static final int OWNER_EXECUTE = 0100;
+    private static final int GROUP_OTHERS_EXECUTE = 0011;
+
+    private BundleExtractor() {}
+
+    static boolean isArchive(String downloadUrl) {
+        String path = getPath(downloadUrl);
+        return path.endsWith(ZIP_EXTENSION) || isTarGzip(path);
+    }
+
+    /**
+     * Extracts the archive into the target directory.
+     *
+     * @return the path of the binary relative to the target directory with forward slashes, the binary closest to
+     *     the top of the bundle when it contains more than one.
+     */
+    static String extract(InputStream inputStream, String downloadUrl, Path targetDirectory, String binaryName)
+            throws IOException {
+        Path target = targetDirectory.toAbsolutePath().normalize();
+        Files.createDirectories(target);
+        Path binary = null;
+        List<Path> links = new ArrayList<>();
+        try (ArchiveInputStream archive = openArchive(inputStream, getPath(downloadUrl))) {
+            ArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                Path entryPath = resolveEntry(target, entry.getName());
+                checkParents(target, entryPath, entry.getName());
+                if (entry.isDirectory()) {
+                    Files.createDirectories(entryPath);
+                    continue;
+                }
+                Files.createDirectories(entryPath.getParent());
+                if (entry instanceof TarArchiveEntry && ((TarArchiveEntry) entry).isSymbolicLink()) {
+                    createSymbolicLink(target, entryPath, ((TarArchiveEntry) entry).getLinkName());
+                    links.add(entryPath);
+                    continue;
+                }
+                if (!archive.canReadEntryData(entry)) {
+                    throw new IOException("The archive entry " + entry.getName() + " uses an unsupported format.");
+                }
+                Files.copy(archive, entryPath, StandardCopyOption.REPLACE_EXISTING);
+                setMode(entryPath, getMode(entry));
+                if (entryPath.getFileName().toString().equals(binaryName)
+                        && (binary == null || entryPath.getNameCount() < binary.getNameCount())) {
+                    binary = entryPath;
+                }
+            }
+            // the checksum covers the whole download, including the padding after the last entry.
+            IOUtils.skip(inputStream, Long.MAX_VALUE);
+        }
+        checkLinks(target, links);
+        if (binary == null) {
+            throw new IOException("The archive doesn't contain " + binaryName + ".");
+        }
+        if (!Functions.isWindows()) {
+            binary.toFile().setExecutable(true, false);
+        }
+        return target.relativize(binary).toString().replace(File.separatorChar, '/');
+    }
+
+    private static ArchiveInputStream openArchive(InputStream inputStream, String path) throws IOException {
+        if (isTarGzip(path)) {
+            return new TarArchiveInputStream(new GZIPInputStream(inputStream));
+        }
+        return new ZipArchiveInputStream(inputStream);
+    }
+
+    /**
+     * Entries must stay inside the target directory, an archive can't write elsewhere on the node.
+     */
+    private static Path resolveEntry(Path target, String entryName) throws IOException {
+        Path entryPath = target.resolve(entryName).normalize();
+        if (!entryPath.startsWith(target) || entryPath.equals(target)) {
+            throw new IOException("The archive entry " + entryName + " is outside of the bundle.");
+        }
+        return entryPath;
+    }
+
+    /**
+     * Entries are never written through a link of the archive, the lexical check of the entry name can't tell where
+     * a chain of links ends up.
+     */
+    private static void checkParents(Path target, Path entryPath, String entryName) throws IOException {
+        for (Path parent = entryPath.getParent(); !parent.equals(target); parent = parent.getParent()) {
+            if (Files.isSymbolicLink(parent)) {
+                throw new IOException(
+                        "The archive entry " + entryName + " is inside of the archive link " + parent + ".");
+            }
+        }
+    }
+
+    /**
+     * A link may point through other links, so where it ends up is only known once all of them exist.
+     */
+    private static void checkLinks(Path target, List<Path> links) throws IOException {
+        Path realTarget = target.toRealPath();
+        for (Path link : links) {
+            Path linkTarget = Files.exists(link)
+                    ? link.toRealPath()
+                    : link.getParent().toRealPath().resolve(Files.readSymbolicLink(link)).normalize();
+            if (!linkTarget.startsWith(realTarget)) {
+                throw new IOException("The archive link " + link + " points outside of the bundle.");
+            }
+        }
+    }
+
+    private static void createSymbolicLink(Path target, Path entryPath, String linkName) throws IOException {
+        Path linkTarget = Paths.get(linkName);
+        if (linkTarget.isAbsolute() || !entryPath.getParent().resolve(linkTarget).normalize().startsWith(target)) {
+            throw new IOException("The archive link " + entryPath + " points outside of the bundle.");
+        }
+        Files.deleteIfExists(entryPath);
+        Files.createSymbolicLink(entryPath, linkTarget);
+    }
+
+    @Nullable
+    private static Integer getMode(ArchiveEntry entry) {
+        if (entry instanceof TarArchiveEntry) {
+            return ((TarArchiveEntry) entry).getMode();
+        }
+        if (entry instanceof ZipArchiveEntry
+                && ((ZipArchiveEntry) entry).getPlatform() == ZipArchiveEntry.PLATFORM_UNIX) {
+            return ((ZipArchiveEntry) entry).getUnixMode();
+        }
+        return null;
+    }
+
+    private static void setMode(Path file, @Nullable Integer mode) {
+        if (mode == null || Functions.isWindows() || (mode & OWNER_EXECUTE) == 0) {
+            return;
+        }
+        file.toFile().setExecutable(true, (mode & GROUP_OTHERS_EXECUTE) == 0);
+    }
+
+    private static boolean isTarGzip(String path) {
+        for (String extension : TAR_GZIP_EXTENSIONS) {
+            if (path.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getPath(String downloadUrl) {
+        try {
+            return new URL(downloadUrl).getPath().toLowerCase(Locale.ROOT);
+        } catch (MalformedURLException ex) {
+            return "";
+        }
+    }
+}
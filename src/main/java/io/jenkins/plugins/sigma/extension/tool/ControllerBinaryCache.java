@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteInputStream;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DirScanner;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.List;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+
+/**
+ * Keeps a single copy of the Rapid Scan Static binary in JENKINS_HOME and pushes it to nodes over the remoting
+ * channel, so only the controller needs access to the download URL.
+ */
+public class ControllerBinaryCache {
+    public static final String CACHE_DIRECTORY_NAME = "black-duck-sigma";
+    private static final String LOG_PREFIX = "Rapid Scan Static controller cache: ";
+    private final File cacheRoot;
+    private final String downloadUrl;
+
+    public ControllerBinaryCache(File cacheRoot, String downloadUrl) {
+        this.cacheRoot = cacheRoot;
+        this.downloadUrl = downloadUrl;
+    }
+
+    public static File getDefaultCacheRoot() {
+        return new File(new File(Jenkins.get().getRootDir(), "caches"), CACHE_DIRECTORY_NAME);
+    }
+
+    public FilePath getCacheLocation() {
+        return new FilePath(new File(cacheRoot, Util.getDigestOf(downloadUrl)));
+    }
+
+    /**
+     * Refreshes the controller copy with the given download, then copies it to the install location unless the node
+     * already has a binary with the same checksum. The copy is placed under the installation lock of the node, so
+     * executors of the node installing at the same time share one copy.
+     *
+     * @param keepVersions number of versions kept side by side on the node, 0 installs a single binary.
+     * @return the report of the controller download, up to date when the node already had the binary.
+     */
+    public InstallationReport install(
+            FileDownloadInstaller cacheDownload,
+            FilePath installLocation,
+            boolean unix,
+            int keepVersions,
+            TaskListener log)
+            throws IOException, InterruptedException {
+        FilePath cacheLocation = getCacheLocation();
+        InstallationReport report = cacheDownload.call();
+        if (BundleExtractor.isArchive(downloadUrl)) {
+            return installBundle(report, installLocation, keepVersions, log);
+        }
+        FilePath cachedBinary = cacheLocation.child(FileDownloadInstaller.getBinaryFileName());
+        String checksum = readChecksum(cacheLocation, cachedBinary);
+        FilePath installedFrom = installLocation.child(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME);
+        FilePath checksumPath = installLocation.child(FileDownloadInstaller.SHA256_FILE_NAME);
+        String binaryName =
+                unix ? SigmaToolInstallation.UNIX_SIGMA_COMMAND : SigmaToolInstallation.WINDOWS_SIGMA_COMMAND;
+        FilePath installedBinary = keepVersions > 0
+                ? installLocation
+                        .child(VersionedStore.STORE_DIRECTORY_NAME)
+                        .child(checksum)
+                        .child(binaryName)
+                : installLocation.child(binaryName);
+        if (installedBinary.exists()
+                && installedFrom.exists()
+                && installedFrom.readToString().equals(downloadUrl)
+                && checksumPath.exists()
+                && checksumPath.readToString().equals(checksum)) {
+            log.getLogger().println(LOG_PREFIX + "Skipping tool installation already up to date on node.");
+            report.setUpToDate(true);
+            return report;
+        }
+        long timestamp = cacheLocation.child(FileDownloadInstaller.TIMESTAMP_FILE_NAME).lastModified();
+        try (InputStream content = cachedBinary.read()) {
+            PlaceBinary placeBinary = new PlaceBinary(
+                    new RemoteInputStream(content),
+                    downloadUrl,
+                    checksum,
+                    timestamp,
+                    log,
+                    binaryName,
+                    unix,
+                    keepVersions);
+            report.setUpToDate(!installLocation.act(placeBinary));
+        }
+        return report;
+    }
+
+    /**
+     * Copies the current bundle of the controller copy to the node, the tar stream keeps the file modes of the bundle.
+     * The node adds it to its store like an extracted download.
+     */
+    private InstallationReport installBundle(
+            InstallationReport report, FilePath installLocation, int keepVersions, TaskListener log)
+            throws IOException, InterruptedException {
+        FilePath cacheLocation = getCacheLocation();
+        String checksum = cacheLocation.child(FileDownloadInstaller.SHA256_FILE_NAME).readToString().trim();
+        FilePath installedFrom = installLocation.child(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME);
+        FilePath checksumPath = installLocation.child(FileDownloadInstaller.SHA256_FILE_NAME);
+        FilePath installedBundle = installLocation.child(VersionedStore.STORE_DIRECTORY_NAME).child(checksum);
+        if (installedBundle.child(VersionedStore.EXECUTABLE_PATH_FILE_NAME).exists()
+                && installedFrom.exists()
+                && installedFrom.readToString().equals(downloadUrl)
+                && checksumPath.exists()
+                && checksumPath.readToString().equals(checksum)) {
+            log.getLogger().println(LOG_PREFIX + "Skipping tool installation already up to date on node.");
+            report.setUpToDate(true);
+            return report;
+        }
+        long timestamp = cacheLocation.child(FileDownloadInstaller.TIMESTAMP_FILE_NAME).lastModified();
+        FilePath cachedBundle = cacheLocation.child(VersionedStore.STORE_DIRECTORY_NAME).child(checksum);
+        Path archive = Files.createTempFile(Paths.get(cacheLocation.getRemote()), checksum, ".tar");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(archive)) {
+                cachedBundle.tar(outputStream, new DirScanner.Glob("**/*", null, false));
+            }
+            try (InputStream content = Files.newInputStream(archive)) {
+                PlaceBundle placeBundle = new PlaceBundle(
+                        new RemoteInputStream(content),
+                        downloadUrl,
+                        checksum,
+                        timestamp,
+                        log,
+                        Math.max(SigmaBinaryInstaller.MIN_KEEP_VERSIONS, keepVersions));
+                report.setUpToDate(!installLocation.act(placeBundle));
+            }
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+        return report;
+    }
+
+    private static String readChecksum(FilePath cacheLocation, FilePath cachedBinary)
+            throws IOException, InterruptedException {
+        FilePath checksumPath = cacheLocation.child(FileDownloadInstaller.SHA256_FILE_NAME);
+        if (checksumPath.exists()) {
+            return checksumPath.readToString();
+        }
+        // binaries cached before checksums were recorded.
+        MessageDigest digest = FileDownloadInstaller.createDigest();
+        FileDownloadInstaller.updateDigest(digest, new File(cachedBinary.getRemote()).toPath());
+        String checksum = Util.toHexString(digest.digest());
+        checksumPath.write(checksum, StandardCharsets.UTF_8.name());
+        return checksum;
+    }
+
+    /**
+     * Places the copy from the controller into the install directory of the node. Runs under the installation lock of
+     * the directory, an executor that finds the copy placed while it waited keeps it.
+     */
+    private abstract static class NodeInstallation extends MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+        private final InputStream content;
+        private final String downloadUrl;
+        protected final String checksum;
+        private final long timestamp;
+        private final TaskListener log;
+        private transient boolean placed;
+
+        NodeInstallation(InputStream content, String downloadUrl, String checksum, long timestamp, TaskListener log) {
+            this.content = content;
+            this.downloadUrl = downloadUrl;
+            this.checksum = checksum;
+            this.timestamp = timestamp;
+            this.log = log;
+        }
+
+        /**
+         * @return true when this executor placed the copy, false when the node already had it.
+         */
+        @Override
+        public Boolean invoke(File installDirectory, VirtualChannel channel) throws IOException, InterruptedException {
+            try (InputStream inputStream = content) {
+                InstallationLock.runOnce(installDirectory, log, () -> {
+                    if (isInstalled(installDirectory)) {
+                        log.getLogger().println(LOG_PREFIX + "Skipping tool installation already up to date on node.");
+                        return;
+                    }
+                    log.getLogger().println(LOG_PREFIX + "Copying Rapid Scan Static to node...");
+                    for (String removedVersion : place(installDirectory, inputStream)) {
+                        log.getLogger()
+                                .println(LOG_PREFIX + "Removed unused version " + removedVersion + " from node.");
+                    }
+                    Path home = installDirectory.toPath();
+                    Files.write(
+                            home.resolve(FileDownloadInstaller.SHA256_FILE_NAME),
+                            checksum.getBytes(StandardCharsets.UTF_8));
+                    Files.write(
+                            home.resolve(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME),
+                            downloadUrl.getBytes(StandardCharsets.UTF_8));
+                    new FilePath(home.resolve(FileDownloadInstaller.TIMESTAMP_FILE_NAME).toFile()).touch(timestamp);
+                    placed = true;
+                });
+            }
+            return placed;
+        }
+
+        private boolean isInstalled(File installDirectory) throws IOException {
+            Path home = installDirectory.toPath();
+            Path installedFrom = home.resolve(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME);
+            Path checksumPath = home.resolve(FileDownloadInstaller.SHA256_FILE_NAME);
+            return isPlaced(installDirectory)
+                    && Files.exists(installedFrom)
+                    && new String(Files.readAllBytes(installedFrom), StandardCharsets.UTF_8).equals(downloadUrl)
+                    && Files.exists(checksumPath)
+                    && new String(Files.readAllBytes(checksumPath), StandardCharsets.UTF_8).equals(checksum);
+        }
+
+        abstract boolean isPlaced(File installDirectory);
+
+        /**
+         * @return the versions removed from the store of the node.
+         */
+        abstract List<String> place(File installDirectory, InputStream inputStream)
+                throws IOException, InterruptedException;
+    }
+
+    private static final class PlaceBundle extends NodeInstallation {
+        private static final long serialVersionUID = 1L;
+        private final int keepVersions;
+
+        private PlaceBundle(
+                InputStream content,
+                String downloadUrl,
+                String checksum,
+                long timestamp,
+                TaskListener log,
+                int keepVersions) {
+            super(content, downloadUrl, checksum, timestamp, log);
+            this.keepVersions = keepVersions;
+        }
+
+        @Override
+        boolean isPlaced(File installDirectory) {
+            return installDirectory
+                    .toPath()
+                    .resolve(VersionedStore.STORE_DIRECTORY_NAME)
+                    .resolve(checksum)
+                    .resolve(VersionedStore.EXECUTABLE_PATH_FILE_NAME)
+                    .toFile()
+                    .exists();
+        }
+
+        @Override
+        List<String> place(File installDirectory, InputStream inputStream) throws IOException, InterruptedException {
+            File stagingDirectory = new File(installDirectory, FileDownloadInstaller.BUNDLE_STAGING_DIRECTORY_NAME);
+            Util.deleteRecursive(stagingDirectory);
+            new FilePath(stagingDirectory).untarFrom(inputStream, FilePath.TarCompression.NONE);
+            VersionedStore store = new VersionedStore(installDirectory.toPath());
+            store.addBundle(stagingDirectory.toPath(), checksum);
+            store.switchTo(checksum);
+            return store.collectGarbage(keepVersions);
+        }
+    }
+
+    private static final class PlaceBinary extends NodeInstallation {
+        private static final long serialVersionUID = 1L;
+        private final String binaryName;
+        private final boolean executable;
+        private final int keepVersions;
+
+        private PlaceBinary(
+                InputStream content,
+                String downloadUrl,
+                String checksum,
+                long timestamp,
+                TaskListener log,
+                String binaryName,
+                boolean executable,
+                int keepVersions) {
+            super(content, downloadUrl, checksum, timestamp, log);
+            this.binaryName = binaryName;
+            this.executable = executable;
+            this.keepVersions = keepVersions;
+        }
+
+        @Override
+        boolean isPlaced(File installDirectory) {
+            File installedBinary = keepVersions > 0
+                    ? installDirectory
+                            .toPath()
+                            .resolve(VersionedStore.STORE_DIRECTORY_NAME)
+                            .resolve(checksum)
+                            .resolve(binaryName)
+                            .toFile()
+                    : new File(installDirectory, binaryName);
+            return installedBinary.exists();
+        }
+
+        @Override
+        List<String> place(File installDirectory, InputStream inputStream) throws IOException {
+            // copy next to the binary first so builds running on the node never see a partially copied binary.
+            Path partialFile =
+                    installDirectory.toPath().resolve(binaryName + FileDownloadInstaller.PARTIAL_FILE_SUFFIX);
+            Files.copy(inputStream, partialFile, StandardCopyOption.REPLACE_EXISTING);
+            if (executable) {
+                partialFile.toFile().setExecutable(true, false);
+            }
+            return FileDownloadInstaller.placeBinary(
+                    partialFile, new File(installDirectory, binaryName).toPath(), checksum, keepVersions);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits how many installations the controller dispatches at once, across all installers and download URLs, so a
+ * new release rolls out to many agents without all of them downloading at the same time.
+ */
+final class DownloadLimiter {
+    private static final LimitSemaphore SEMAPHORE = new LimitSemaphore();
+
+    private DownloadLimiter() {}
+
+    /**
+     * @return the semaphore shared by all installations. A changed limit resizes it, so installations holding a permit
+     *     still release it there, and installers configured with different limits share the latest one.
+     */
+    static Semaphore getSemaphore(int maxConcurrentDownloads) {
+        SEMAPHORE.setPermits(maxConcurrentDownloads);
+        return SEMAPHORE;
+    }
+
+    private static final class LimitSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+        private int permits;
+
+        private LimitSemaphore() {
+            super(0, true);
+        }
+
+        private synchronized void setPermits(int permits) {
+            if (permits > this.permits) {
+                release(permits - this.permits);
+            } else if (permits < this.permits) {
+                // permits in use above the new limit are taken back once they are released.
+                reducePermits(this.permits - permits);
+            }
+            this.permits = permits;
+        }
+    }
+}
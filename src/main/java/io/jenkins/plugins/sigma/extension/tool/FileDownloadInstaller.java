@@ -6,25 +6,64 @@ package io.jenkins.plugins.sigma.extension.tool;
 import hudson.FilePath;
 import hudson.Functions;
 import hudson.ProxyConfiguration;
+import hudson.Util;
 import hudson.model.TaskListener;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.Nullable;
 import jenkins.security.MasterToSlaveCallable;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang.StringUtils;
 
-public class FileDownloadInstaller extends MasterToSlaveCallable<Void, IOException> {
+public class FileDownloadInstaller extends MasterToSlaveCallable<InstallationReport, IOException> {
     public static final String INSTALLED_FROM_FILE_NAME = ".installedFrom";
     public static final String TIMESTAMP_FILE_NAME = ".timestamp";
+    public static final String SHA256_FILE_NAME = ".sha256";
+    public static final String PARTIAL_FILE_SUFFIX = ".part";
+    public static final String PARTIAL_VALIDATOR_FILE_NAME = ".partValidator";
+    public static final String DELTA_FILE_NAME = ".delta";
+    public static final String BUNDLE_STAGING_DIRECTORY_NAME = ".bundle.part";
+    public static final String DELTA_CHECKSUM_PLACEHOLDER = "{sha256}";
     private static final String LOG_PREFIX = "Rapid Scan Static installation: ";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final String GZIP_ENCODING = "gzip";
+    private static final String GZIP_FILE_EXTENSION = ".gz";
     private final String downloadUrl;
     private final FilePath downloadLocation;
     private final int timeoutInMilliseconds;
     private final TaskListener log;
     private final BinaryUpdateCheck binaryUpdateCheck;
+    private String expectedChecksum;
+    private String checksumUrl;
+    private int parallelDownloads = 1;
+    private int keepVersions;
+    private long bandwidthLimit;
+    private String sharedCachePath;
+    private String deltaUrl;
 
     public FileDownloadInstaller(
             String downloadUrl,
@@ -37,41 +76,649 @@ public class FileDownloadInstaller extends MasterToSlaveCallable<Void, IOExcepti
         this.timeoutInMilliseconds = timeoutInMilliseconds;
         this.log = log;
         this.binaryUpdateCheck = updateChecker;
+        // an extracted bundle is a directory, it is always kept in the store.
+        this.keepVersions = BundleExtractor.isArchive(downloadUrl) ? SigmaBinaryInstaller.MIN_KEEP_VERSIONS : 0;
     }
 
+    /**
+     * SHA-256 checksum the downloaded binary must match before it replaces the installed binary.
+     */
+    public void setExpectedChecksum(@Nullable String expectedChecksum) {
+        this.expectedChecksum = Util.fixEmptyAndTrim(expectedChecksum);
+    }
+
+    /**
+     * URL of a published SHA-256 checksum, used when no checksum is configured.
+     */
+    public void setChecksumUrl(@Nullable String checksumUrl) {
+        this.checksumUrl = Util.fixEmptyAndTrim(checksumUrl);
+    }
+
+    /**
+     * Number of byte ranges downloaded at once from a host that supports ranges, 1 downloads a single stream.
+     */
+    public void setParallelDownloads(int parallelDownloads) {
+        this.parallelDownloads = Math.max(1, parallelDownloads);
+    }
+
+    /**
+     * Number of versions kept side by side in the content addressed store of the tool home, 0 installs a single
+     * binary. Bundles are always kept in the store.
+     */
+    public void setKeepVersions(int keepVersions) {
+        this.keepVersions = BundleExtractor.isArchive(downloadUrl)
+                ? Math.max(SigmaBinaryInstaller.MIN_KEEP_VERSIONS, keepVersions)
+                : Math.max(0, keepVersions);
+    }
+
+    /**
+     * Maximum rate in bytes per second the binary is downloaded at, 0 doesn't limit the rate.
+     */
+    public void setBandwidthLimit(long bytesPerSecond) {
+        this.bandwidthLimit = Math.max(0, bytesPerSecond);
+    }
+
+    /**
+     * URL of a bsdiff patch from an installed binary to the release, {@value #DELTA_CHECKSUM_PLACEHOLDER} is replaced
+     * with the SHA-256 checksum of the installed binary. Null always downloads the full binary.
+     */
+    public void setDeltaUrl(@Nullable String deltaUrl) {
+        this.deltaUrl = Util.fixEmptyAndTrim(deltaUrl);
+    }
+
+    /**
+     * Directory shared by the agents of a host the binary is cached in and linked from, null downloads into the tool
+     * home.
+     */
+    public void setSharedCachePath(@Nullable String sharedCachePath) {
+        this.sharedCachePath = Util.fixEmptyAndTrim(sharedCachePath);
+    }
+
+    /**
+     * @return what the installation did. An executor that waited for an installation already in progress on the node
+     *     reports the binary up to date, without an update check or a download.
+     */
     @Override
-    public Void call() throws IOException {
+    public InstallationReport call() throws IOException {
+        InstallationReport report = new InstallationReport();
+        File home = new File(downloadLocation.getRemote());
+        InstallationLock.Installation installation;
+        if (sharedCachePath == null) {
+            installation = () -> install(report);
+        } else if (BundleExtractor.isArchive(downloadUrl)) {
+            log.getLogger()
+                    .println(LOG_PREFIX + "The shared cache only holds single binaries, extracting the bundle "
+                            + "into the tool home.");
+            installation = () -> install(report);
+        } else if (new File(sharedCachePath).isDirectory()) {
+            SharedBinaryCache sharedCache = new SharedBinaryCache(new File(sharedCachePath), downloadUrl);
+            FileDownloadInstaller cacheFill = createCacheFill(new FilePath(sharedCache.getCacheLocation()));
+            installation = () -> sharedCache.install(cacheFill, home, expectedChecksum, keepVersions, report, log);
+        } else {
+            log.getLogger()
+                    .println(LOG_PREFIX + "Shared cache " + sharedCachePath
+                            + " doesn't exist on the node, downloading into the tool home.");
+            installation = () -> install(report);
+        }
         try {
-            URL binarySourceUrl = new URL(downloadUrl);
-            FilePath installedFrom = downloadLocation.child(INSTALLED_FROM_FILE_NAME);
-            FilePath timestampPath = downloadLocation.child(TIMESTAMP_FILE_NAME);
-            String binaryFileName = Functions.isWindows()
-                    ? SigmaToolInstallation.WINDOWS_SIGMA_COMMAND
-                    : SigmaToolInstallation.UNIX_SIGMA_COMMAND;
-            FilePath binaryPath = downloadLocation.child(binaryFileName);
-            if (binaryUpdateCheck.isUpToDate(installedFrom, timestampPath, binaryPath)) {
-                log.getLogger().println(LOG_PREFIX + "Skipping tool installation already up to date on node.");
-                return null;
+            // executors on the same node share one download instead of each replacing the binary.
+            if (!InstallationLock.runOnce(home, log, installation)) {
+                // the executor that installed reports the installation, the node doesn't need to pick it up again.
+                report.setUpToDate(true);
             }
-            downloadLocation.mkdirs();
-            File fileToWrite = new File(binaryPath.getRemote());
-            log.getLogger().println(LOG_PREFIX + "Installing Rapid Scan Static binary...");
-            URLConnection binaryHostConnection = ProxyConfiguration.open(binarySourceUrl);
-            binaryHostConnection.setConnectTimeout(timeoutInMilliseconds);
-            binaryHostConnection.connect();
-            try (InputStream inputStream = binaryHostConnection.getInputStream()) {
-                FileUtils.copyToFile(inputStream, fileToWrite);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        return report;
+    }
+
+    /**
+     * The shared cache entry of the download URL is filled like a tool home with a single version, its lock file keeps
+     * agents of the host from downloading at the same time.
+     */
+    private FileDownloadInstaller createCacheFill(FilePath cacheLocation) {
+        FileDownloadInstaller cacheFill =
+                new FileDownloadInstaller(downloadUrl, cacheLocation, timeoutInMilliseconds, log, binaryUpdateCheck);
+        cacheFill.setExpectedChecksum(expectedChecksum);
+        cacheFill.setChecksumUrl(checksumUrl);
+        cacheFill.setParallelDownloads(parallelDownloads);
+        cacheFill.setBandwidthLimit(bandwidthLimit);
+        cacheFill.setDeltaUrl(deltaUrl);
+        return cacheFill;
+    }
+
+    private void install(InstallationReport report) throws IOException, InterruptedException {
+        URL binarySourceUrl = new URL(downloadUrl);
+        FilePath installedFrom = downloadLocation.child(INSTALLED_FROM_FILE_NAME);
+        FilePath timestampPath = downloadLocation.child(TIMESTAMP_FILE_NAME);
+        FilePath checksumPath = downloadLocation.child(SHA256_FILE_NAME);
+        File fileToWrite = new File(downloadLocation.getRemote(), getBinaryFileName());
+        VersionedStore store = new VersionedStore(fileToWrite.getParentFile().toPath());
+        if (keepVersions > 0 && switchToStoredVersion(store, checksumPath)) {
+            report.setUpToDate(true);
+            return;
+        }
+        File installedBinary = getInstalledBinary(store, fileToWrite);
+        // the response of the check becomes the download, a compressed one can't be split into byte ranges.
+        binaryUpdateCheck.setCompressedTransfer(parallelDownloads <= 1);
+        long updateCheckStart = System.nanoTime();
+        boolean upToDate = installedBinary != null
+                && isInstalledChecksum(checksumPath)
+                && binaryUpdateCheck.isUpToDate(installedFrom, timestampPath, new FilePath(installedBinary));
+        report.setUpdateCheckNanos(System.nanoTime() - updateCheckStart);
+        if (upToDate) {
+            log.getLogger().println(LOG_PREFIX + "Skipping tool installation already up to date on node.");
+            report.setUpToDate(true);
+            return;
+        }
+        // download to a partial file next to the binary so an interrupted download can be resumed later and a
+        // running build never sees a half written binary.
+        File partialFile = new File(fileToWrite.getPath() + PARTIAL_FILE_SUFFIX);
+        File partialValidator = new File(fileToWrite.getParentFile(), PARTIAL_VALIDATOR_FILE_NAME);
+        String checksum = resolveExpectedChecksum();
+        HttpURLConnection pendingDownload = binaryUpdateCheck.takePendingDownload();
+        BandwidthThrottle throttle = new BandwidthThrottle(bandwidthLimit);
+        if (BundleExtractor.isArchive(downloadUrl)) {
+            installBundle(binarySourceUrl, pendingDownload, checksum, throttle, report);
+            return;
+        }
+        // the patched binary is verified against the expected checksum, without one only full downloads are used.
+        if (checksum != null
+                && installDelta(
+                        installedBinary, checksumPath, partialFile, partialValidator, checksum, throttle, report)) {
+            // the update check response describes the new binary, its validators are kept for the next check.
+            completeInstallation(partialFile, fileToWrite, checksum.toLowerCase(Locale.ROOT), pendingDownload);
+            if (pendingDownload != null) {
+                pendingDownload.disconnect();
             }
-            installedFrom.write(downloadUrl, StandardCharsets.UTF_8.name());
+            return;
+        }
+        log.getLogger().println(LOG_PREFIX + "Installing Rapid Scan Static binary...");
+        URLConnection binaryHostConnection =
+                openConnection(binarySourceUrl, partialFile, partialValidator, pendingDownload);
+        boolean resumed = isPartialContent(binaryHostConnection);
+        long downloadStart = System.nanoTime();
+        long resumeOffset = resumed ? partialFile.length() : 0;
+        String downloadedChecksum;
+        if (!resumed
+                && parallelDownloads > 1
+                && ParallelRangeDownload.isSupported(binaryHostConnection, parallelDownloads)) {
+            downloadedChecksum =
+                    downloadRanges(binarySourceUrl, binaryHostConnection, partialFile, partialValidator, throttle);
+        } else {
+            downloadedChecksum =
+                    downloadStream(binaryHostConnection, partialFile, partialValidator, resumed, throttle);
+        }
+        report.setDownload(partialFile.length() - resumeOffset, System.nanoTime() - downloadStart);
+        if (checksum != null && !checksum.equalsIgnoreCase(downloadedChecksum)) {
+            Files.deleteIfExists(partialFile.toPath());
+            Files.deleteIfExists(partialValidator.toPath());
+            throw new IOException(String.format(
+                    "Checksum of the downloaded binary %s does not match the expected checksum %s.",
+                    downloadedChecksum, checksum));
+        }
+        completeInstallation(partialFile, fileToWrite, downloadedChecksum, binaryHostConnection);
+    }
+
+    /**
+     * Puts the verified partial file in place and marks the installation.
+     *
+     * @param binaryHostConnection the response that described the binary, null when there was none.
+     */
+    private void completeInstallation(
+            File partialFile, File fileToWrite, String checksum, @Nullable URLConnection binaryHostConnection)
+            throws IOException, InterruptedException {
+        // set the binary to be executable on linux based systems
+        if (!Functions.isWindows()) {
+            partialFile.setExecutable(true, false);
+        }
+        List<String> removedVersions = placeBinary(partialFile.toPath(), fileToWrite.toPath(), checksum, keepVersions);
+        for (String removedVersion : removedVersions) {
+            log.getLogger().println(LOG_PREFIX + "Removed unused version " + removedVersion + ".");
+        }
+        Files.deleteIfExists(new File(fileToWrite.getParentFile(), PARTIAL_VALIDATOR_FILE_NAME).toPath());
+        markInstallation(checksum, binaryHostConnection);
+    }
+
+    /**
+     * Marks the installation once the complete binary is in place.
+     */
+    private void markInstallation(String checksum, @Nullable URLConnection binaryHostConnection)
+            throws IOException, InterruptedException {
+        FilePath timestampPath = downloadLocation.child(TIMESTAMP_FILE_NAME);
+        downloadLocation.child(SHA256_FILE_NAME).write(checksum, StandardCharsets.UTF_8.name());
+        downloadLocation.child(INSTALLED_FROM_FILE_NAME).write(downloadUrl, StandardCharsets.UTF_8.name());
+        FilePath etagPath = timestampPath.sibling(BinaryUpdateCheck.ETAG_FILE_NAME);
+        if (binaryHostConnection != null) {
             timestampPath.touch(binaryHostConnection.getLastModified());
-            // set the binary to be executable on linux based systems
-            if (!Functions.isWindows()) {
-                fileToWrite.setExecutable(true, false);
+            saveETag(binaryHostConnection, etagPath);
+        } else {
+            timestampPath.touch(System.currentTimeMillis());
+            if (etagPath.exists()) {
+                etagPath.delete();
             }
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
         }
+        binaryUpdateCheck.recordCheck(timestampPath);
+    }
+
+    /**
+     * Extracts a bundle into a staging directory of the tool home as it downloads, then adds it to the store and
+     * switches to it. The checksum covers the archive, so it can't be verified before the bundle is extracted.
+     */
+    private void installBundle(
+            URL binarySourceUrl,
+            @Nullable HttpURLConnection pendingDownload,
+            @Nullable String checksum,
+            BandwidthThrottle throttle,
+            InstallationReport report)
+            throws IOException, InterruptedException {
+        log.getLogger().println(LOG_PREFIX + "Installing Rapid Scan Static bundle...");
+        URLConnection binaryHostConnection = pendingDownload;
+        if (binaryHostConnection == null) {
+            binaryHostConnection = ProxyConfiguration.open(binarySourceUrl);
+            binaryHostConnection.setConnectTimeout(timeoutInMilliseconds);
+        }
+        Path home = new File(downloadLocation.getRemote()).toPath();
+        Path stagingDirectory = home.resolve(BUNDLE_STAGING_DIRECTORY_NAME);
+        Util.deleteRecursive(stagingDirectory.toFile());
+        MessageDigest digest = createDigest();
+        long downloadStart = System.nanoTime();
+        String executablePath;
+        // archives are never requested with a transfer encoding, a host labelling a .tar.gz with gzip content
+        // encoding sends the archive itself, which is decompressed once by the extraction.
+        try (CountingInputStream countingStream =
+                        new CountingInputStream(throttle.throttle(binaryHostConnection.getInputStream()));
+                InputStream inputStream = new DigestInputStream(countingStream, digest)) {
+            executablePath = BundleExtractor.extract(inputStream, downloadUrl, stagingDirectory, getBinaryFileName());
+            report.setDownload(countingStream.getByteCount(), System.nanoTime() - downloadStart);
+        } catch (IOException ex) {
+            Util.deleteRecursive(stagingDirectory.toFile());
+            throw ex;
+        }
+        String downloadedChecksum = Util.toHexString(digest.digest());
+        if (checksum != null && !checksum.equalsIgnoreCase(downloadedChecksum)) {
+            Util.deleteRecursive(stagingDirectory.toFile());
+            throw new IOException(String.format(
+                    "Checksum of the downloaded bundle %s does not match the expected checksum %s.",
+                    downloadedChecksum, checksum));
+        }
+        Files.write(
+                stagingDirectory.resolve(VersionedStore.EXECUTABLE_PATH_FILE_NAME),
+                executablePath.getBytes(StandardCharsets.UTF_8));
+        VersionedStore store = new VersionedStore(home);
+        store.addBundle(stagingDirectory, downloadedChecksum);
+        store.switchTo(downloadedChecksum);
+        for (String removedVersion : store.collectGarbage(keepVersions)) {
+            log.getLogger().println(LOG_PREFIX + "Removed unused version " + removedVersion + ".");
+        }
+        markInstallation(downloadedChecksum, binaryHostConnection);
+    }
+
+    /**
+     * Downloads the patch from the installed binary to the release and applies it into the partial file. Any failure,
+     * including a server without a patch for the installed binary, leaves the full download to the caller.
+     *
+     * @return true when the partial file holds the patched binary with the expected checksum.
+     */
+    private boolean installDelta(
+            @Nullable File installedBinary,
+            FilePath checksumPath,
+            File partialFile,
+            File partialValidator,
+            String checksum,
+            BandwidthThrottle throttle,
+            InstallationReport report)
+            throws IOException, InterruptedException {
+        if (deltaUrl == null || installedBinary == null || !installedBinary.exists() || !checksumPath.exists()) {
+            return false;
+        }
+        String installedChecksum = checksumPath.readToString().trim().toLowerCase(Locale.ROOT);
+        if (installedChecksum.equalsIgnoreCase(checksum)) {
+            return false;
+        }
+        String patchUrl = deltaUrl.replace(DELTA_CHECKSUM_PLACEHOLDER, installedChecksum);
+        Path patchFile = new File(partialFile.getParentFile(), DELTA_FILE_NAME).toPath();
+        long downloadStart = System.nanoTime();
+        try {
+            URLConnection patchConnection = ProxyConfiguration.open(new URL(patchUrl));
+            patchConnection.setConnectTimeout(timeoutInMilliseconds);
+            try (InputStream inputStream = throttle.throttle(patchConnection.getInputStream())) {
+                Files.copy(inputStream, patchFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // the partial file is overwritten, a resumable full download starts over when the patch doesn't apply.
+            Files.deleteIfExists(partialValidator.toPath());
+            String patchedChecksum = BinaryPatch.apply(installedBinary.toPath(), patchFile, partialFile.toPath());
+            if (!checksum.equalsIgnoreCase(patchedChecksum)) {
+                throw new IOException(String.format(
+                        "Checksum of the patched binary %s does not match the expected checksum %s.",
+                        patchedChecksum, checksum));
+            }
+            long patchSize = Files.size(patchFile);
+            report.setDownload(patchSize, System.nanoTime() - downloadStart);
+            log.getLogger()
+                    .println(LOG_PREFIX + "Installed Rapid Scan Static binary from a " + patchSize + " byte patch.");
+            return true;
+        } catch (IOException ex) {
+            log.getLogger()
+                    .println(LOG_PREFIX + "No delta update from " + patchUrl + ", downloading the full binary: "
+                            + ex.getMessage());
+            Files.deleteIfExists(partialFile.toPath());
+            return false;
+        } finally {
+            Files.deleteIfExists(patchFile);
+        }
+    }
+
+    /**
+     * Switches back to a version kept in the store when the configured checksum names one, without a download.
+     */
+    private boolean switchToStoredVersion(VersionedStore store, FilePath checksumPath)
+            throws IOException, InterruptedException {
+        if (expectedChecksum == null || !store.contains(expectedChecksum, getBinaryFileName())) {
+            return false;
+        }
+        if (!expectedChecksum.equalsIgnoreCase(store.getCurrent())) {
+            log.getLogger().println(LOG_PREFIX + "Switching to installed version " + expectedChecksum + ".");
+            store.switchTo(expectedChecksum);
+            checksumPath.write(expectedChecksum.toLowerCase(Locale.ROOT), StandardCharsets.UTF_8.name());
+        } else {
+            log.getLogger().println(LOG_PREFIX + "Skipping tool installation already up to date on node.");
+        }
+        return true;
+    }
+
+    /**
+     * @return the binary the tool home currently provides, or null when the store has no current version yet.
+     */
+    @Nullable
+    private File getInstalledBinary(VersionedStore store, File flatBinary) throws IOException {
+        if (keepVersions <= 0) {
+            return flatBinary;
+        }
+        String current = store.getCurrent();
+        return current == null ? null : store.getBinary(current, flatBinary.getName()).toFile();
+    }
+
+    /**
+     * Puts a verified binary in place, either replacing the single binary of the tool home or adding it to the store
+     * and switching the current version.
+     *
+     * @return the checksums of versions removed from the store.
+     */
+    static List<String> placeBinary(Path partialFile, Path binaryFile, String checksum, int keepVersions)
+            throws IOException {
+        VersionedStore store = new VersionedStore(binaryFile.getParent());
+        if (keepVersions <= 0) {
+            moveAtomically(partialFile, binaryFile);
+            store.clearCurrent();
+            return Collections.emptyList();
+        }
+        store.add(partialFile, checksum, binaryFile.getFileName().toString());
+        store.switchTo(checksum);
+        return store.collectGarbage(keepVersions);
+    }
+
+    /**
+     * A configured checksum that differs from the installed binary forces a new download without asking the server.
+     */
+    private boolean isInstalledChecksum(FilePath checksumPath) throws IOException, InterruptedException {
+        return expectedChecksum == null
+                || checksumPath.exists() && expectedChecksum.equalsIgnoreCase(checksumPath.readToString());
+    }
+
+    @Nullable
+    private String resolveExpectedChecksum() throws IOException {
+        if (expectedChecksum != null || checksumUrl == null) {
+            return expectedChecksum;
+        }
+        URLConnection checksumConnection = ProxyConfiguration.open(new URL(checksumUrl));
+        checksumConnection.setConnectTimeout(timeoutInMilliseconds);
+        try (InputStream inputStream = checksumConnection.getInputStream()) {
+            // published checksum files use the sha256sum format "<checksum>  <file name>".
+            String published = IOUtils.toString(inputStream, StandardCharsets.UTF_8).trim();
+            String[] tokens = published.split("\\s+");
+            if (tokens[0].isEmpty()) {
+                throw new IOException("No checksum was published at " + checksumUrl);
+            }
+            return tokens[0];
+        }
+    }
+
+    private String downloadStream(
+            URLConnection binaryHostConnection,
+            File partialFile,
+            File partialValidator,
+            boolean resumed,
+            BandwidthThrottle throttle)
+            throws IOException {
+        if (resumed) {
+            log.getLogger().println(LOG_PREFIX + "Resuming download at byte " + partialFile.length() + ".");
+        } else if (isCompressedFile(downloadUrl)) {
+            // offsets into the decompressed partial file don't match the compressed file, it can't be resumed.
+            Files.deleteIfExists(partialValidator.toPath());
+        } else {
+            savePartialValidator(binaryHostConnection, partialValidator);
+        }
+        return download(binaryHostConnection, partialFile, resumed, downloadUrl, throttle);
+    }
+
+    /**
+     * Downloads byte ranges in parallel. The partial file has gaps until every range is written, so no validator is
+     * kept and an interrupted parallel download starts over.
+     */
+    private String downloadRanges(
+            URL binarySourceUrl,
+            URLConnection binaryHostConnection,
+            File partialFile,
+            File partialValidator,
+            BandwidthThrottle throttle)
+            throws IOException, InterruptedException {
+        Files.deleteIfExists(partialValidator.toPath());
+        ParallelRangeDownload rangeDownload = new ParallelRangeDownload(
+                binarySourceUrl, partialFile, binaryHostConnection, parallelDownloads, timeoutInMilliseconds, throttle);
+        log.getLogger()
+                .println(LOG_PREFIX + "Downloading in " + rangeDownload.getRangeCount() + " parallel byte ranges...");
+        try (InputStream firstRange = throttle.throttle(binaryHostConnection.getInputStream())) {
+            rangeDownload.download(firstRange);
+        } catch (IOException | InterruptedException ex) {
+            Files.deleteIfExists(partialFile.toPath());
+            throw ex;
+        }
+        // the ranges arrive out of order, verify the complete file.
+        MessageDigest digest = createDigest();
+        updateDigest(digest, partialFile.toPath());
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * Streams the response into the partial file and digests the bytes as they arrive, so verification does not
+     * need a second pass over the binary. Compressed responses are decompressed on the way.
+     *
+     * @return the SHA-256 checksum of the complete partial file.
+     */
+    private static String download(
+            URLConnection binaryHostConnection,
+            File partialFile,
+            boolean resumed,
+            String downloadUrl,
+            BandwidthThrottle throttle)
+            throws IOException {
+        MessageDigest digest = createDigest();
+        if (resumed) {
+            // only the bytes of an earlier attempt are read back.
+            updateDigest(digest, partialFile.toPath());
+        }
+        try (InputStream inputStream =
+                        new DigestInputStream(openBinaryStream(binaryHostConnection, downloadUrl, throttle), digest);
+                ReadableByteChannel source = Channels.newChannel(inputStream);
+                FileChannel target = openPartialFile(partialFile.toPath(), resumed)) {
+            long position = target.size();
+            long transferred;
+            while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+                position += transferred;
+            }
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * A binary published as a gzip file and a response sent with gzip content encoding are both decompressed once, a
+     * host that adds the content encoding to a gzip file doesn't compress it a second time.
+     */
+    private static InputStream openBinaryStream(
+            URLConnection binaryHostConnection, String downloadUrl, BandwidthThrottle throttle) throws IOException {
+        // the limit applies to the bytes on the network, before decompression.
+        InputStream inputStream = throttle.throttle(binaryHostConnection.getInputStream());
+        if (isCompressedFile(downloadUrl)
+                || GZIP_ENCODING.equalsIgnoreCase(binaryHostConnection.getContentEncoding())) {
+            return new GZIPInputStream(inputStream);
+        }
+        return inputStream;
+    }
+
+    /**
+     * Asks the download host to compress the binary for the transfer. Range requests are sent without it so resumed
+     * bytes line up with the decompressed partial file, archives are already compressed.
+     */
+    static void acceptCompressedTransfer(URLConnection binaryHostConnection, String downloadUrl) {
+        if (!isCompressedFile(downloadUrl) && !BundleExtractor.isArchive(downloadUrl)) {
+            binaryHostConnection.setRequestProperty("Accept-Encoding", GZIP_ENCODING);
+        }
+    }
+
+    static boolean isCompressedFile(String downloadUrl) {
+        try {
+            return new URL(downloadUrl).getPath().toLowerCase(Locale.ROOT).endsWith(GZIP_FILE_EXTENSION);
+        } catch (MalformedURLException ex) {
+            return false;
+        }
+    }
+
+    private static FileChannel openPartialFile(Path partialFile, boolean resumed) throws IOException {
+        if (resumed) {
+            return FileChannel.open(partialFile, StandardOpenOption.WRITE);
+        }
+        return FileChannel.open(
+                partialFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    static void updateDigest(MessageDigest digest, Path file) throws IOException {
+        byte[] buffer = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    static MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Replaces the target with a rename so readers see either the old or the new file.
+     */
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Opens the download connection. When a partial file from an earlier attempt exists the remaining bytes are
+     * requested with a Range header, guarded by If-Range so a changed binary is downloaded from the start. Otherwise
+     * the response of the update check is used when it already carries the new binary.
+     */
+    private URLConnection openConnection(
+            URL binarySourceUrl,
+            File partialFile,
+            File partialValidator,
+            @Nullable HttpURLConnection pendingDownload)
+            throws IOException {
+        long offset = partialFile.length();
+        String validator = partialValidator.exists()
+                ? new String(Files.readAllBytes(partialValidator.toPath()), StandardCharsets.UTF_8)
+                : null;
+        boolean resumable = offset > 0 && StringUtils.isNotBlank(validator) && !isCompressedFile(downloadUrl);
+        if (pendingDownload != null) {
+            if (!resumable) {
+                return pendingDownload;
+            }
+            // resuming saves more than the request of the update check.
+            pendingDownload.disconnect();
+        }
+        URLConnection binaryHostConnection = ProxyConfiguration.open(binarySourceUrl);
+        binaryHostConnection.setConnectTimeout(timeoutInMilliseconds);
+        boolean rangeRequested = resumable && binaryHostConnection instanceof HttpURLConnection;
+        if (rangeRequested) {
+            binaryHostConnection.setRequestProperty("Range", "bytes=" + offset + "-");
+            binaryHostConnection.setRequestProperty("If-Range", validator);
+        } else if (parallelDownloads <= 1) {
+            // a compressed response can't be split into byte ranges.
+            acceptCompressedTransfer(binaryHostConnection, downloadUrl);
+        }
+        binaryHostConnection.connect();
+        if (rangeRequested) {
+            HttpURLConnection httpConnection = (HttpURLConnection) binaryHostConnection;
+            int responseCode = httpConnection.getResponseCode();
+            boolean unexpectedRange = responseCode == HttpURLConnection.HTTP_PARTIAL
+                    && !StringUtils.startsWith(httpConnection.getHeaderField("Content-Range"), "bytes " + offset + "-");
+            if (responseCode == HTTP_RANGE_NOT_SATISFIABLE || unexpectedRange) {
+                // the partial file cannot be continued, start over.
+                httpConnection.disconnect();
+                Files.deleteIfExists(partialFile.toPath());
+                Files.deleteIfExists(partialValidator.toPath());
+                return openConnection(binarySourceUrl, partialFile, partialValidator, null);
+            }
+        }
+        return binaryHostConnection;
+    }
+
+    private static boolean isPartialContent(URLConnection binaryHostConnection) throws IOException {
+        return binaryHostConnection instanceof HttpURLConnection
+                && ((HttpURLConnection) binaryHostConnection).getResponseCode() == HttpURLConnection.HTTP_PARTIAL;
+    }
+
+    /**
+     * Remembers the validator of a full response so a later attempt can resume it.
+     */
+    private static void savePartialValidator(URLConnection binaryHostConnection, File partialValidator)
+            throws IOException {
+        String validator = ParallelRangeDownload.getRangeValidator(binaryHostConnection);
+        if (validator == null) {
+            Files.deleteIfExists(partialValidator.toPath());
+        } else {
+            Files.write(partialValidator.toPath(), validator.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Remembers the ETag of the installed binary, the next update check sends it with If-None-Match.
+     */
+    private static void saveETag(URLConnection binaryHostConnection, FilePath etagPath)
+            throws IOException, InterruptedException {
+        String etag = binaryHostConnection.getHeaderField("ETag");
+        if (StringUtils.isNotBlank(etag)) {
+            etagPath.write(etag, StandardCharsets.UTF_8.name());
+        } else if (etagPath.exists()) {
+            etagPath.delete();
+        }
+    }
 
-        return null;
+    /**
+     * Name of the Rapid Scan Static executable for the JVM this is called on.
+     */
+    public static String getBinaryFileName() {
+        return Functions.isWindows()
+                ? SigmaToolInstallation.WINDOWS_SIGMA_COMMAND
+                : SigmaToolInstallation.UNIX_SIGMA_COMMAND;
     }
 }
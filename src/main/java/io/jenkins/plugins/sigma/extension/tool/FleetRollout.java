@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolLocationNodeProperty;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.sigma.Messages;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Installs a tool installation on all matching online nodes at once, so a changed download URL is rolled out and
+ * verified across the fleet without waiting for the next build on each node. Only one rollout runs at a time, the
+ * last one stays visible on the rollout page.
+ */
+@Extension
+public class FleetRollout {
+    /**
+     * Number of nodes installed at the same time.
+     */
+    static final int CONCURRENCY =
+            Math.max(1, SystemProperties.getInteger(FleetRollout.class.getName() + ".concurrency", 4));
+
+    private static final Logger LOGGER = Logger.getLogger(FleetRollout.class.getName());
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            CONCURRENCY, new NamingThreadFactory(new DaemonThreadFactory(), "Rapid Scan Static rollout"));
+    private Rollout rollout;
+
+    public static FleetRollout get() {
+        return ExtensionList.lookupSingleton(FleetRollout.class);
+    }
+
+    @Nullable
+    public synchronized Rollout getRollout() {
+        return rollout;
+    }
+
+    /**
+     * Starts a rollout of the tool installation unless a rollout is still running.
+     *
+     * @return the running rollout.
+     */
+    public synchronized Rollout start(SigmaToolInstallation installation) {
+        if (rollout != null && !rollout.isDone()) {
+            return rollout;
+        }
+        List<NodeProgress> nodes = new ArrayList<>();
+        List<Node> targets = new ArrayList<>();
+        List<SigmaBinaryInstaller> installers = new ArrayList<>();
+        for (Computer computer : Jenkins.get().getComputers()) {
+            Node node = computer.getNode();
+            if (node == null || !computer.isOnline()) {
+                continue;
+            }
+            SigmaBinaryInstaller installer = getInstaller(installation, node);
+            if (installer != null) {
+                nodes.add(new NodeProgress(node.getNodeName(), computer.getDisplayName()));
+                targets.add(node);
+                installers.add(installer);
+            }
+        }
+        rollout = new Rollout(installation.getName(), nodes);
+        for (int i = 0; i < nodes.size(); i++) {
+            NodeProgress progress = nodes.get(i);
+            Node node = targets.get(i);
+            SigmaBinaryInstaller installer = installers.get(i);
+            Rollout current = rollout;
+            executor.submit(() -> {
+                try {
+                    install(installation, installer, node, progress);
+                } finally {
+                    current.nodeCompleted();
+                }
+            });
+        }
+        return rollout;
+    }
+
+    /**
+     * The installer the tool installation uses on the node, null when the node has its own location for the tool.
+     */
+    @Nullable
+    static SigmaBinaryInstaller getInstaller(SigmaToolInstallation installation, Node node) {
+        InstallSourceProperty installSource = installation.getProperties().get(InstallSourceProperty.class);
+        if (installSource == null
+                || ToolLocationNodeProperty.getToolHome(node, installation, TaskListener.NULL) != null) {
+            return null;
+        }
+        for (ToolInstaller installer : installSource.installers) {
+            if (installer.appliesTo(node)) {
+                return installer instanceof SigmaBinaryInstaller ? (SigmaBinaryInstaller) installer : null;
+            }
+        }
+        return null;
+    }
+
+    private static void install(
+            SigmaToolInstallation installation, SigmaBinaryInstaller installer, Node node, NodeProgress progress) {
+        long installStart = System.nanoTime();
+        TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+        try {
+            progress.state = State.DOWNLOADING;
+            FilePath installLocation = installer.installNow(installation, node, listener);
+            if (!SigmaBinaryInstaller.hasInstalledBinary(installLocation, node.createLauncher(listener).isUnix())) {
+                throw new IOException("The binary is missing after the installation.");
+            }
+            progress.version = readVersion(installLocation);
+            progress.state = State.VERIFIED;
+        } catch (IOException | RuntimeException ex) {
+            // a failure of the remoting channel or the installer leaves the node failed instead of downloading.
+            LOGGER.log(
+                    Level.WARNING,
+                    String.format(
+                            "Failed to roll out Rapid Scan Static %s on %s",
+                            installation.getName(), progress.displayName),
+                    ex);
+            progress.message = ex.getMessage() != null ? ex.getMessage() : ex.toString();
+            progress.state = State.FAILED;
+        } catch (InterruptedException ex) {
+            progress.message = ex.getMessage();
+            progress.state = State.FAILED;
+            Thread.currentThread().interrupt();
+        } finally {
+            progress.durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - installStart);
+        }
+    }
+
+    /**
+     * The checksum of the installed binary, the current version of a versioned tool home.
+     */
+    @Nullable
+    private static String readVersion(FilePath installLocation) throws IOException, InterruptedException {
+        FilePath current = installLocation.child(VersionedStore.CURRENT_FILE_NAME);
+        if (current.exists()) {
+            return current.readToString().trim();
+        }
+        FilePath checksum = installLocation.child(FileDownloadInstaller.SHA256_FILE_NAME);
+        return checksum.exists() ? checksum.readToString().trim() : null;
+    }
+
+    public enum State {
+        QUEUED,
+        DOWNLOADING,
+        VERIFIED,
+        FAILED;
+
+        public String getDisplayName() {
+            switch (this) {
+                case DOWNLOADING:
+                    return Messages.installation_rollout_state_downloading();
+                case VERIFIED:
+                    return Messages.installation_rollout_state_verified();
+                case FAILED:
+                    return Messages.installation_rollout_state_failed();
+                default:
+                    return Messages.installation_rollout_state_queued();
+            }
+        }
+    }
+
+    /**
+     * A rollout of one tool installation, updated by the installing threads while the rollout page reads it.
+     */
+    public static final class Rollout {
+        private final String installationName;
+        private final List<NodeProgress> nodes;
+        private final long startMillis = System.currentTimeMillis();
+        private final CountDownLatch completed;
+        private volatile long endMillis;
+
+        Rollout(String installationName, List<NodeProgress> nodes) {
+            this.installationName = installationName;
+            this.nodes = Collections.unmodifiableList(nodes);
+            this.completed = new CountDownLatch(nodes.size());
+            this.endMillis = startMillis;
+        }
+
+        public String getInstallationName() {
+            return installationName;
+        }
+
+        public List<NodeProgress> getNodes() {
+            return nodes;
+        }
+
+        public boolean isDone() {
+            return completed.getCount() == 0;
+        }
+
+        /**
+         * @return the time since the rollout started, or the time the whole rollout took once it is done.
+         */
+        public long getElapsedMillis() {
+            return (isDone() ? endMillis : System.currentTimeMillis()) - startMillis;
+        }
+
+        public int getCount(State state) {
+            int count = 0;
+            for (NodeProgress node : nodes) {
+                if (node.state == state) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private void nodeCompleted() {
+            completed.countDown();
+            if (isDone()) {
+                endMillis = System.currentTimeMillis();
+            }
+        }
+
+        boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+            return completed.await(timeout, unit);
+        }
+    }
+
+    public static final class NodeProgress {
+        private final String nodeName;
+        private final String displayName;
+        private volatile State state = State.QUEUED;
+        private volatile String version;
+        private volatile String message;
+        private volatile long durationMillis;
+
+        NodeProgress(String nodeName, String displayName) {
+            this.nodeName = nodeName;
+            this.displayName = displayName;
+        }
+
+        public String getNodeName() {
+            return nodeName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        @Nullable
+        public String getVersion() {
+            return version;
+        }
+
+        @Nullable
+        public String getMessage() {
+            return message;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coordinates installations into the same directory. Threads of one JVM that arrive while an installation is running
+ * wait for it and share its result instead of installing again. Separate JVMs using the same directory, for example
+ * two agents on one host, are serialized with a file lock.
+ */
+final class InstallationLock {
+    static final String LOCK_FILE_NAME = ".lock";
+    private static final ConcurrentMap<String, CompletableFuture<Void>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private InstallationLock() {}
+
+    @FunctionalInterface
+    interface Installation {
+        void install() throws IOException, InterruptedException;
+    }
+
+    /**
+     * @return true when the installation ran on this thread, false when the thread waited for the installation in
+     *     progress and shares its result.
+     */
+    static boolean runOnce(File installDirectory, TaskListener log, Installation installation)
+            throws IOException, InterruptedException {
+        Files.createDirectories(installDirectory.toPath());
+        String key = installDirectory.getCanonicalPath();
+        CompletableFuture<Void> flight = new CompletableFuture<>();
+        CompletableFuture<Void> inProgress = IN_FLIGHT.putIfAbsent(key, flight);
+        if (inProgress != null) {
+            log.getLogger().println("Waiting for the Rapid Scan Static installation in progress on this node...");
+            await(inProgress);
+            return false;
+        }
+        try {
+            runWithFileLock(installDirectory, installation);
+            flight.complete(null);
+            return true;
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            IN_FLIGHT.remove(key, flight);
+        }
+    }
+
+    private static void runWithFileLock(File installDirectory, Installation installation)
+            throws IOException, InterruptedException {
+        try (FileChannel lockChannel = FileChannel.open(
+                        installDirectory.toPath().resolve(LOCK_FILE_NAME),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                FileLock ignored = lockChannel.lock()) {
+            installation.install();
+        }
+    }
+
+    private static void await(CompletableFuture<Void> inProgress) throws IOException, InterruptedException {
+        try {
+            inProgress.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException("The Rapid Scan Static installation in progress failed.", cause);
+            }
+            if (cause instanceof InterruptedException) {
+                throw new IOException("The Rapid Scan Static installation in progress was interrupted.", cause);
+            }
+            throw new IOException(cause);
+        }
+    }
+}
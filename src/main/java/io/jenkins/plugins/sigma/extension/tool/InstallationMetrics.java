@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+/**
+ * Counters and timers of the tool layer on the controller, for all nodes and per node. The metrics plugin publishes
+ * them through {@link SigmaMetricProvider} when it is installed.
+ */
+public final class InstallationMetrics {
+    private static final InstallationMetrics INSTANCE = new InstallationMetrics();
+    private final Summary total = new Summary();
+    private final Timer resolutions = new Timer();
+    private final ConcurrentMap<String, Summary> nodes = new ConcurrentHashMap<>();
+
+    InstallationMetrics() {}
+
+    public static InstallationMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records an installation on a node.
+     *
+     * @param report what the node did, an executor that waited for an installation already in progress reports the
+     *     binary up to date.
+     */
+    public void recordInstallation(String nodeName, InstallationReport report, long installNanos) {
+        total.record(report, installNanos);
+        nodes.computeIfAbsent(nodeName, name -> new Summary()).record(report, installNanos);
+    }
+
+    public void recordResolution(long resolutionNanos) {
+        resolutions.record(resolutionNanos);
+    }
+
+    public Summary getTotal() {
+        return total;
+    }
+
+    public Timer getResolutions() {
+        return resolutions;
+    }
+
+    @Nullable
+    public Summary getNode(String nodeName) {
+        return nodes.get(nodeName);
+    }
+
+    /**
+     * Installation counters of all nodes or of a single node.
+     */
+    public static final class Summary {
+        private final Timer installations = new Timer();
+        private final Timer updateChecks = new Timer();
+        private final Timer downloads = new Timer();
+        private final LongAdder skippedInstallations = new LongAdder();
+        private final LongAdder downloadedBytes = new LongAdder();
+
+        private void record(InstallationReport report, long installNanos) {
+            installations.record(installNanos);
+            if (report.getUpdateCheckNanos() > 0) {
+                updateChecks.record(report.getUpdateCheckNanos());
+            }
+            if (report.isUpToDate()) {
+                skippedInstallations.increment();
+            }
+            if (report.getDownloadNanos() > 0) {
+                downloads.record(report.getDownloadNanos());
+                downloadedBytes.add(report.getDownloadedBytes());
+            }
+        }
+
+        public Timer getInstallations() {
+            return installations;
+        }
+
+        public Timer getUpdateChecks() {
+            return updateChecks;
+        }
+
+        public Timer getDownloads() {
+            return downloads;
+        }
+
+        public long getSkippedInstallations() {
+            return skippedInstallations.sum();
+        }
+
+        public long getDownloadedBytes() {
+            return downloadedBytes.sum();
+        }
+
+        /**
+         * @return the average download rate in bytes per second.
+         */
+        public long getDownloadThroughput() {
+            long downloadMillis = downloads.getTotalMillis();
+            return downloadMillis == 0 ? 0 : getDownloadedBytes() * 1000 / downloadMillis;
+        }
+    }
+
+    /**
+     * Number, total and maximum duration of an operation.
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong lastNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            lastNanos.set(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+        }
+
+        public long getMeanMillis() {
+            long currentCount = getCount();
+            return currentCount == 0 ? 0 : getTotalMillis() / currentCount;
+        }
+
+        public long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+
+        public long getLastMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(lastNanos.get());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Installs Rapid Scan Static in the background when a node comes online and on all online nodes when the tool
+ * configuration changes, so the first build on a new agent doesn't wait for the download. Only installers with
+ * pre-warming enabled are used.
+ */
+@Extension
+public class InstallationPrewarmer extends ComputerListener {
+    /**
+     * Number of nodes installed at the same time, limits the load on the download host when many agents start.
+     */
+    static final int CONCURRENCY = Math.max(
+            1, SystemProperties.getInteger(InstallationPrewarmer.class.getName() + ".concurrency", 2));
+
+    private static final Logger LOGGER = Logger.getLogger(InstallationPrewarmer.class.getName());
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            CONCURRENCY, new NamingThreadFactory(new DaemonThreadFactory(), "Rapid Scan Static pre-warm"));
+    private final Set<String> scheduledNodes = ConcurrentHashMap.newKeySet();
+
+    public static InstallationPrewarmer get() {
+        return ExtensionList.lookupSingleton(InstallationPrewarmer.class);
+    }
+
+    @Override
+    public void onOnline(Computer computer, TaskListener listener) {
+        Node node = computer.getNode();
+        if (node != null) {
+            prewarm(node);
+        }
+    }
+
+    public void prewarmOnlineNodes() {
+        for (Computer computer : Jenkins.get().getComputers()) {
+            if (computer.isOnline()) {
+                onOnline(computer, TaskListener.NULL);
+            }
+        }
+    }
+
+    void prewarm(Node node) {
+        String nodeName = node.getNodeName();
+        if (getPrewarmInstallations(node).isEmpty() || !scheduledNodes.add(nodeName)) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                install(node);
+            } finally {
+                scheduledNodes.remove(nodeName);
+            }
+        });
+    }
+
+    /**
+     * Tool installations with a pre-warming installer that applies to the node.
+     */
+    static List<SigmaToolInstallation> getPrewarmInstallations(Node node) {
+        List<SigmaToolInstallation> prewarmInstallations = new ArrayList<>();
+        SigmaToolInstallation[] installations = Jenkins.get()
+                .getDescriptorByType(SigmaToolInstallation.DescriptorImpl.class)
+                .getInstallations();
+        for (SigmaToolInstallation installation : installations) {
+            InstallSourceProperty installSource = installation.getProperties().get(InstallSourceProperty.class);
+            if (installSource == null) {
+                continue;
+            }
+            for (ToolInstaller installer : installSource.installers) {
+                if (installer instanceof SigmaBinaryInstaller
+                        && ((SigmaBinaryInstaller) installer).isPrewarm()
+                        && installer.appliesTo(node)) {
+                    prewarmInstallations.add(installation);
+                    break;
+                }
+            }
+        }
+        return prewarmInstallations;
+    }
+
+    private static void install(Node node) {
+        Computer computer = node.toComputer();
+        if (computer == null || computer.isOffline()) {
+            return;
+        }
+        TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+        for (SigmaToolInstallation installation : getPrewarmInstallations(node)) {
+            try {
+                // the tool installer translator serializes this with builds installing on the same node.
+                installation.forNode(node, listener);
+                LOGGER.log(
+                        Level.FINE, "Pre-warmed {0} on {1}", new Object[] {installation.getName(), node.getNodeName()});
+            } catch (IOException ex) {
+                LOGGER.log(
+                        Level.WARNING,
+                        String.format(
+                                "Failed to pre-warm Rapid Scan Static %s on %s",
+                                installation.getName(), node.getNodeName()),
+                        ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
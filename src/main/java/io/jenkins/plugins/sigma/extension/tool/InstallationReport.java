@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import java.io.Serializable;
+
+/**
+ * What an installation on a node did, sent back to the controller for {@link InstallationMetrics}.
+ */
+public class InstallationReport implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private boolean upToDate;
+    private long updateCheckNanos;
+    private long downloadedBytes;
+    private long downloadNanos;
+
+    /**
+     * @return true when the installed binary was kept without a download.
+     */
+    public boolean isUpToDate() {
+        return upToDate;
+    }
+
+    void setUpToDate(boolean upToDate) {
+        this.upToDate = upToDate;
+    }
+
+    public long getUpdateCheckNanos() {
+        return updateCheckNanos;
+    }
+
+    void setUpdateCheckNanos(long updateCheckNanos) {
+        this.updateCheckNanos = updateCheckNanos;
+    }
+
+    public long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    public long getDownloadNanos() {
+        return downloadNanos;
+    }
+
+    void setDownload(long downloadedBytes, long downloadNanos) {
+        this.downloadedBytes = downloadedBytes;
+        this.downloadNanos = downloadNanos;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Versions reported by {@code sigma --version} for the installed binaries. Each distinct binary, identified by its
+ * SHA-256 checksum, is probed once in the background after it is installed, the version is kept next to the binary on
+ * the node and on the controller. Builds only read the cached version, a binary that wasn't probed yet is probed in
+ * the background and the build continues without the version.
+ */
+@Extension
+public class InstalledVersions extends ComputerListener {
+    public static final String VERSION_FILE_NAME = ".version";
+    private static final Pattern CHECKSUM_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final int PROBE_TIMEOUT_SECONDS = 30;
+    private static final Logger LOGGER = Logger.getLogger(InstalledVersions.class.getName());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Rapid Scan Static version probe"));
+    private final ConcurrentMap<String, BinaryVersion> binaries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> versions = new ConcurrentHashMap<>();
+    private final Set<String> scheduledProbes = ConcurrentHashMap.newKeySet();
+
+    public static InstalledVersions get() {
+        return ExtensionList.lookupSingleton(InstalledVersions.class);
+    }
+
+    /**
+     * The probed version of the binary on the node, schedules a probe when the binary wasn't probed yet.
+     *
+     * @return the version, null until the binary was probed.
+     */
+    @Nullable
+    public BinaryVersion get(Node node, String executablePath) {
+        BinaryVersion binaryVersion = binaries.get(getKey(node.getNodeName(), executablePath));
+        if (binaryVersion == null) {
+            schedule(node, executablePath);
+        }
+        return binaryVersion;
+    }
+
+    /**
+     * The version of a binary with the checksum, probed on any node.
+     */
+    @Nullable
+    public String getVersion(String checksum) {
+        return versions.get(checksum);
+    }
+
+    /**
+     * Probes the binary of a tool home after a new binary was installed in it.
+     */
+    @Nullable
+    Future<?> scheduleInstalled(Node node, FilePath installLocation, boolean unix) {
+        invalidate(node.getNodeName());
+        String execName = unix ? SigmaToolInstallation.UNIX_SIGMA_COMMAND : SigmaToolInstallation.WINDOWS_SIGMA_COMMAND;
+        return submit(node, installLocation.getRemote(), () -> {
+            String executablePath = SigmaToolInstallation.resolveExecutable(installLocation, execName);
+            if (executablePath != null) {
+                probe(node, executablePath);
+            }
+        });
+    }
+
+    @Nullable
+    Future<?> schedule(Node node, String executablePath) {
+        return submit(node, executablePath, () -> probe(node, executablePath));
+    }
+
+    public void invalidate(String nodeName) {
+        binaries.keySet().removeIf(key -> key.startsWith(nodeName + '\n'));
+    }
+
+    @Override
+    public void onOnline(Computer computer, TaskListener listener) {
+        // the binaries may have changed while the node was disconnected.
+        invalidate(computer.getName());
+    }
+
+    @Nullable
+    private Future<?> submit(Node node, String path, ProbeTask task) {
+        String probeKey = getKey(node.getNodeName(), path);
+        if (!scheduledProbes.add(probeKey)) {
+            return null;
+        }
+        return executor.submit(() -> {
+            try {
+                task.run();
+            } catch (IOException ex) {
+                LOGGER.log(
+                        Level.WARNING,
+                        String.format(
+                                "Failed to probe the Rapid Scan Static version of %s on %s", path, node.getNodeName()),
+                        ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                scheduledProbes.remove(probeKey);
+            }
+        });
+    }
+
+    private void probe(Node node, String executablePath) throws IOException, InterruptedException {
+        VirtualChannel channel = node.getChannel();
+        if (channel == null) {
+            return;
+        }
+        BinaryVersion binaryVersion = new FilePath(channel, executablePath).act(new VersionProbe());
+        binaries.put(getKey(node.getNodeName(), executablePath), binaryVersion);
+        if (binaryVersion.getVersion() != null) {
+            versions.put(binaryVersion.getChecksum(), binaryVersion.getVersion());
+        }
+        LOGGER.log(Level.FINE, "Rapid Scan Static {0} on {1} is version {2}", new Object[] {
+            executablePath, node.getNodeName(), binaryVersion.getVersion()
+        });
+    }
+
+    private static String getKey(String nodeName, String path) {
+        return nodeName + '\n' + path;
+    }
+
+    private interface ProbeTask {
+        void run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * The checksum of a binary and the version it reports.
+     */
+    public static final class BinaryVersion implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String checksum;
+        private final String version;
+
+        BinaryVersion(String checksum, @Nullable String version) {
+            this.checksum = checksum;
+            this.version = version;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * @return the version, null when the binary didn't report one.
+         */
+        @Nullable
+        public String getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Runs {@code --version} on the node unless the version file next to the binary has the version of the same
+     * binary. A binary in the versioned store is identified by its version directory, a single binary by its checksum.
+     */
+    private static final class VersionProbe extends MasterToSlaveFileCallable<BinaryVersion> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public BinaryVersion invoke(File binary, VirtualChannel channel) throws IOException, InterruptedException {
+            File parent = binary.getAbsoluteFile().getParentFile();
+            String checksum = CHECKSUM_PATTERN.matcher(parent.getName()).matches()
+                    ? parent.getName()
+                    : computeChecksum(binary.toPath());
+            Path versionFile = parent.toPath().resolve(VERSION_FILE_NAME);
+            if (Files.exists(versionFile)) {
+                List<String> lines = Files.readAllLines(versionFile, StandardCharsets.UTF_8);
+                if (lines.size() == 2 && lines.get(0).equals(checksum)) {
+                    return new BinaryVersion(checksum, lines.get(1));
+                }
+            }
+            String version = runVersion(binary);
+            if (version != null) {
+                Files.write(versionFile, (checksum + '\n' + version + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            return new BinaryVersion(checksum, version);
+        }
+
+        private static String computeChecksum(Path binary) throws IOException {
+            MessageDigest digest = FileDownloadInstaller.createDigest();
+            try (InputStream inputStream = new DigestInputStream(Files.newInputStream(binary), digest)) {
+                IOUtils.copy(inputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+            }
+            return Util.toHexString(digest.digest());
+        }
+
+        /**
+         * @return the first line the binary prints, null when it fails or doesn't finish in time.
+         */
+        @Nullable
+        private static String runVersion(File binary) throws IOException, InterruptedException {
+            Path output = Files.createTempFile("sigma-version", ".txt");
+            try {
+                Process process = new ProcessBuilder(binary.getAbsolutePath(), "--version")
+                        .redirectErrorStream(true)
+                        .redirectOutput(output.toFile())
+                        .start();
+                if (!process.waitFor(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    return null;
+                }
+                if (process.exitValue() != 0) {
+                    return null;
+                }
+                try (BufferedReader reader = Files.newBufferedReader(output, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.trim().isEmpty()) {
+                            return line.trim();
+                        }
+                    }
+                }
+                return null;
+            } finally {
+                Files.deleteIfExists(output);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.ProxyConfiguration;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Downloads a binary as several byte ranges at once. Each range is written at its offset into a preallocated file, so
+ * the ranges may complete in any order. The first range is read from the response that probed the download host.
+ */
+final class ParallelRangeDownload {
+    static final long MINIMUM_RANGE_SIZE = 4L * 1024 * 1024;
+    private final URL binarySourceUrl;
+    private final File targetFile;
+    private final String validator;
+    private final int timeoutInMilliseconds;
+    private final long contentLength;
+    private final int rangeCount;
+    private final BandwidthThrottle throttle;
+
+    ParallelRangeDownload(
+            URL binarySourceUrl,
+            File targetFile,
+            URLConnection probeConnection,
+            int parallelDownloads,
+            int timeoutInMilliseconds,
+            BandwidthThrottle throttle) {
+        this.binarySourceUrl = binarySourceUrl;
+        this.targetFile = targetFile;
+        this.validator = getRangeValidator(probeConnection);
+        this.timeoutInMilliseconds = timeoutInMilliseconds;
+        this.contentLength = probeConnection.getContentLengthLong();
+        this.rangeCount = getRangeCount(contentLength, parallelDownloads);
+        this.throttle = throttle;
+    }
+
+    /**
+     * Ranges are only requested from a host that advertises byte ranges for an uncompressed response with a validator,
+     * so every range is guaranteed to come from the same binary.
+     */
+    static boolean isSupported(URLConnection probeConnection, int parallelDownloads) throws IOException {
+        return probeConnection instanceof HttpURLConnection
+                && ((HttpURLConnection) probeConnection).getResponseCode() == HttpURLConnection.HTTP_OK
+                && "bytes".equalsIgnoreCase(probeConnection.getHeaderField("Accept-Ranges"))
+                && StringUtils.isBlank(probeConnection.getContentEncoding())
+                && getRangeValidator(probeConnection) != null
+                && getRangeCount(probeConnection.getContentLengthLong(), parallelDownloads) > 1;
+    }
+
+    /**
+     * Weak ETags cannot be used with If-Range, in that case the Last-Modified date is used instead.
+     */
+    @Nullable
+    static String getRangeValidator(URLConnection binaryHostConnection) {
+        String validator = binaryHostConnection.getHeaderField("ETag");
+        if (StringUtils.isBlank(validator) || validator.startsWith("W/")) {
+            validator = binaryHostConnection.getHeaderField("Last-Modified");
+        }
+        return StringUtils.isBlank(validator) ? null : validator;
+    }
+
+    private static int getRangeCount(long contentLength, int parallelDownloads) {
+        if (contentLength <= 0) {
+            return 1;
+        }
+        long ranges = (contentLength + MINIMUM_RANGE_SIZE - 1) / MINIMUM_RANGE_SIZE;
+        return (int) Math.max(1, Math.min(parallelDownloads, ranges));
+    }
+
+    int getRangeCount() {
+        return rangeCount;
+    }
+
+    /**
+     * Downloads all ranges into the target file. The caller verifies the complete file afterwards.
+     *
+     * @param firstRange the response of the probe, throttled by the caller.
+     */
+    void download(InputStream firstRange) throws IOException, InterruptedException {
+        long rangeSize = (contentLength + rangeCount - 1) / rangeCount;
+        ExecutorService executor = Executors.newFixedThreadPool(
+                rangeCount - 1, new NamingThreadFactory(new DaemonThreadFactory(), "Rapid Scan Static download"));
+        try (FileChannel target = FileChannel.open(
+                targetFile.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // preallocate, every range writes at its own position.
+            target.write(ByteBuffer.allocate(1), contentLength - 1);
+            List<Future<Void>> ranges = new ArrayList<>();
+            for (int i = 1; i < rangeCount; i++) {
+                long start = i * rangeSize;
+                long end = Math.min(contentLength, start + rangeSize) - 1;
+                ranges.add(executor.submit(() -> {
+                    downloadRange(target, start, end);
+                    return null;
+                }));
+            }
+            writeRange(firstRange, target, 0, rangeSize);
+            for (Future<Void> range : ranges) {
+                await(range);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void downloadRange(FileChannel target, long start, long end) throws IOException {
+        HttpURLConnection rangeConnection = (HttpURLConnection) ProxyConfiguration.open(binarySourceUrl);
+        rangeConnection.setConnectTimeout(timeoutInMilliseconds);
+        rangeConnection.setRequestProperty("Range", "bytes=" + start + "-" + end);
+        rangeConnection.setRequestProperty("If-Range", validator);
+        if (rangeConnection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL
+                || !StringUtils.startsWith(rangeConnection.getHeaderField("Content-Range"), "bytes " + start + "-")) {
+            rangeConnection.disconnect();
+            throw new IOException(String.format(
+                    "The download host didn't return bytes %d-%d, the binary may have changed during the download.",
+                    start, end));
+        }
+        try (InputStream inputStream = throttle.throttle(rangeConnection.getInputStream())) {
+            writeRange(inputStream, target, start, end - start + 1);
+        }
+    }
+
+    private static void writeRange(InputStream inputStream, FileChannel target, long start, long length)
+            throws IOException {
+        byte[] buffer = new byte[IOUtils.DEFAULT_BUFFER_SIZE * 16];
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new IOException(String.format(
+                        "The download of bytes %d-%d ended early at byte %d.", start, start + length - 1, position));
+            }
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                position += target.write(chunk, position);
+            }
+            remaining -= read;
+        }
+    }
+
+    private static void await(Future<Void> range) throws IOException, InterruptedException {
+        try {
+            range.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
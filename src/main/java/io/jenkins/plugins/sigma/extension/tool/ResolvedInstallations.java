@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolLocationNodeProperty;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Tool installations already translated for a node and verified to have a binary, so builds on busy nodes skip the
+ * translation and the checks on the node. An installation is kept as long as its installer wouldn't check for updates
+ * anyway, installations with a fixed home until the configuration changes or the node reconnects.
+ */
+@Extension
+public class ResolvedInstallations extends ComputerListener {
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public static ResolvedInstallations get() {
+        return ExtensionList.lookupSingleton(ResolvedInstallations.class);
+    }
+
+    /**
+     * Translates the tool installation for the node and the environment of the build.
+     *
+     * @return the installation with the verified binary, or the translated installation without a binary so the
+     *     build reports the missing binary as before.
+     */
+    public SigmaToolInstallation resolve(
+            SigmaToolInstallation installation, Node node, EnvVars environment, TaskListener listener)
+            throws IOException, InterruptedException {
+        String key = node.getNodeName() + '\n' + installation.getName();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.isExpired()) {
+            entries.remove(key, entry);
+            entry = new Entry(installation.forNode(node, listener), getTimeToLiveMillis(installation, node));
+        }
+        SigmaToolInstallation resolved = entry.nodeInstallation.forEnvironment(environment);
+        String home = resolved.getHome();
+        VirtualChannel channel = node.getChannel();
+        if (home == null || channel == null) {
+            return resolved;
+        }
+        // the expanded home stands for the environment, other variables of the build don't change the binary.
+        String executablePath = entry.executablePaths.get(home);
+        if (executablePath == null) {
+            String execName = node.createLauncher(listener).isUnix()
+                    ? SigmaToolInstallation.UNIX_SIGMA_COMMAND
+                    : SigmaToolInstallation.WINDOWS_SIGMA_COMMAND;
+            executablePath = SigmaToolInstallation.resolveExecutable(new FilePath(channel, home), execName);
+            if (executablePath == null) {
+                return resolved;
+            }
+            if (entry.timeToLiveMillis > 0) {
+                entry.executablePaths.put(home, executablePath);
+                entries.putIfAbsent(key, entry);
+            }
+        }
+        resolved.setResolvedExecutablePath(executablePath);
+        return resolved;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Forgets the installations of the node, after it reconnected or installed a new binary.
+     */
+    public void invalidate(String nodeName) {
+        entries.keySet().removeIf(key -> key.startsWith(nodeName + '\n'));
+    }
+
+    @Override
+    public void onOnline(Computer computer, TaskListener listener) {
+        invalidate(computer.getName());
+    }
+
+    @Override
+    public void onOffline(Computer computer, @Nullable OfflineCause cause) {
+        invalidate(computer.getName());
+    }
+
+    @Override
+    public void onConfigurationChange() {
+        // labels decide which installer applies to a node.
+        invalidateAll();
+    }
+
+    /**
+     * @return how long the translated installation can be used, zero when every build has to translate it.
+     */
+    static long getTimeToLiveMillis(SigmaToolInstallation installation, Node node) {
+        InstallSourceProperty installSource = installation.getProperties().get(InstallSourceProperty.class);
+        if (installSource == null
+                || ToolLocationNodeProperty.getToolHome(node, installation, TaskListener.NULL) != null) {
+            return Long.MAX_VALUE;
+        }
+        for (ToolInstaller installer : installSource.installers) {
+            if (installer.appliesTo(node)) {
+                // the installer doesn't look for updates within the check interval.
+                return installer instanceof SigmaBinaryInstaller
+                        ? TimeUnit.MINUTES.toMillis(((SigmaBinaryInstaller) installer).getCheckInterval())
+                        : 0;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static final class Entry {
+        private final SigmaToolInstallation nodeInstallation;
+        private final long timeToLiveMillis;
+        private final long createdNanos = System.nanoTime();
+        private final ConcurrentMap<String, String> executablePaths = new ConcurrentHashMap<>();
+
+        Entry(SigmaToolInstallation nodeInstallation, long timeToLiveMillis) {
+            this.nodeInstallation = nodeInstallation;
+            this.timeToLiveMillis = timeToLiveMillis;
+        }
+
+        boolean isExpired() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdNanos) >= timeToLiveMillis;
+        }
+    }
+}
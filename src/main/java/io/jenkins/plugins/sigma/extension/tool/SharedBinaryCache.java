@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.Nullable;
+
+/**
+ * A binary cache in a directory shared by the agents of a host, for example a hostPath or NFS mount used by
+ * ephemeral container agents. Each download URL has an entry that is filled under the installation lock, and every
+ * binary is also kept by its SHA-256 checksum. Tool homes link to the binary of a checksum instead of downloading it.
+ */
+final class SharedBinaryCache {
+    static final String CHECKSUM_DIRECTORY_NAME = "sha256";
+    private static final String LOG_PREFIX = "Rapid Scan Static shared cache: ";
+    private final File cacheRoot;
+    private final String downloadUrl;
+
+    SharedBinaryCache(File cacheRoot, String downloadUrl) {
+        this.cacheRoot = cacheRoot;
+        this.downloadUrl = downloadUrl;
+    }
+
+    File getCacheLocation() {
+        return new File(cacheRoot, Util.getDigestOf(downloadUrl));
+    }
+
+    Path getBinary(String checksum, String binaryName) {
+        return cacheRoot
+                .toPath()
+                .resolve(CHECKSUM_DIRECTORY_NAME)
+                .resolve(checksum.toLowerCase(Locale.ROOT))
+                .resolve(binaryName);
+    }
+
+    /**
+     * Links the binary into the tool home. A configured checksum that is already cached is linked without contacting
+     * the download host, otherwise the entry of the download URL is refreshed first.
+     */
+    void install(
+            FileDownloadInstaller cacheFill,
+            File home,
+            @Nullable String expectedChecksum,
+            int keepVersions,
+            InstallationReport report,
+            TaskListener log)
+            throws IOException, InterruptedException {
+        String binaryName = FileDownloadInstaller.getBinaryFileName();
+        String checksum;
+        if (expectedChecksum != null && Files.exists(getBinary(expectedChecksum, binaryName))) {
+            checksum = expectedChecksum.toLowerCase(Locale.ROOT);
+        } else {
+            InstallationReport fillReport = cacheFill.call();
+            report.setUpdateCheckNanos(fillReport.getUpdateCheckNanos());
+            report.setDownload(fillReport.getDownloadedBytes(), fillReport.getDownloadNanos());
+            Path cacheEntry = getCacheLocation().toPath();
+            checksum = readString(cacheEntry.resolve(FileDownloadInstaller.SHA256_FILE_NAME));
+            addByChecksum(cacheEntry.resolve(binaryName), checksum, binaryName);
+        }
+        Path homePath = home.toPath();
+        Path checksumPath = homePath.resolve(FileDownloadInstaller.SHA256_FILE_NAME);
+        if (isInstalled(homePath, binaryName, checksum, keepVersions)
+                && Files.exists(checksumPath)
+                && checksum.equals(readString(checksumPath))) {
+            log.getLogger().println(LOG_PREFIX + "Skipping tool installation already up to date on node.");
+            report.setUpToDate(true);
+            return;
+        }
+        log.getLogger().println(LOG_PREFIX + "Linking Rapid Scan Static binary " + checksum + " into the tool home.");
+        Path partialFile = homePath.resolve(binaryName + FileDownloadInstaller.PARTIAL_FILE_SUFFIX);
+        link(getBinary(checksum, binaryName), partialFile);
+        List<String> removedVersions =
+                FileDownloadInstaller.placeBinary(partialFile, homePath.resolve(binaryName), checksum, keepVersions);
+        for (String removedVersion : removedVersions) {
+            log.getLogger().println(LOG_PREFIX + "Removed unused version " + removedVersion + ".");
+        }
+        Files.write(checksumPath, checksum.getBytes(StandardCharsets.UTF_8));
+        Files.write(
+                homePath.resolve(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME),
+                downloadUrl.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void addByChecksum(Path cachedBinary, String checksum, String binaryName) throws IOException {
+        Path target = getBinary(checksum, binaryName);
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        // agents of the host add the checksum at the same time once the entry is filled, each links to its own name.
+        Path partialTarget =
+                Files.createTempFile(target.getParent(), binaryName, FileDownloadInstaller.PARTIAL_FILE_SUFFIX);
+        try {
+            // the entry of the download URL is replaced by a rename on update, a hard link keeps this binary unchanged.
+            link(cachedBinary, partialTarget);
+            FileDownloadInstaller.moveAtomically(partialTarget, target);
+        } finally {
+            Files.deleteIfExists(partialTarget);
+        }
+    }
+
+    private static boolean isInstalled(Path home, String binaryName, String checksum, int keepVersions)
+            throws IOException {
+        if (keepVersions > 0) {
+            return checksum.equals(new VersionedStore(home).getCurrent());
+        }
+        return Files.exists(home.resolve(binaryName));
+    }
+
+    /**
+     * Links the target to the source. A hard link needs both on the same file system, a symbolic link is used across
+     * file systems and the binary is copied where neither is possible.
+     */
+    static void link(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+            return;
+        } catch (IOException | UnsupportedOperationException ex) {
+            // not on the same file system.
+        }
+        try {
+            Files.createSymbolicLink(target, source.toAbsolutePath());
+            return;
+        } catch (IOException | UnsupportedOperationException ex) {
+            // windows without the privilege to create symbolic links.
+        }
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+
+    private static String readString(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+    }
+}
@@ -6,6 +6,7 @@ package io.jenkins.plugins.sigma.extension.tool;
 import hudson.AbortException;
 import hudson.Extension;
 import hudson.FilePath;
+import hudson.Util;
 import hudson.model.Node;
 import hudson.model.TaskListener;
 import hudson.remoting.VirtualChannel;
@@ -17,6 +18,9 @@ import io.jenkins.plugins.sigma.Messages;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import javax.servlet.ServletException;
 import jenkins.model.Jenkins;
 import org.apache.commons.lang.StringUtils;
@@ -27,8 +31,23 @@ import org.kohsuke.stapler.verb.POST;
 
 public class SigmaBinaryInstaller extends ToolInstaller {
     public static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    public static final int MAX_PARALLEL_DOWNLOADS = 16;
+    public static final int MIN_KEEP_VERSIONS = 2;
+    private static final Pattern SHA256_PATTERN = Pattern.compile("[0-9a-fA-F]{64}");
     private String downloadUrl;
     private int timeout;
+    private boolean cacheOnController;
+    private String checksum;
+    private String checksumUrl;
+    private int checkInterval;
+    private int parallelDownloads;
+    private boolean prewarm;
+    private int keepVersions;
+    private int maxConcurrentDownloads;
+    private int bandwidthLimit;
+    private String sharedCachePath;
+    private String deltaUrl;
+    private boolean backgroundUpdates;
 
     @DataBoundConstructor
     public SigmaBinaryInstaller(String label) {
@@ -53,6 +72,118 @@ public class SigmaBinaryInstaller extends ToolInstaller {
         this.timeout = timeout;
     }
 
+    public boolean isCacheOnController() {
+        return cacheOnController;
+    }
+
+    @DataBoundSetter
+    public void setCacheOnController(final boolean cacheOnController) {
+        this.cacheOnController = cacheOnController;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    @DataBoundSetter
+    public void setChecksum(final String checksum) {
+        this.checksum = Util.fixEmptyAndTrim(checksum);
+    }
+
+    public String getChecksumUrl() {
+        return checksumUrl;
+    }
+
+    @DataBoundSetter
+    public void setChecksumUrl(final String checksumUrl) {
+        this.checksumUrl = Util.fixEmptyAndTrim(checksumUrl);
+    }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    @DataBoundSetter
+    public void setCheckInterval(final int checkInterval) {
+        this.checkInterval = Math.max(0, checkInterval);
+    }
+
+    public int getParallelDownloads() {
+        // installers saved before this option download a single stream.
+        return Math.max(1, parallelDownloads);
+    }
+
+    @DataBoundSetter
+    public void setParallelDownloads(final int parallelDownloads) {
+        this.parallelDownloads = Math.min(MAX_PARALLEL_DOWNLOADS, Math.max(1, parallelDownloads));
+    }
+
+    public boolean isPrewarm() {
+        return prewarm;
+    }
+
+    @DataBoundSetter
+    public void setPrewarm(final boolean prewarm) {
+        this.prewarm = prewarm;
+    }
+
+    public int getKeepVersions() {
+        return keepVersions;
+    }
+
+    /**
+     * A running build may still use the previous version, so a versioned tool home keeps at least two.
+     */
+    @DataBoundSetter
+    public void setKeepVersions(final int keepVersions) {
+        this.keepVersions = keepVersions <= 0 ? 0 : Math.max(MIN_KEEP_VERSIONS, keepVersions);
+    }
+
+    public int getMaxConcurrentDownloads() {
+        return maxConcurrentDownloads;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentDownloads(final int maxConcurrentDownloads) {
+        this.maxConcurrentDownloads = Math.max(0, maxConcurrentDownloads);
+    }
+
+    public int getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    @DataBoundSetter
+    public void setBandwidthLimit(final int bandwidthLimit) {
+        this.bandwidthLimit = Math.max(0, bandwidthLimit);
+    }
+
+    public String getSharedCachePath() {
+        return sharedCachePath;
+    }
+
+    @DataBoundSetter
+    public void setSharedCachePath(final String sharedCachePath) {
+        this.sharedCachePath = Util.fixEmptyAndTrim(sharedCachePath);
+    }
+
+    public String getDeltaUrl() {
+        return deltaUrl;
+    }
+
+    @DataBoundSetter
+    public void setDeltaUrl(final String deltaUrl) {
+        this.deltaUrl = Util.fixEmptyAndTrim(deltaUrl);
+    }
+
+    public boolean isBackgroundUpdates() {
+        return backgroundUpdates;
+    }
+
+    @DataBoundSetter
+    public void setBackgroundUpdates(final boolean backgroundUpdates) {
+        this.backgroundUpdates = backgroundUpdates;
+    }
+
     @Override
     public SigmaBinaryInstaller.DescriptorImpl getDescriptor() {
         return (SigmaBinaryInstaller.DescriptorImpl) super.getDescriptor();
@@ -64,16 +195,17 @@ public class SigmaBinaryInstaller extends ToolInstaller {
         String errorMessage = String.format(
                 "Failed to install Rapid Scan Static on Node %s from %s.", node.getDisplayName(), downloadUrl);
         try {
-            final VirtualChannel virtualChannel = node.getChannel();
-            if (virtualChannel == null) {
-                throw new AbortException("Configured node \"" + node.getDisplayName()
-                        + "\" is either not connected or offline.  Cannot install Rapid Scan Static.");
+            if (backgroundUpdates
+                    && node.getChannel() != null
+                    && hasInstalledBinary(installLocation, node.createLauncher(log).isUnix())) {
+                // the update is swapped in atomically, a scan never sees a half installed binary.
+                log.getLogger()
+                        .println("Using the installed Rapid Scan Static binary, updates are installed in the "
+                                + "background.");
+                BackgroundUpdater.get().schedule(this, node, installLocation);
+                return installLocation;
             }
-            // timeout is in seconds convert to milliseconds.
-            int timeoutInMilliseconds = timeout * 1000;
-            BinaryUpdateCheck updateChecker = new BinaryUpdateCheck(downloadUrl, timeoutInMilliseconds);
-            virtualChannel.call(
-                    new FileDownloadInstaller(downloadUrl, installLocation, timeoutInMilliseconds, log, updateChecker));
+            installOnNode(node, installLocation, log);
         } catch (InterruptedException ex) {
             ex.printStackTrace(log.error(errorMessage));
             Thread.currentThread().interrupt();
@@ -84,6 +216,95 @@ public class SigmaBinaryInstaller extends ToolInstaller {
         return installLocation;
     }
 
+    /**
+     * Installs or updates the binary in the tool home of the node right away, also with background updates enabled.
+     *
+     * @return the tool home.
+     */
+    FilePath installNow(ToolInstallation tool, Node node, TaskListener log) throws IOException, InterruptedException {
+        FilePath installLocation = preferredLocation(tool, node);
+        installOnNode(node, installLocation, log);
+        return installLocation;
+    }
+
+    /**
+     * Installs or updates the binary on the node within the download limits and records the installation metrics.
+     */
+    void installOnNode(Node node, FilePath installLocation, TaskListener log) throws IOException, InterruptedException {
+        final VirtualChannel virtualChannel = node.getChannel();
+        if (virtualChannel == null) {
+            throw new AbortException("Configured node \"" + node.getDisplayName()
+                    + "\" is either not connected or offline.  Cannot install Rapid Scan Static.");
+        }
+        Semaphore downloadSlots =
+                maxConcurrentDownloads > 0 ? DownloadLimiter.getSemaphore(maxConcurrentDownloads) : null;
+        if (downloadSlots != null && !downloadSlots.tryAcquire()) {
+            log.getLogger()
+                    .println("Waiting for one of " + maxConcurrentDownloads + " Rapid Scan Static download slots...");
+            downloadSlots.acquire();
+        }
+        try {
+            long installStart = System.nanoTime();
+            InstallationReport report = install(node, installLocation, virtualChannel, log);
+            InstallationMetrics.get().recordInstallation(node.getNodeName(), report, System.nanoTime() - installStart);
+            if (!report.isUpToDate()) {
+                // builds pick up the new binary instead of a cached resolution, its version is probed off the build.
+                ResolvedInstallations.get().invalidate(node.getNodeName());
+                InstalledVersions.get().scheduleInstalled(node, installLocation, node.createLauncher(log).isUnix());
+            }
+        } finally {
+            if (downloadSlots != null) {
+                downloadSlots.release();
+            }
+        }
+    }
+
+    /**
+     * @return true when the tool home has a binary builds can run, either the single binary or a current version.
+     */
+    static boolean hasInstalledBinary(FilePath installLocation, boolean unix) throws IOException, InterruptedException {
+        String binaryName =
+                unix ? SigmaToolInstallation.UNIX_SIGMA_COMMAND : SigmaToolInstallation.WINDOWS_SIGMA_COMMAND;
+        return installLocation.child(binaryName).exists()
+                || VersionedStore.resolveCurrentBinary(installLocation, binaryName) != null;
+    }
+
+    private InstallationReport install(
+            Node node, FilePath installLocation, VirtualChannel virtualChannel, TaskListener log)
+            throws IOException, InterruptedException {
+        // timeout is in seconds convert to milliseconds.
+        int timeoutInMilliseconds = timeout * 1000;
+        if (cacheOnController) {
+            // download once on the controller and stream the binary to the node over the remoting channel.
+            ControllerBinaryCache binaryCache =
+                    new ControllerBinaryCache(ControllerBinaryCache.getDefaultCacheRoot(), downloadUrl);
+            FileDownloadInstaller cacheDownload =
+                    createDownloadInstaller(binaryCache.getCacheLocation(), timeoutInMilliseconds, log);
+            return binaryCache.install(
+                    cacheDownload, installLocation, node.createLauncher(log).isUnix(), keepVersions, log);
+        }
+        FileDownloadInstaller downloadInstaller = createDownloadInstaller(installLocation, timeoutInMilliseconds, log);
+        downloadInstaller.setKeepVersions(keepVersions);
+        downloadInstaller.setSharedCachePath(sharedCachePath);
+        return virtualChannel.call(downloadInstaller);
+    }
+
+    private FileDownloadInstaller createDownloadInstaller(
+            FilePath downloadLocation, int timeoutInMilliseconds, TaskListener log) {
+        // check interval is in minutes convert to milliseconds.
+        BinaryUpdateCheck updateChecker = new BinaryUpdateCheck(
+                downloadUrl, timeoutInMilliseconds, TimeUnit.MINUTES.toMillis(checkInterval));
+        FileDownloadInstaller downloadInstaller =
+                new FileDownloadInstaller(downloadUrl, downloadLocation, timeoutInMilliseconds, log, updateChecker);
+        downloadInstaller.setExpectedChecksum(checksum);
+        downloadInstaller.setChecksumUrl(checksumUrl);
+        downloadInstaller.setParallelDownloads(getParallelDownloads());
+        // bandwidth limit is in KB per second convert to bytes per second.
+        downloadInstaller.setBandwidthLimit(bandwidthLimit * 1024L);
+        downloadInstaller.setDeltaUrl(deltaUrl);
+        return downloadInstaller;
+    }
+
     @Extension
     public static final class DescriptorImpl extends ToolInstallerDescriptor<SigmaBinaryInstaller> {
         public String getDisplayName() {
@@ -108,5 +329,27 @@ public class SigmaBinaryInstaller extends ToolInstaller {
             }
             return FormValidation.ok();
         }
+
+        @POST
+        public FormValidation doCheckChecksum(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            if (StringUtils.isBlank(value) || SHA256_PATTERN.matcher(value.trim()).matches()) {
+                return FormValidation.ok();
+            }
+            return FormValidation.error(Messages.installer_error_checksum_malformed());
+        }
+
+        @POST
+        public FormValidation doCheckChecksumUrl(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            try {
+                if (StringUtils.isNotBlank(value)) {
+                    new URL(value);
+                }
+            } catch (MalformedURLException ex) {
+                return FormValidation.error(ex, Messages.installer_error_checksumurl_malformed());
+            }
+            return FormValidation.ok();
+        }
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import hudson.Extension;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import jenkins.metrics.api.MetricProvider;
+
+/**
+ * Publishes {@link InstallationMetrics} to the metrics plugin, which makes them available to its reporters such as
+ * Prometheus. Only loaded when the metrics plugin is installed.
+ */
+@Extension(optional = true)
+public class SigmaMetricProvider extends MetricProvider {
+    private static final String PREFIX = "black-duck-sigma.";
+
+    @Nonnull
+    @Override
+    public MetricSet getMetricSet() {
+        InstallationMetrics metrics = InstallationMetrics.get();
+        InstallationMetrics.Summary total = metrics.getTotal();
+        Map<String, Metric> gauges = new LinkedHashMap<>();
+        addTimer(gauges, "installation", total.getInstallations());
+        gauges.put(PREFIX + "installation.skipped", (Gauge<Long>) total::getSkippedInstallations);
+        addTimer(gauges, "update-check", total.getUpdateChecks());
+        addTimer(gauges, "download", total.getDownloads());
+        gauges.put(PREFIX + "download.bytes", (Gauge<Long>) total::getDownloadedBytes);
+        gauges.put(PREFIX + "download.throughput", (Gauge<Long>) total::getDownloadThroughput);
+        addTimer(gauges, "resolution", metrics.getResolutions());
+        Map<String, Metric> metricSet = Collections.unmodifiableMap(gauges);
+        return () -> metricSet;
+    }
+
+    private static void addTimer(Map<String, Metric> gauges, String name, InstallationMetrics.Timer timer) {
+        gauges.put(PREFIX + name + ".count", (Gauge<Long>) timer::getCount);
+        gauges.put(PREFIX + name + ".duration.mean", (Gauge<Long>) timer::getMeanMillis);
+        gauges.put(PREFIX + name + ".duration.max", (Gauge<Long>) timer::getMaxMillis);
+    }
+}
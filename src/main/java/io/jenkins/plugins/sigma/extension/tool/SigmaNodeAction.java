@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Computer;
+import hudson.model.TransientComputerActionFactory;
+import io.jenkins.plugins.sigma.Messages;
+import java.util.Collection;
+import java.util.Collections;
+import javax.annotation.Nullable;
+import jenkins.model.Jenkins;
+
+/**
+ * Summary of the Rapid Scan Static installations on a node, shown on the node page.
+ */
+public class SigmaNodeAction implements Action {
+    private final Computer computer;
+
+    public SigmaNodeAction(Computer computer) {
+        this.computer = computer;
+    }
+
+    public Computer getComputer() {
+        return computer;
+    }
+
+    @Nullable
+    public InstallationMetrics.Summary getSummary() {
+        return InstallationMetrics.get().getNode(computer.getName());
+    }
+
+    @Override
+    public String getIconFileName() {
+        if (getSummary() == null || !Jenkins.get().hasPermission(Jenkins.SYSTEM_READ)) {
+            return null;
+        }
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.installation_node_displayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "black-duck-sigma";
+    }
+
+    @Extension
+    public static class Factory extends TransientComputerActionFactory {
+        @Override
+        public Collection<? extends Action> createFor(Computer target) {
+            return Collections.singletonList(new SigmaNodeAction(target));
+        }
+    }
+}
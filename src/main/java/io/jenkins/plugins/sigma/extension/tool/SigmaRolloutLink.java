@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import io.jenkins.plugins.sigma.Messages;
+import javax.annotation.Nullable;
+import jenkins.model.Jenkins;
+
+/**
+ * Page to start a rollout of a tool installation to all nodes and follow its progress per node.
+ */
+@Extension
+public class SigmaRolloutLink extends ManagementLink {
+    static final String URL_NAME = "black-duck-sigma-rollout";
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-download";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.installation_rollout_displayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.installation_rollout_description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.TOOLS;
+    }
+
+    public SigmaToolInstallation[] getInstallations() {
+        return Jenkins.get()
+                .getDescriptorByType(SigmaToolInstallation.DescriptorImpl.class)
+                .getInstallations();
+    }
+
+    @Nullable
+    public FleetRollout.Rollout getRollout() {
+        return FleetRollout.get().getRollout();
+    }
+}
@@ -18,19 +18,27 @@ import hudson.tools.ToolInstaller;
 import hudson.tools.ToolProperty;
 import io.jenkins.plugins.sigma.Messages;
 import io.jenkins.plugins.sigma.extension.workflow.SigmaBinaryStep;
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import javax.annotation.Nullable;
+import jenkins.MasterToSlaveFileCallable;
 import jenkins.model.Jenkins;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
 
 public class SigmaToolInstallation extends ToolInstallation
         implements EnvironmentSpecific<SigmaToolInstallation>, NodeSpecific<SigmaToolInstallation>, Serializable {
     public static final String UNIX_SIGMA_COMMAND = "sigma";
     public static final String WINDOWS_SIGMA_COMMAND = "sigma.exe";
+    private transient String resolvedExecutablePath;
 
     @DataBoundConstructor
     public SigmaToolInstallation(String name, String home, List<? extends ToolProperty<?>> properties) {
@@ -48,18 +56,26 @@ public class SigmaToolInstallation extends ToolInstallation
     }
 
     public Optional<String> getExecutablePath(Launcher launcher, TaskListener listener) {
+        long resolutionStart = System.nanoTime();
+        try {
+            return resolveExecutablePath(launcher, listener);
+        } finally {
+            InstallationMetrics.get().recordResolution(System.nanoTime() - resolutionStart);
+        }
+    }
+
+    private Optional<String> resolveExecutablePath(Launcher launcher, TaskListener listener) {
+        if (resolvedExecutablePath != null) {
+            return Optional.of(resolvedExecutablePath);
+        }
         VirtualChannel channel = launcher.getChannel();
         String home = getHome();
         if (channel == null || home == null) {
             return Optional.empty();
         }
-        FilePath homeFilePath = new FilePath(channel, home);
         String execName = launcher.isUnix() ? UNIX_SIGMA_COMMAND : WINDOWS_SIGMA_COMMAND;
-        FilePath executableFilePath = homeFilePath.child(execName);
         try {
-            if (executableFilePath.exists()) {
-                return Optional.of(executableFilePath.getRemote());
-            }
+            return Optional.ofNullable(resolveExecutable(new FilePath(channel, home), execName));
         } catch (IOException ex) {
             listener.error("Error getting tool installation path %s", ex.getMessage());
         } catch (InterruptedException ex) {
@@ -69,6 +85,44 @@ public class SigmaToolInstallation extends ToolInstallation
         return Optional.empty();
     }
 
+    /**
+     * Finds the binary in the tool home with a single call to the node.
+     *
+     * @return the path of the binary, null when the tool home has none.
+     */
+    @Nullable
+    static String resolveExecutable(FilePath home, String execName) throws IOException, InterruptedException {
+        return home.act(new ExecutableResolver(execName));
+    }
+
+    /**
+     * Sets the executable path a resolution on the node already verified, builds use it without checking again.
+     */
+    void setResolvedExecutablePath(String resolvedExecutablePath) {
+        this.resolvedExecutablePath = resolvedExecutablePath;
+    }
+
+    private static final class ExecutableResolver extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+        private final String execName;
+
+        ExecutableResolver(String execName) {
+            this.execName = execName;
+        }
+
+        @Override
+        public String invoke(File home, VirtualChannel channel) throws IOException, InterruptedException {
+            FilePath homeFilePath = new FilePath(home);
+            // a versioned tool home resolves the current version once, the build keeps using it during updates.
+            FilePath currentFilePath = VersionedStore.resolveCurrentBinary(homeFilePath, execName);
+            if (currentFilePath != null) {
+                return currentFilePath.getRemote();
+            }
+            FilePath executableFilePath = homeFilePath.child(execName);
+            return executableFilePath.exists() ? executableFilePath.getRemote() : null;
+        }
+    }
+
     @Extension
     @Symbol("sigmaTool")
     public static final class DescriptorImpl extends ToolDescriptor<SigmaToolInstallation> {
@@ -93,6 +147,24 @@ public class SigmaToolInstallation extends ToolInstallation
         @Override
         public void setInstallations(final SigmaToolInstallation... installations) {
             getSigmaBinaryDescriptor().setInstallations(installations);
+            ResolvedInstallations.get().invalidateAll();
+            // refresh nodes with the changed configuration before builds need it.
+            InstallationPrewarmer.get().prewarmOnlineNodes();
+        }
+
+        /**
+         * Installs the tool installation on all matching online nodes and shows the progress on the rollout page.
+         */
+        @POST
+        public HttpResponse doRollout(@QueryParameter String name) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            for (SigmaToolInstallation installation : getInstallations()) {
+                if (installation.getName().equals(name)) {
+                    FleetRollout.get().start(installation);
+                    return HttpResponses.redirectViaContextPath("manage/" + SigmaRolloutLink.URL_NAME);
+                }
+            }
+            return HttpResponses.notFound();
         }
 
         private SigmaBinaryStep.DescriptorImpl getSigmaBinaryDescriptor() {
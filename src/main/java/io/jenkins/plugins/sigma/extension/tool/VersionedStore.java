@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import hudson.FilePath;
+import hudson.Util;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Content addressed layout of a tool home. Every installed binary is kept in {@code store/<sha256>/} and the
+ * {@code current} file names the version new builds use. A build resolves the current version once and keeps running
+ * that binary, so an update can be installed while scans run and switching back to a kept version needs no download.
+ */
+public final class VersionedStore {
+    public static final String STORE_DIRECTORY_NAME = "store";
+    public static final String CURRENT_FILE_NAME = "current";
+    public static final String LAST_USED_FILE_NAME = ".lastUsed";
+    public static final String EXECUTABLE_PATH_FILE_NAME = ".executablePath";
+    private static final Pattern CHECKSUM_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private final Path home;
+
+    public VersionedStore(Path home) {
+        this.home = home;
+    }
+
+    /**
+     * Resolves the binary of the current version of a tool home and marks the version used.
+     *
+     * @return the current binary, or null when the tool home doesn't use the versioned layout.
+     */
+    @Nullable
+    public static FilePath resolveCurrentBinary(FilePath home, String binaryName)
+            throws IOException, InterruptedException {
+        FilePath currentPath = home.child(CURRENT_FILE_NAME);
+        if (!currentPath.exists()) {
+            return null;
+        }
+        String current = currentPath.readToString().trim();
+        if (!CHECKSUM_PATTERN.matcher(current).matches()) {
+            return null;
+        }
+        FilePath versionDirectory = home.child(STORE_DIRECTORY_NAME).child(current);
+        // a bundle records where the binary is, so it is found without scanning the bundle.
+        FilePath executablePath = versionDirectory.child(EXECUTABLE_PATH_FILE_NAME);
+        FilePath binary = executablePath.exists()
+                ? versionDirectory.child(executablePath.readToString().trim())
+                : versionDirectory.child(binaryName);
+        if (!binary.exists()) {
+            return null;
+        }
+        versionDirectory.child(LAST_USED_FILE_NAME).touch(System.currentTimeMillis());
+        return binary;
+    }
+
+    @Nullable
+    public String getCurrent() throws IOException {
+        Path currentPath = home.resolve(CURRENT_FILE_NAME);
+        if (!Files.exists(currentPath)) {
+            return null;
+        }
+        String current = new String(Files.readAllBytes(currentPath), StandardCharsets.UTF_8).trim();
+        return CHECKSUM_PATTERN.matcher(current).matches() ? current : null;
+    }
+
+    public Path getBinary(String checksum, String binaryName) throws IOException {
+        Path versionDirectory = home.resolve(STORE_DIRECTORY_NAME).resolve(checksum.toLowerCase(Locale.ROOT));
+        Path executablePath = versionDirectory.resolve(EXECUTABLE_PATH_FILE_NAME);
+        if (Files.exists(executablePath)) {
+            String relativePath = new String(Files.readAllBytes(executablePath), StandardCharsets.UTF_8).trim();
+            return versionDirectory.resolve(relativePath);
+        }
+        return versionDirectory.resolve(binaryName);
+    }
+
+    public boolean contains(String checksum, String binaryName) throws IOException {
+        return Files.exists(getBinary(checksum, binaryName));
+    }
+
+    /**
+     * Moves a verified binary into the store, unless the store already has it.
+     */
+    public void add(Path binary, String checksum, String binaryName) throws IOException {
+        Path target = getBinary(checksum, binaryName);
+        if (Files.exists(target)) {
+            Files.delete(binary);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        FileDownloadInstaller.moveAtomically(binary, target);
+    }
+
+    /**
+     * Moves an extracted bundle into the store, unless the store already has it. The bundle must record the path of
+     * its binary in {@value #EXECUTABLE_PATH_FILE_NAME}.
+     */
+    public void addBundle(Path bundleDirectory, String checksum) throws IOException {
+        if (!Files.exists(bundleDirectory.resolve(EXECUTABLE_PATH_FILE_NAME))) {
+            throw new IOException("The bundle " + bundleDirectory + " doesn't record the path of its binary.");
+        }
+        Path target = home.resolve(STORE_DIRECTORY_NAME).resolve(checksum.toLowerCase(Locale.ROOT));
+        if (Files.exists(target)) {
+            Util.deleteRecursive(bundleDirectory.toFile());
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        FileDownloadInstaller.moveAtomically(bundleDirectory, target);
+    }
+
+    /**
+     * Points new builds at a stored version. The pointer is replaced with a rename so it is never partially written.
+     */
+    public void switchTo(String checksum) throws IOException {
+        String version = checksum.toLowerCase(Locale.ROOT);
+        Path versionDirectory = home.resolve(STORE_DIRECTORY_NAME).resolve(version);
+        touch(versionDirectory.resolve(LAST_USED_FILE_NAME));
+        Path pointer = home.resolve(CURRENT_FILE_NAME + FileDownloadInstaller.PARTIAL_FILE_SUFFIX);
+        Files.write(pointer, version.getBytes(StandardCharsets.UTF_8));
+        FileDownloadInstaller.moveAtomically(pointer, home.resolve(CURRENT_FILE_NAME));
+    }
+
+    /**
+     * Deletes the least recently used versions beyond the given number. The current version is always kept.
+     *
+     * @return the checksums of the deleted versions.
+     */
+    public List<String> collectGarbage(int keepVersions) throws IOException {
+        Path storeDirectory = home.resolve(STORE_DIRECTORY_NAME);
+        List<Path> versions = new ArrayList<>();
+        if (Files.isDirectory(storeDirectory)) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(storeDirectory)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry)) {
+                        versions.add(entry);
+                    }
+                }
+            }
+        }
+        String current = getCurrent();
+        versions.sort(Comparator.comparing(VersionedStore::getLastUsed).reversed());
+        List<String> deleted = new ArrayList<>();
+        int kept = current == null ? 0 : 1;
+        for (Path version : versions) {
+            String checksum = version.getFileName().toString();
+            if (checksum.equals(current)) {
+                continue;
+            }
+            if (kept < keepVersions) {
+                kept++;
+                continue;
+            }
+            Util.deleteRecursive(version.toFile());
+            deleted.add(checksum);
+        }
+        return deleted;
+    }
+
+    /**
+     * Removes the pointer when the tool home goes back to a single binary, so builds don't keep using a stored
+     * version.
+     */
+    public void clearCurrent() throws IOException {
+        Files.deleteIfExists(home.resolve(CURRENT_FILE_NAME));
+    }
+
+    private static FileTime getLastUsed(Path version) {
+        try {
+            Path lastUsed = version.resolve(LAST_USED_FILE_NAME);
+            return Files.getLastModifiedTime(Files.exists(lastUsed) ? lastUsed : version);
+        } catch (IOException ex) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void touch(Path file) throws IOException {
+        if (Files.exists(file)) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } else {
+            Files.createFile(file);
+        }
+    }
+}
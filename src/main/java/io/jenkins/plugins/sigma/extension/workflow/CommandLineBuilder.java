@@ -10,14 +10,31 @@ import io.jenkins.plugins.sigma.SigmaBuildContext;
 import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
+import jenkins.util.SystemProperties;
 import org.apache.commons.lang.StringUtils;
 
 public class CommandLineBuilder {
     public static final String DEFAULT_COMMAND_LINE = "analyze --format jenkins";
     public static final String COMMAND_TOKEN_IGNORE_POLICIES = "--ignore-policies";
     private static final String COMMAND_TOKEN_ANALYZE = "analyze";
+    private static final String COMMAND_TOKEN_FORMAT = "--format";
+    /**
+     * The longest command line started with added paths, below the 32767 characters Windows allows and the argument
+     * space of common Unix systems.
+     */
+    private static final int MAX_UNIX_COMMAND_LINE_LENGTH =
+            SystemProperties.getInteger(CommandLineBuilder.class.getName() + ".maxUnixLength", 128 * 1024);
+
+    private static final int MAX_WINDOWS_COMMAND_LINE_LENGTH =
+            SystemProperties.getInteger(CommandLineBuilder.class.getName() + ".maxWindowsLength", 30 * 1024);
+    /**
+     * An absolute path on a Unix or a Windows node.
+     */
+    private static final Pattern ABSOLUTE_PATH_PATTERN = Pattern.compile("([/\\\\]|[A-Za-z]:[/\\\\]).*");
     private SigmaBuildContext sigmaBuildContext;
     private boolean ignorePolicies;
     private String commandLineOverride;
@@ -45,6 +62,64 @@ public class CommandLineBuilder {
         return argumentListBuilder;
     }
 
+    /**
+     * Tells whether the command line names the paths to analyze. Every token after the sub-command that isn't an
+     * option is taken as a path except the value of the format option, it isn't known which other options take a
+     * separate value.
+     */
+    static boolean hasPathArguments(ArgumentListBuilder commandLine) {
+        List<String> arguments = commandLine.toList();
+        boolean subCommand = false;
+        for (int i = 1; i < arguments.size(); i++) {
+            String argument = arguments.get(i);
+            if (argument.startsWith("-")) {
+                if (argument.equals(COMMAND_TOKEN_FORMAT)) {
+                    i++;
+                }
+            } else if (subCommand) {
+                return true;
+            } else {
+                subCommand = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the paths can be added to the command line, the process can't be started once it gets too long.
+     * Every argument is counted with a separator and a pair of quotes.
+     */
+    static boolean fitsCommandLine(ArgumentListBuilder commandLine, List<String> paths, boolean unix) {
+        long length = 0;
+        for (String argument : commandLine.toList()) {
+            length += argument.length() + 3;
+        }
+        for (String path : paths) {
+            length += path.length() + 3;
+        }
+        return length <= (unix ? MAX_UNIX_COMMAND_LINE_LENGTH : MAX_WINDOWS_COMMAND_LINE_LENGTH);
+    }
+
+    /**
+     * Tells whether an option of the command line has a relative path as its value, like
+     * {@code --config=rules.yaml}, which resolves against the working directory of the process.
+     */
+    static boolean hasRelativeOptionPaths(ArgumentListBuilder commandLine) {
+        List<String> arguments = commandLine.toList();
+        for (String argument : arguments.subList(Math.min(1, arguments.size()), arguments.size())) {
+            int separator = argument.indexOf('=');
+            if (!argument.startsWith("-") || separator < 0) {
+                continue;
+            }
+            String value = argument.substring(separator + 1);
+            boolean pathLike = value.contains("/") || value.contains("\\") || value.contains(".");
+            if (pathLike && !ABSOLUTE_PATH_PATTERN.matcher(value).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String handleIgnorePoliciesOption(PrintStream logger, String currentCommandLine) {
         String updatedCommandLine = currentCommandLine;
 
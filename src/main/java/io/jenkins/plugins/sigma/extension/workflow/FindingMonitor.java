@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.console.LineTransformationOutputStream;
+import io.jenkins.plugins.sigma.Messages;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Watches the output of a scan while it runs. Every line is passed on to the build log, a line reporting a finding
+ * with a severity at or above the threshold is counted, and the monitor trips once the count reaches the limit so the
+ * scan can be stopped without waiting for it to finish.
+ */
+class FindingMonitor extends LineTransformationOutputStream.Delegating {
+    /**
+     * A severity field of a finding, like {@code "severity":"HIGH"} or {@code severity: high}.
+     */
+    private static final Pattern SEVERITY_PATTERN =
+            Pattern.compile("\\bseverity\"?\\s*[:=]\\s*\"?([a-z]+)", Pattern.CASE_INSENSITIVE);
+    private final Severity threshold;
+    private final int limit;
+    private final Charset charset;
+    private final AtomicInteger count = new AtomicInteger();
+    private final CountDownLatch tripped = new CountDownLatch(1);
+
+    FindingMonitor(OutputStream out, Charset charset, Severity threshold, int limit) {
+        super(out);
+        this.charset = charset;
+        this.threshold = threshold;
+        this.limit = Math.max(1, limit);
+    }
+
+    @Override
+    protected void eol(byte[] b, int len) throws IOException {
+        out.write(b, 0, len);
+        if (tripped.getCount() == 0) {
+            return;
+        }
+        Severity severity = parse(new String(b, 0, len, charset));
+        if (severity != null && severity.compareTo(threshold) >= 0 && count.incrementAndGet() >= limit) {
+            tripped.countDown();
+        }
+    }
+
+    /**
+     * Passes on an unterminated last line, the build log itself stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        forceEol();
+        out.flush();
+    }
+
+    /**
+     * @return true once the limit was reached, false when the timeout elapsed first.
+     */
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return tripped.await(timeout, unit);
+    }
+
+    boolean isTripped() {
+        return tripped.getCount() == 0;
+    }
+
+    int getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the severity of the finding the line reports, null when it doesn't report a finding.
+     */
+    @Nullable
+    static Severity parse(String line) {
+        Matcher matcher = SEVERITY_PATTERN.matcher(line);
+        return matcher.find() ? Severity.fromName(matcher.group(1)) : null;
+    }
+
+    /**
+     * The severities of findings from low to high, named like the severities of the Jenkins report format.
+     */
+    public enum Severity {
+        LOW,
+        NORMAL,
+        HIGH,
+        ERROR;
+
+        /**
+         * @return the severity, null for a name that isn't a severity.
+         */
+        @Nullable
+        static Severity fromName(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "low":
+                case "info":
+                    return LOW;
+                case "normal":
+                case "medium":
+                    return NORMAL;
+                case "high":
+                    return HIGH;
+                case "error":
+                case "critical":
+                    return ERROR;
+                default:
+                    return null;
+            }
+        }
+
+        public String getDisplayName() {
+            switch (this) {
+                case NORMAL:
+                    return Messages.workflow_failFast_severity_normal();
+                case HIGH:
+                    return Messages.workflow_failFast_severity_high();
+                case ERROR:
+                    return Messages.workflow_failFast_severity_error();
+                default:
+                    return Messages.workflow_failFast_severity_low();
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.remoting.VirtualChannel;
+import hudson.util.ArgumentListBuilder;
+import io.jenkins.plugins.sigma.SigmaBuildContext;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import jenkins.MasterToSlaveFileCallable;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Analyzes only the files changed since the last successful scan and carries the issues of the other files forward
+ * from that scan. The changed files are taken from {@code git diff} between the commit the previous scan analyzed and
+ * the working tree, together with the files git doesn't track that aren't ignored. A full scan runs when the previous
+ * scan used another binary or command line, or when the changes can't be determined.
+ */
+class IncrementalScan {
+    private static final String RESULTS_FILE_NAME = ShardedScan.RESULTS_FILE_NAME;
+    private static final String ISSUES_KEY = ShardedScan.ISSUES_KEY;
+    private static final String FILE_NAME_KEY = ShardedScan.FILE_NAME_KEY;
+    private static final int MAX_PREVIOUS_BUILDS = 25;
+    private static final Pattern VERSION_DIRECTORY_PATTERN = Pattern.compile("[/\\\\]([0-9a-f]{64})[/\\\\]");
+
+    private final Run<?, ?> run;
+    private final SigmaBuildContext sigmaBuildContext;
+    private final FilePath workingDirectory;
+    private String commit;
+
+    IncrementalScan(Run<?, ?> run, SigmaBuildContext sigmaBuildContext, FilePath workingDirectory) {
+        this.run = run;
+        this.sigmaBuildContext = sigmaBuildContext;
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * Identifies the binary, the version directory holding its rule packs, and the command line of a scan.
+     *
+     * @return the fingerprint, null when the version of the binary isn't known yet.
+     */
+    @Nullable
+    static String fingerprint(@Nullable SigmaVersionAction versionAction, ArgumentListBuilder commandLine) {
+        if (versionAction == null) {
+            return null;
+        }
+        List<String> arguments = commandLine.toList();
+        StringBuilder fingerprint = new StringBuilder(versionAction.getChecksum());
+        if (!arguments.isEmpty()) {
+            // a bundle keeps its rule packs in the version directory of the binary.
+            Matcher versionDirectory = VERSION_DIRECTORY_PATTERN.matcher(arguments.get(0));
+            if (versionDirectory.find()) {
+                fingerprint.append('\n').append(versionDirectory.group(1));
+            }
+        }
+        for (String argument : arguments.subList(Math.min(1, arguments.size()), arguments.size())) {
+            fingerprint.append('\n').append(argument);
+        }
+        return Util.getDigestOf(fingerprint.toString());
+    }
+
+    /**
+     * Runs the incremental scan.
+     *
+     * @return the result, null when a full scan has to run instead.
+     */
+    @Nullable
+    Result execute(ArgumentListBuilder commandLine, @Nullable String fingerprint)
+            throws IOException, InterruptedException {
+        PrintStream logger = sigmaBuildContext.getListener().getLogger();
+        if (fingerprint == null) {
+            logger.println("The Rapid Scan Static version isn't known yet, analyzing all files.");
+            return null;
+        }
+        Run<?, ?> previousRun = findPreviousScan();
+        IncrementalScanAction previousScan =
+                previousRun != null ? previousRun.getAction(IncrementalScanAction.class) : null;
+        if (previousScan == null) {
+            logger.println("No previous successful scan was found, analyzing all files.");
+            return null;
+        }
+        if (!previousScan.getFingerprint().equals(fingerprint)) {
+            logger.println(
+                    "The binary, rule packs or command line changed since the previous scan, analyzing all files.");
+            return null;
+        }
+        File previousResults = new File(previousRun.getRootDir(), RESULTS_FILE_NAME);
+        // without a second commit the diff compares the working tree, so uncommitted changes are included.
+        String diff = git("diff", "--name-only", "--no-renames", "--relative", previousScan.getCommit());
+        String untracked = git("ls-files", "--others", "--exclude-standard");
+        if (!previousResults.isFile() || getCommit() == null || diff == null || untracked == null) {
+            logger.println("The changes since the previous scan can't be determined, analyzing all files.");
+            return null;
+        }
+        Set<String> changedFiles = new LinkedHashSet<>();
+        for (String line : (diff + '\n' + untracked).split("\\r?\\n")) {
+            String file = line.trim();
+            // the results of the scans aren't analyzed, a full scan skips them as well.
+            if (!file.isEmpty()
+                    && !file.equals(RESULTS_FILE_NAME)
+                    && !file.startsWith(ShardedScan.SHARD_DIRECTORY_NAME + '/')) {
+                changedFiles.add(file);
+            }
+        }
+        List<String> analyzedFiles = workingDirectory.act(new ExistingFiles(new ArrayList<>(changedFiles)));
+        Launcher launcher = sigmaBuildContext.getLauncher();
+        if (!CommandLineBuilder.fitsCommandLine(commandLine, analyzedFiles, launcher.isUnix())) {
+            logger.println(String.format(
+                    "The %d files changed since the previous scan don't fit on a command line, analyzing all files.",
+                    analyzedFiles.size()));
+            return null;
+        }
+        FilePath resultsFile = workingDirectory.child(RESULTS_FILE_NAME);
+        resultsFile.delete();
+        JSONObject currentResults = null;
+        if (!analyzedFiles.isEmpty()) {
+            ArgumentListBuilder incrementalCommand = commandLine.clone();
+            analyzedFiles.forEach(incrementalCommand::add);
+            if (!launcher.isUnix()) {
+                incrementalCommand = incrementalCommand.toWindowsCommand();
+            }
+            int returnCode = launcher.launch()
+                    .cmds(incrementalCommand)
+                    .envs(sigmaBuildContext.getEnvironment())
+                    .pwd(workingDirectory)
+                    .stdout(sigmaBuildContext.getListener())
+                    .join();
+            if (returnCode != 0) {
+                return Result.FAILURE;
+            }
+            if (resultsFile.exists()) {
+                currentResults = toResults(JSONSerializer.toJSON(resultsFile.readToString()));
+            }
+        }
+        Object previous = JSONSerializer.toJSON(
+                new String(Files.readAllBytes(previousResults.toPath()), StandardCharsets.UTF_8));
+        JSONObject merged =
+                carryForward(toResults(previous), currentResults, changedFiles, workingDirectory.getRemote());
+        resultsFile.write(merged.toString(), StandardCharsets.UTF_8.name());
+        logger.println(String.format(
+                "Analyzed %d of %d files changed since %s, the issues of unchanged files were carried forward.",
+                analyzedFiles.size(), changedFiles.size(), previousScan.getCommit()));
+        return Result.SUCCESS;
+    }
+
+    /**
+     * Keeps the results of a successful scan and the commit it analyzed for the next incremental scan. File names are
+     * kept relative to the workspace, the next scan may run in another workspace or on another node.
+     */
+    void record(Result result, @Nullable String fingerprint) throws IOException, InterruptedException {
+        FilePath resultsFile = workingDirectory.child(RESULTS_FILE_NAME);
+        if (result != Result.SUCCESS || fingerprint == null || getCommit() == null || !resultsFile.exists()) {
+            return;
+        }
+        JSONObject results = toResults(JSONSerializer.toJSON(resultsFile.readToString()));
+        for (Object issue : results.getJSONArray(ISSUES_KEY)) {
+            if (issue instanceof JSONObject && ((JSONObject) issue).has(FILE_NAME_KEY)) {
+                String fileName = ((JSONObject) issue).getString(FILE_NAME_KEY);
+                ((JSONObject) issue).put(FILE_NAME_KEY, relativize(fileName, workingDirectory.getRemote()));
+            }
+        }
+        Files.write(
+                new File(run.getRootDir(), RESULTS_FILE_NAME).toPath(),
+                results.toString().getBytes(StandardCharsets.UTF_8));
+        run.addOrReplaceAction(new IncrementalScanAction(getCommit(), fingerprint));
+    }
+
+    /**
+     * The issues of the previous scan for unchanged files and all issues of the current scan. Issues without a file
+     * can't be told apart by the changes, they are carried forward unless the current scan reported them again.
+     */
+    static JSONObject carryForward(
+            JSONObject previous, @Nullable JSONObject current, Set<String> changedFiles, String workspace) {
+        JSONObject merged = new JSONObject();
+        JSONObject topLevel = current != null ? current : previous;
+        for (Object key : topLevel.keySet()) {
+            if (!ISSUES_KEY.equals(key)) {
+                merged.put(key, topLevel.get(key));
+            }
+        }
+        JSONArray issues = new JSONArray();
+        JSONArray currentIssues = current != null ? current.getJSONArray(ISSUES_KEY) : new JSONArray();
+        for (Object issue : previous.getJSONArray(ISSUES_KEY)) {
+            if (issue instanceof JSONObject) {
+                String fileName = ((JSONObject) issue).optString(FILE_NAME_KEY, "");
+                if (fileName.isEmpty()
+                        ? !currentIssues.contains(issue)
+                        : !changedFiles.contains(relativize(fileName, workspace))) {
+                    issues.add(issue);
+                }
+            }
+        }
+        issues.addAll(currentIssues);
+        merged.put(ISSUES_KEY, issues);
+        return merged;
+    }
+
+    /**
+     * @return the results as an object with an issues array, reports with a plain array are wrapped.
+     */
+    static JSONObject toResults(Object json) {
+        if (json instanceof JSONObject) {
+            JSONObject results = (JSONObject) json;
+            if (results.optJSONArray(ISSUES_KEY) == null) {
+                results.put(ISSUES_KEY, new JSONArray());
+            }
+            return results;
+        }
+        JSONObject results = new JSONObject();
+        results.put(ISSUES_KEY, json instanceof JSONArray ? json : new JSONArray());
+        return results;
+    }
+
+    static String relativize(String fileName, String workspace) {
+        String normalizedFileName = fileName.replace('\\', '/');
+        String normalizedWorkspace = workspace.replace('\\', '/') + '/';
+        if (normalizedFileName.startsWith(normalizedWorkspace)) {
+            return normalizedFileName.substring(normalizedWorkspace.length());
+        }
+        return normalizedFileName.startsWith("./") ? normalizedFileName.substring(2) : normalizedFileName;
+    }
+
+    @Nullable
+    private Run<?, ?> findPreviousScan() {
+        Run<?, ?> previousRun = run.getPreviousCompletedBuild();
+        for (int i = 0; previousRun != null && i < MAX_PREVIOUS_BUILDS; i++) {
+            if (previousRun.getAction(IncrementalScanAction.class) != null) {
+                return previousRun;
+            }
+            previousRun = previousRun.getPreviousCompletedBuild();
+        }
+        return null;
+    }
+
+    @Nullable
+    private String getCommit() throws IOException, InterruptedException {
+        if (commit == null) {
+            String head = git("rev-parse", "HEAD");
+            commit = head != null ? head.trim() : null;
+        }
+        return commit;
+    }
+
+    /**
+     * @return the output of the git command, null when it fails.
+     */
+    @Nullable
+    private String git(String... arguments) throws IOException, InterruptedException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int returnCode = sigmaBuildContext
+                .getLauncher()
+                .launch()
+                .cmds(new ArgumentListBuilder("git").add(Arrays.asList(arguments)))
+                .envs(sigmaBuildContext.getEnvironment())
+                .pwd(workingDirectory)
+                .stdout(output)
+                .stderr(NullOutputStream.NULL_OUTPUT_STREAM)
+                .quiet(true)
+                .join();
+        return returnCode == 0 ? output.toString(StandardCharsets.UTF_8.name()) : null;
+    }
+
+    /**
+     * The changed files that still exist, deleted files only drop their carried forward issues.
+     */
+    private static final class ExistingFiles extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+        private final List<String> files;
+
+        ExistingFiles(List<String> files) {
+            this.files = files;
+        }
+
+        @Override
+        public List<String> invoke(File workspace, VirtualChannel channel) {
+            List<String> existingFiles = new ArrayList<>();
+            for (String file : files) {
+                if (new File(workspace, file).isFile()) {
+                    existingFiles.add(file);
+                }
+            }
+            return existingFiles;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.model.InvisibleAction;
+
+/**
+ * The commit a successful scan analyzed and the fingerprint of the binary and command line it used. A later build
+ * analyzes only the files changed since this commit when its fingerprint is the same.
+ */
+public class IncrementalScanAction extends InvisibleAction {
+    private final String commit;
+    private final String fingerprint;
+
+    public IncrementalScanAction(String commit, String fingerprint) {
+        this.commit = commit;
+        this.fingerprint = fingerprint;
+    }
+
+    public String getCommit() {
+        return commit;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+}
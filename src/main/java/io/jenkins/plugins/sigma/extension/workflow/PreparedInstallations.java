@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+/**
+ * Installations a build started ahead of its scan with {@link SigmaPrepareStep}. The scan joins the installation of
+ * its node instead of installing again, installations that were never joined are dropped when the build finishes.
+ * The log of the preparing step may be closed while the installation runs, so the installation logs into a buffer
+ * that the joining step copies into its own log.
+ */
+@Extension
+public class PreparedInstallations extends RunListener<Run<?, ?>> {
+    private final ExecutorService executor = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Rapid Scan Static prepare"));
+    private final ConcurrentMap<String, Preparation> installations = new ConcurrentHashMap<>();
+
+    public static PreparedInstallations get() {
+        return ExtensionList.lookupSingleton(PreparedInstallations.class);
+    }
+
+    /**
+     * Starts installing the tool on the node and returns immediately. Preparing the same tool again on the node in
+     * the same build keeps the installation already started.
+     */
+    void prepare(Run<?, ?> run, Node node, SigmaToolInstallation installation) {
+        installations.computeIfAbsent(getKey(run, node, installation.getName()), key -> {
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            TaskListener listener = new StreamTaskListener(log, StandardCharsets.UTF_8);
+            return new Preparation(log, executor.submit(() -> installation.forNode(node, listener)));
+        });
+    }
+
+    /**
+     * Waits for an installation the build prepared on the node.
+     *
+     * @return the installation for the node, null when none was prepared or the preparation failed and the caller
+     *     should install itself.
+     */
+    @Nullable
+    SigmaToolInstallation join(Run<?, ?> run, Node node, String toolName, TaskListener listener)
+            throws InterruptedException {
+        Preparation preparation = installations.remove(getKey(run, node, toolName));
+        if (preparation == null) {
+            return null;
+        }
+        if (!preparation.installation.isDone()) {
+            listener.getLogger().println("Waiting for the prepared Rapid Scan Static installation...");
+        }
+        try {
+            SigmaToolInstallation installation = preparation.installation.get();
+            preparation.replay(listener);
+            return installation;
+        } catch (ExecutionException ex) {
+            preparation.replay(listener);
+            listener.getLogger()
+                    .println("The prepared Rapid Scan Static installation failed, installing again: "
+                            + ex.getCause().getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void onFinalized(Run<?, ?> run) {
+        String runPrefix = run.getExternalizableId() + '\n';
+        installations.keySet().removeIf(key -> key.startsWith(runPrefix));
+    }
+
+    private static String getKey(Run<?, ?> run, Node node, String toolName) {
+        return run.getExternalizableId() + '\n' + node.getNodeName() + '\n' + toolName;
+    }
+
+    private static final class Preparation {
+        private final ByteArrayOutputStream log;
+        private final Future<SigmaToolInstallation> installation;
+
+        Preparation(ByteArrayOutputStream log, Future<SigmaToolInstallation> installation) {
+            this.log = log;
+            this.installation = installation;
+        }
+
+        /**
+         * Copies what the installation logged into the log of the joining step.
+         */
+        void replay(TaskListener listener) {
+            byte[] content = log.toByteArray();
+            listener.getLogger().write(content, 0, content.length);
+            listener.getLogger().flush();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.UnprotectedRootAction;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletResponse;
+import jenkins.model.Jenkins;
+import jenkins.security.HMACConfidentialKey;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Result cache entries shared by all nodes, served by the controller over HTTP. Entries are addressed by the name the
+ * node derives from the file content and the scan fingerprint, a node reads the entries it misses with {@code GET}
+ * and writes the entries of the files it analyzed with {@code PUT}. The least recently used entries are removed once
+ * the cache grows beyond its size limit.
+ *
+ * <p>Requests carry a token the controller issues to a build, it is only accepted while that build runs. The builds
+ * of the jobs in one folder share their entries, the jobs of another folder can neither read nor write them. Builds
+ * of change requests, like the pull requests of a multibranch project, only read entries.
+ */
+@Extension
+public class RemoteResultCache implements UnprotectedRootAction {
+    static final String URL_NAME = "sigma-result-cache";
+    static final String CACHE_DIRECTORY_NAME = "sigma-result-cache";
+    private static final HMACConfidentialKey TOKEN_KEY = new HMACConfidentialKey(RemoteResultCache.class, "token");
+    private static final String CHANGE_REQUEST_VARIABLE = "CHANGE_ID";
+    private static final String READ_ACCESS = "read";
+    private static final String WRITE_ACCESS = "write";
+    private static final Pattern ENTRY_NAME_PATTERN = Pattern.compile("[0-9a-f]{32}\\.json");
+    private static final int MAX_SIZE_MEGABYTES =
+            Math.max(1, SystemProperties.getInteger(RemoteResultCache.class.getName() + ".maxSizeMegabytes", 4096));
+    private static final int MAX_ENTRY_KILOBYTES = Math.max(
+            1, SystemProperties.getInteger(RemoteResultCache.class.getName() + ".maxEntryKilobytes", 16 * 1024));
+    private long maxSizeBytes = MAX_SIZE_MEGABYTES * 1024L * 1024L;
+    private long storedBytes = -1;
+
+    public static RemoteResultCache get() {
+        return ExtensionList.lookupSingleton(RemoteResultCache.class);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    /**
+     * @return the client the nodes of the build use to reach the cache, null while the Jenkins URL isn't configured.
+     */
+    @Nullable
+    RemoteResultCacheClient createClient(Run<?, ?> run) throws IOException, InterruptedException {
+        String rootUrl = Jenkins.get().getRootUrl();
+        if (rootUrl == null) {
+            return null;
+        }
+        // the variable is set by the job of a change request, the build can't remove it.
+        boolean writable = !run.getEnvironment(TaskListener.NULL).containsKey(CHANGE_REQUEST_VARIABLE);
+        return new RemoteResultCacheClient(rootUrl + URL_NAME + '/', getToken(run, writable), writable);
+    }
+
+    /**
+     * @return the token of the build, the run id and the access it grants are signed so a node can't change them.
+     */
+    static String getToken(Run<?, ?> run, boolean writable) {
+        String runId = run.getExternalizableId();
+        String access = writable ? WRITE_ACCESS : READ_ACCESS;
+        String encodedRunId =
+                Base64.getUrlEncoder().withoutPadding().encodeToString(runId.getBytes(StandardCharsets.UTF_8));
+        return encodedRunId + '.' + access + '.' + TOKEN_KEY.mac(runId + '\n' + access);
+    }
+
+    /**
+     * @return the directory of the entries the jobs of the folder share.
+     */
+    static String getDomain(Run<?, ?> run) {
+        return Util.getDigestOf(run.getParent().getParent().getFullName());
+    }
+
+    public File getCacheRoot() {
+        return new File(new File(Jenkins.get().getRootDir(), "caches"), CACHE_DIRECTORY_NAME);
+    }
+
+    void setMaxSizeBytes(long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    public void doDynamic(StaplerRequest request, StaplerResponse response) throws IOException {
+        String entryName = StringUtils.removeStart(request.getRestOfPath(), "/");
+        if (!ENTRY_NAME_PATTERN.matcher(entryName).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String[] token = StringUtils.split(request.getHeader(RemoteResultCacheClient.TOKEN_HEADER), '.');
+        Run<?, ?> run = token != null && token.length == 3 ? getRunningBuild(token[0], token[1], token[2]) : null;
+        if (run == null) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        Path entry = ResultCache.getEntry(getCacheRoot().toPath().resolve(getDomain(run)), entryName);
+        if ("GET".equals(request.getMethod())) {
+            serve(entry, response);
+        } else if ("PUT".equals(request.getMethod()) && !WRITE_ACCESS.equals(token[1])) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "The build only reads the result cache.");
+        } else if ("PUT".equals(request.getMethod())) {
+            store(entry, request, response);
+        } else {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+        }
+    }
+
+    /**
+     * @return the build the token was issued to, null when the token is forged or the build finished.
+     */
+    @Nullable
+    private static Run<?, ?> getRunningBuild(String encodedRunId, String access, String mac) {
+        String runId;
+        try {
+            runId = new String(Base64.getUrlDecoder().decode(encodedRunId), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        if (!TOKEN_KEY.checkMac(runId + '\n' + access, mac)) {
+            return null;
+        }
+        // the request is anonymous, the token authorizes it.
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            Run<?, ?> run = Run.fromExternalizableId(runId);
+            return run != null && run.isBuilding() ? run : null;
+        }
+    }
+
+    private void serve(Path entry, StaplerResponse response) throws IOException {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException ex) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        byte[] content;
+        try {
+            content = Files.readAllBytes(entry);
+        } catch (NoSuchFileException ex) {
+            // evicted since it was marked as used.
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setContentType("application/json");
+        response.setContentLength(content.length);
+        response.getOutputStream().write(content);
+    }
+
+    private void store(Path entry, StaplerRequest request, StaplerResponse response) throws IOException {
+        long maxEntryBytes = MAX_ENTRY_KILOBYTES * 1024L;
+        if (request.getContentLengthLong() > maxEntryBytes) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        byte[] content;
+        try (InputStream inputStream = new BoundedInputStream(request.getInputStream(), maxEntryBytes + 1)) {
+            content = IOUtils.toByteArray(inputStream);
+        }
+        if (content.length > maxEntryBytes) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        try {
+            JSONArray.fromObject(new String(content, StandardCharsets.UTF_8));
+        } catch (JSONException ex) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "An entry is a JSON array of issues.");
+            return;
+        }
+        ResultCache.writeEntry(entry, content);
+        recordStored(content.length);
+        response.setStatus(HttpServletResponse.SC_CREATED);
+    }
+
+    /**
+     * Keeps track of the size of the cache and evicts entries down to nine tenths of the limit once it is exceeded,
+     * so not every following upload has to evict.
+     */
+    private synchronized void recordStored(long bytes) throws IOException {
+        Path cacheRoot = getCacheRoot().toPath();
+        storedBytes = storedBytes < 0 ? measure(cacheRoot) : storedBytes + bytes;
+        if (storedBytes > maxSizeBytes) {
+            ResultCache.evict(cacheRoot, maxSizeBytes / 10 * 9);
+            storedBytes = measure(cacheRoot);
+        }
+    }
+
+    private static long measure(Path cacheRoot) throws IOException {
+        try (Stream<Path> files = Files.walk(cacheRoot)) {
+            return files.filter(Files::isRegularFile)
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.ProxyConfiguration;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reads and writes the result cache entries of the controller from a node. Entries are transferred with a few
+ * concurrent requests, the first failed request stops the transfer so an unreachable controller doesn't hold up the
+ * scan.
+ */
+final class RemoteResultCacheClient implements Serializable {
+    static final String TOKEN_HEADER = "X-Sigma-Cache-Token";
+    private static final long serialVersionUID = 1L;
+    private static final int CONCURRENCY = 8;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final int READ_TIMEOUT_MILLIS = 30_000;
+    private final String url;
+    private final String token;
+    private final boolean writable;
+
+    /**
+     * @param url the URL of the cache ending with a slash, entry names are appended to it.
+     * @param writable false when the token only allows to read entries.
+     */
+    RemoteResultCacheClient(String url, String token, boolean writable) {
+        this.url = url;
+        this.token = token;
+        this.writable = writable;
+    }
+
+    boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Downloads the entries the controller has into the local cache.
+     */
+    Transfer download(List<Path> entries) throws InterruptedException {
+        return transfer(entries, this::download);
+    }
+
+    /**
+     * Uploads the local entries to the controller, nothing when the client only reads.
+     */
+    Transfer upload(List<Path> entries) throws InterruptedException {
+        return transfer(writable ? entries : Collections.emptyList(), this::upload);
+    }
+
+    private Transfer transfer(List<Path> entries, EntryRequest request) throws InterruptedException {
+        if (entries.isEmpty()) {
+            return new Transfer(0, null);
+        }
+        AtomicReference<String> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(CONCURRENCY, entries.size()),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Rapid Scan Static result cache"));
+        int transferred = 0;
+        try {
+            List<Future<Boolean>> requests = new ArrayList<>();
+            for (Path entry : entries) {
+                requests.add(executor.submit(() -> {
+                    if (failure.get() != null) {
+                        return false;
+                    }
+                    try {
+                        return request.send(entry);
+                    } catch (IOException ex) {
+                        failure.compareAndSet(null, ex.getMessage());
+                        return false;
+                    }
+                }));
+            }
+            for (Future<Boolean> sent : requests) {
+                if (sent.get()) {
+                    transferred++;
+                }
+            }
+        } catch (ExecutionException ex) {
+            failure.compareAndSet(null, String.valueOf(ex.getCause()));
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Transfer(transferred, failure.get());
+    }
+
+    /**
+     * @return true when the controller has the entry, false when it doesn't.
+     */
+    private boolean download(Path entry) throws IOException {
+        HttpURLConnection connection = open(entry);
+        try {
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                return false;
+            }
+            checkResponse(connection, responseCode == HttpURLConnection.HTTP_OK);
+            byte[] content;
+            try (InputStream inputStream = connection.getInputStream()) {
+                content = IOUtils.toByteArray(inputStream);
+            }
+            ResultCache.writeEntry(entry, content);
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * @return true when the controller stored the entry, false when the entry is too large for it.
+     */
+    private boolean upload(Path entry) throws IOException {
+        byte[] content = Files.readAllBytes(entry);
+        HttpURLConnection connection = open(entry);
+        try {
+            connection.setRequestMethod("PUT");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(content.length);
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(content);
+            }
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_ENTITY_TOO_LARGE) {
+                return false;
+            }
+            checkResponse(connection, responseCode >= 200 && responseCode < 300);
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(Path entry) throws IOException {
+        URLConnection connection = ProxyConfiguration.open(new URL(url + entry.getFileName()));
+        if (!(connection instanceof HttpURLConnection)) {
+            throw new IOException("The result cache URL " + url + " isn't an HTTP URL.");
+        }
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setUseCaches(false);
+        connection.setRequestProperty(TOKEN_HEADER, token);
+        return (HttpURLConnection) connection;
+    }
+
+    private void checkResponse(HttpURLConnection connection, boolean successful) throws IOException {
+        if (!successful) {
+            throw new IOException(String.format(
+                    "The result cache at %s answered %d %s.",
+                    url, connection.getResponseCode(), connection.getResponseMessage()));
+        }
+    }
+
+    private interface EntryRequest {
+        boolean send(Path entry) throws IOException;
+    }
+
+    /**
+     * The number of transferred entries and the reason the transfer stopped early.
+     */
+    static final class Transfer implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int count;
+        private final String failure;
+
+        Transfer(int count, @Nullable String failure) {
+            this.count = count;
+            this.failure = failure;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * @return the error of the first failed request, null when all requests succeeded.
+         */
+        @Nullable
+        String getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,567 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Result;
+import hudson.remoting.VirtualChannel;
+import hudson.util.ArgumentListBuilder;
+import io.jenkins.plugins.sigma.SigmaBuildContext;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Keeps the issues of every analyzed file in a cache on the node, keyed by the content of the file and the fingerprint
+ * of the scan. Only the files whose content wasn't analyzed before with the same binary, rule packs and command line
+ * are passed to Rapid Scan Static, the issues of the other files are taken from the cache. The cache is shared by all
+ * jobs on the node, the least recently used entries are removed once it grows beyond its size limit. With a remote
+ * cache, entries missing on the node are downloaded from the controller first and new entries are uploaded to it.
+ * The issues that don't belong to a file of the workspace are kept in an entry of the workspace, a scan of the missed
+ * files keeps those it doesn't report again like the incremental scan does.
+ */
+class ResultCache {
+    static final String CACHE_DIRECTORY_NAME = "caches/sigma-results";
+    /**
+     * The entries of the files a scan takes from the cache are copied here, eviction by a concurrent build can't
+     * remove them before the scan assembles its results.
+     */
+    static final String HIT_DIRECTORY_NAME = "caches/sigma-result-hits";
+    private static final String RESULTS_FILE_NAME = ShardedScan.RESULTS_FILE_NAME;
+    private static final String ISSUES_KEY = ShardedScan.ISSUES_KEY;
+    private static final String FILE_NAME_KEY = ShardedScan.FILE_NAME_KEY;
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String WORKSPACE_ENTRY_PREFIX = "workspace ";
+    private static final int MAX_SIZE_MEGABYTES =
+            Math.max(1, SystemProperties.getInteger(ResultCache.class.getName() + ".maxSizeMegabytes", 1024));
+    private static final long MAX_SIZE_BYTES = MAX_SIZE_MEGABYTES * 1024L * 1024L;
+
+    private final SigmaBuildContext sigmaBuildContext;
+    private final FilePath workingDirectory;
+    private final FilePath cacheDirectory;
+    private final FilePath hitDirectory;
+    private final String fingerprint;
+    private final RemoteResultCacheClient remote;
+    private CacheLookup lookup;
+    private boolean stored;
+
+    ResultCache(
+            SigmaBuildContext sigmaBuildContext,
+            FilePath workingDirectory,
+            FilePath nodeRoot,
+            String fingerprint,
+            @Nullable RemoteResultCacheClient remote) {
+        this.sigmaBuildContext = sigmaBuildContext;
+        this.workingDirectory = workingDirectory;
+        this.cacheDirectory = nodeRoot.child(CACHE_DIRECTORY_NAME);
+        // a workspace is used by one build at a time.
+        this.hitDirectory = nodeRoot.child(HIT_DIRECTORY_NAME).child(Util.getDigestOf(workingDirectory.getRemote()));
+        this.fingerprint = fingerprint;
+        this.remote = remote;
+    }
+
+    /**
+     * Analyzes the files missing from the cache and assembles the results of all files in the workspace.
+     *
+     * @return the result, null when no file is in the cache and the whole workspace has to be analyzed.
+     */
+    @Nullable
+    Result execute(ArgumentListBuilder commandLine) throws IOException, InterruptedException {
+        hitDirectory.deleteRecursive();
+        try {
+            return analyzeMisses(commandLine);
+        } finally {
+            hitDirectory.deleteRecursive();
+        }
+    }
+
+    @Nullable
+    private Result analyzeMisses(ArgumentListBuilder commandLine) throws IOException, InterruptedException {
+        PrintStream logger = sigmaBuildContext.getListener().getLogger();
+        lookup = workingDirectory.act(
+                new Lookup(cacheDirectory.getRemote(), hitDirectory.getRemote(), fingerprint, remote));
+        log("Downloaded %d result cache entries from the controller.", lookup.getDownload());
+        List<String> misses = lookup.getMisses();
+        int hits = lookup.getFiles().size() - misses.size();
+        if (hits == 0) {
+            logger.println("No file of the workspace is in the result cache, analyzing all files.");
+            return null;
+        }
+        if (lookup.isWorkspaceMiss()) {
+            logger.println("The issues of the workspace that don't belong to one of its files aren't in the result"
+                    + " cache, analyzing all files.");
+            return null;
+        }
+        Launcher launcher = sigmaBuildContext.getLauncher();
+        if (!CommandLineBuilder.fitsCommandLine(commandLine, misses, launcher.isUnix())) {
+            logger.println(String.format(
+                    "The %d files missing from the result cache don't fit on a command line, analyzing all files.",
+                    misses.size()));
+            return null;
+        }
+        workingDirectory.child(RESULTS_FILE_NAME).delete();
+        if (!misses.isEmpty()) {
+            ArgumentListBuilder missCommand = commandLine.clone();
+            misses.forEach(missCommand::add);
+            if (!launcher.isUnix()) {
+                missCommand = missCommand.toWindowsCommand();
+            }
+            int returnCode = launcher.launch()
+                    .cmds(missCommand)
+                    .envs(sigmaBuildContext.getEnvironment())
+                    .pwd(workingDirectory)
+                    .stdout(sigmaBuildContext.getListener())
+                    .join();
+            if (returnCode != 0) {
+                return Result.FAILURE;
+            }
+        }
+        log(
+                "Uploaded %d result cache entries to the controller.",
+                workingDirectory.act(new Store(
+                        cacheDirectory.getRemote(), hitDirectory.getRemote(), lookup, MAX_SIZE_BYTES, remote)));
+        stored = true;
+        logger.println(String.format(
+                "Analyzed %d of %d files, the issues of %d files were taken from the result cache.",
+                misses.size(), lookup.getFiles().size(), hits));
+        return Result.SUCCESS;
+    }
+
+    /**
+     * Adds the files of a successful scan that analyzed the whole workspace to the cache.
+     */
+    void store(Result result) throws IOException, InterruptedException {
+        if (stored || result != Result.SUCCESS || !workingDirectory.child(RESULTS_FILE_NAME).exists()) {
+            return;
+        }
+        if (lookup == null) {
+            // the results are complete, the entries missing on the node are written instead of downloaded.
+            lookup = workingDirectory.act(new Lookup(cacheDirectory.getRemote(), null, fingerprint, null));
+        }
+        log(
+                "Uploaded %d result cache entries to the controller.",
+                workingDirectory.act(new Store(cacheDirectory.getRemote(), null, lookup, MAX_SIZE_BYTES, remote)));
+        stored = true;
+    }
+
+    private void log(String format, @Nullable RemoteResultCacheClient.Transfer transfer) {
+        if (transfer == null) {
+            return;
+        }
+        PrintStream logger = sigmaBuildContext.getListener().getLogger();
+        if (transfer.getCount() > 0) {
+            logger.println(String.format(format, transfer.getCount()));
+        }
+        if (transfer.getFailure() != null) {
+            logger.println("The result cache of the controller isn't available: " + transfer.getFailure());
+        }
+    }
+
+    /**
+     * @return the name of the cache entry of a file with the content for a scan with the fingerprint.
+     */
+    static String getEntryName(String fingerprint, String contentChecksum) {
+        return Util.getDigestOf(fingerprint + '\n' + contentChecksum) + ENTRY_SUFFIX;
+    }
+
+    /**
+     * @return the name of the cache entry of the issues that don't belong to a file of the workspace.
+     */
+    static String getWorkspaceEntryName(String fingerprint, String workspace) {
+        return getEntryName(fingerprint, WORKSPACE_ENTRY_PREFIX + workspace);
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is within the size limit.
+     *
+     * @return the number of removed entries.
+     */
+    static int evict(Path cacheRoot, long maxSizeBytes) throws IOException {
+        if (!Files.isDirectory(cacheRoot)) {
+            return 0;
+        }
+        List<Path> entries;
+        try (Stream<Path> files = Files.walk(cacheRoot)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long totalBytes = 0;
+        for (Path entry : entries) {
+            try {
+                BasicFileAttributes entryAttributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                attributes.put(entry, entryAttributes);
+                totalBytes += entryAttributes.size();
+            } catch (NoSuchFileException ex) {
+                // removed by a concurrent build.
+            }
+        }
+        if (totalBytes <= maxSizeBytes) {
+            return 0;
+        }
+        List<Path> leastRecentlyUsed = new ArrayList<>(attributes.keySet());
+        leastRecentlyUsed.sort(Comparator.comparing((Path entry) -> attributes.get(entry).lastModifiedTime())
+                .thenComparing(Comparator.naturalOrder()));
+        int removed = 0;
+        for (Path entry : leastRecentlyUsed) {
+            if (totalBytes <= maxSizeBytes) {
+                break;
+            }
+            if (Files.deleteIfExists(entry)) {
+                removed++;
+            }
+            totalBytes -= attributes.get(entry).size();
+        }
+        return removed;
+    }
+
+    static Path getEntry(Path cacheRoot, String entryName) {
+        // spread the entries over subdirectories, a single directory with every entry gets slow to list.
+        return cacheRoot.resolve(entryName.substring(0, 2)).resolve(entryName);
+    }
+
+    /**
+     * Replaces the entry at once, a concurrent build never reads a partially written entry.
+     */
+    static void writeEntry(Path entry, byte[] content) throws IOException {
+        Files.createDirectories(entry.getParent());
+        Path partialEntry = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+        try {
+            Files.write(partialEntry, content);
+            Files.move(partialEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partialEntry);
+        }
+    }
+
+    /**
+     * The files of a workspace with the names of their cache entries, and the files without an entry.
+     */
+    static final class CacheLookup implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final LinkedHashMap<String, String> files;
+        private final List<String> misses;
+        private final String workspaceEntry;
+        private final boolean workspaceMiss;
+        private final RemoteResultCacheClient.Transfer download;
+
+        CacheLookup(
+                LinkedHashMap<String, String> files,
+                List<String> misses,
+                String workspaceEntry,
+                boolean workspaceMiss,
+                @Nullable RemoteResultCacheClient.Transfer download) {
+            this.files = files;
+            this.misses = misses;
+            this.workspaceEntry = workspaceEntry;
+            this.workspaceMiss = workspaceMiss;
+            this.download = download;
+        }
+
+        /**
+         * @return the cache entry names by the path of the file relative to the workspace.
+         */
+        Map<String, String> getFiles() {
+            return files;
+        }
+
+        List<String> getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the name of the entry with the issues that don't belong to a file of the workspace.
+         */
+        String getWorkspaceEntry() {
+            return workspaceEntry;
+        }
+
+        boolean isWorkspaceMiss() {
+            return workspaceMiss;
+        }
+
+        /**
+         * @return the entries downloaded from the controller, null without a remote cache.
+         */
+        @Nullable
+        RemoteResultCacheClient.Transfer getDownload() {
+            return download;
+        }
+    }
+
+    /**
+     * Computes the checksum of every file in the workspace and looks up its entry. A found entry is marked as recently
+     * used and copied into the hit directory, the entries missing on the node are downloaded from the remote cache.
+     * An entry evicted before it was copied is a miss.
+     */
+    private static final class Lookup extends MasterToSlaveFileCallable<CacheLookup> {
+        private static final long serialVersionUID = 1L;
+        private final String cacheDirectory;
+        private final String hitDirectory;
+        private final String fingerprint;
+        private final RemoteResultCacheClient remote;
+
+        /**
+         * @param hitDirectory the directory to copy the found entries to, null when they aren't read.
+         */
+        Lookup(
+                String cacheDirectory,
+                @Nullable String hitDirectory,
+                String fingerprint,
+                @Nullable RemoteResultCacheClient remote) {
+            this.cacheDirectory = cacheDirectory;
+            this.hitDirectory = hitDirectory;
+            this.fingerprint = fingerprint;
+            this.remote = remote;
+        }
+
+        @Override
+        public CacheLookup invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+            Path root = workspace.toPath().toAbsolutePath().normalize();
+            Path cacheRoot = Paths.get(cacheDirectory);
+            FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+            LinkedHashMap<String, String> files = new LinkedHashMap<>();
+            List<String> misses = new ArrayList<>();
+            for (Path file : listFiles(root)) {
+                String relativePath = root.relativize(file).toString().replace(File.separatorChar, '/');
+                String entryName = getEntryName(fingerprint, computeChecksum(file));
+                files.put(relativePath, entryName);
+                if (!take(getEntry(cacheRoot, entryName), now)) {
+                    misses.add(relativePath);
+                }
+            }
+            String workspaceEntry = getWorkspaceEntryName(fingerprint, root.toString());
+            boolean workspaceMiss = !take(getEntry(cacheRoot, workspaceEntry), now);
+            if (remote == null) {
+                return new CacheLookup(files, misses, workspaceEntry, workspaceMiss, null);
+            }
+            List<Path> missedEntries =
+                    misses.stream().map(miss -> getEntry(cacheRoot, files.get(miss))).collect(Collectors.toList());
+            if (workspaceMiss) {
+                missedEntries.add(getEntry(cacheRoot, workspaceEntry));
+            }
+            RemoteResultCacheClient.Transfer download = remote.download(missedEntries);
+            List<String> remoteMisses = new ArrayList<>();
+            for (String miss : misses) {
+                if (!take(getEntry(cacheRoot, files.get(miss)), now)) {
+                    remoteMisses.add(miss);
+                }
+            }
+            workspaceMiss = workspaceMiss && !take(getEntry(cacheRoot, workspaceEntry), now);
+            return new CacheLookup(files, remoteMisses, workspaceEntry, workspaceMiss, download);
+        }
+
+        /**
+         * Marks the entry as recently used and copies it into the hit directory.
+         *
+         * @return false when the cache has no such entry.
+         */
+        private boolean take(Path entry, FileTime now) throws IOException {
+            try {
+                Files.setLastModifiedTime(entry, now);
+                if (hitDirectory != null) {
+                    Path hit = Paths.get(hitDirectory).resolve(entry.getFileName());
+                    Files.createDirectories(hit.getParent());
+                    Files.copy(entry, hit, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return true;
+            } catch (NoSuchFileException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * @return the regular files below the root in a stable order, symbolic links aren't followed.
+         */
+        private static List<Path> listFiles(Path root) throws IOException {
+            List<Path> files = new ArrayList<>();
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                    String name = String.valueOf(directory.getFileName());
+                    return !directory.equals(root)
+                                    && (name.equals(".git") || name.equals(ShardedScan.SHARD_DIRECTORY_NAME))
+                            ? FileVisitResult.SKIP_SUBTREE
+                            : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile() && !file.equals(root.resolve(RESULTS_FILE_NAME))) {
+                        files.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            files.sort(Comparator.naturalOrder());
+            return files;
+        }
+
+        private static String computeChecksum(Path file) throws IOException {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IOException(ex);
+            }
+            try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+                IOUtils.copy(inputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+            }
+            return Util.toHexString(digest.digest());
+        }
+    }
+
+    /**
+     * Writes the issues of the files missing from the cache into their entries, files without issues get an empty
+     * entry, and uploads the new entries to the remote cache. When assembling, the results in the workspace are
+     * completed with the issues of the cached files from the copies in the hit directory, and with the issues of the
+     * workspace entry the scan of the missed files didn't report again.
+     */
+    private static final class Store extends MasterToSlaveFileCallable<RemoteResultCacheClient.Transfer> {
+        private static final long serialVersionUID = 1L;
+        private final String cacheDirectory;
+        private final String hitDirectory;
+        private final CacheLookup lookup;
+        private final long maxSizeBytes;
+        private final RemoteResultCacheClient remote;
+
+        /**
+         * @param hitDirectory the entries found by the lookup, null when the results aren't assembled.
+         */
+        Store(
+                String cacheDirectory,
+                @Nullable String hitDirectory,
+                CacheLookup lookup,
+                long maxSizeBytes,
+                @Nullable RemoteResultCacheClient remote) {
+            this.cacheDirectory = cacheDirectory;
+            this.hitDirectory = hitDirectory;
+            this.lookup = lookup;
+            this.maxSizeBytes = maxSizeBytes;
+            this.remote = remote;
+        }
+
+        @Override
+        public RemoteResultCacheClient.Transfer invoke(File workspace, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            Path root = workspace.toPath().toAbsolutePath().normalize();
+            Path cacheRoot = Paths.get(cacheDirectory);
+            Path resultsFile = root.resolve(RESULTS_FILE_NAME);
+            JSONObject results = Files.exists(resultsFile)
+                    ? IncrementalScan.toResults(JSONSerializer.toJSON(
+                            new String(Files.readAllBytes(resultsFile), StandardCharsets.UTF_8)))
+                    : null;
+            List<Path> storedEntries = new ArrayList<>();
+            // the issues without a file name or with a file outside the workspace.
+            JSONArray workspaceIssues = new JSONArray();
+            if (results != null) {
+                Map<String, JSONArray> issuesByFile = new HashMap<>();
+                for (Object issue : results.getJSONArray(ISSUES_KEY)) {
+                    if (issue instanceof JSONObject) {
+                        String fileName = IncrementalScan.relativize(
+                                ((JSONObject) issue).optString(FILE_NAME_KEY, ""), root.toString());
+                        if (lookup.getFiles().containsKey(fileName)) {
+                            issuesByFile.computeIfAbsent(fileName, file -> new JSONArray()).add(issue);
+                        } else {
+                            workspaceIssues.add(issue);
+                        }
+                    }
+                }
+                for (String miss : lookup.getMisses()) {
+                    Path entry = getEntry(cacheRoot, lookup.getFiles().get(miss));
+                    JSONArray issues = issuesByFile.getOrDefault(miss, new JSONArray());
+                    writeEntry(entry, issues.toString().getBytes(StandardCharsets.UTF_8));
+                    storedEntries.add(entry);
+                }
+            }
+            if (hitDirectory != null) {
+                Set<String> misses = new HashSet<>(lookup.getMisses());
+                // without results none of the missed files had issues, or nothing had to be analyzed.
+                JSONObject assembled = results != null ? results : IncrementalScan.toResults(new JSONArray());
+                JSONArray assembledIssues = assembled.getJSONArray(ISSUES_KEY);
+                for (Map.Entry<String, String> file : lookup.getFiles().entrySet()) {
+                    if (!misses.contains(file.getKey())) {
+                        Path hit = Paths.get(hitDirectory).resolve(file.getValue());
+                        for (Object issue : readEntry(hit, file.getKey())) {
+                            assembledIssues.add(issue);
+                        }
+                    }
+                }
+                // the lookup found the workspace entry, the results aren't assembled otherwise.
+                JSONArray keptIssues = new JSONArray();
+                for (Object issue : readIssues(Paths.get(hitDirectory).resolve(lookup.getWorkspaceEntry()))) {
+                    if (!workspaceIssues.contains(issue)) {
+                        keptIssues.add(issue);
+                    }
+                }
+                assembledIssues.addAll(keptIssues);
+                keptIssues.addAll(workspaceIssues);
+                workspaceIssues = keptIssues;
+                Files.write(resultsFile, assembled.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (results != null) {
+                Path entry = getEntry(cacheRoot, lookup.getWorkspaceEntry());
+                writeEntry(entry, workspaceIssues.toString().getBytes(StandardCharsets.UTF_8));
+                storedEntries.add(entry);
+            }
+            RemoteResultCacheClient.Transfer upload = remote != null ? remote.upload(storedEntries) : null;
+            evict(cacheRoot, maxSizeBytes);
+            return upload;
+        }
+
+        private static JSONArray readEntry(Path entry, String fileName) throws IOException {
+            JSONArray issues = readIssues(entry);
+            for (Object issue : issues) {
+                if (issue instanceof JSONObject) {
+                    ((JSONObject) issue).put(FILE_NAME_KEY, fileName);
+                }
+            }
+            return issues;
+        }
+
+        private static JSONArray readIssues(Path entry) throws IOException {
+            return JSONArray.fromObject(new String(Files.readAllBytes(entry), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Result;
+import hudson.remoting.VirtualChannel;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.sigma.SigmaBuildContext;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import jenkins.MasterToSlaveFileCallable;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Scans a large workspace with several Rapid Scan Static processes. The workspace is split into shards of about the
+ * same size in bytes, each process analyzes the paths of one shard and writes its results into its own directory.
+ * The results are merged into a single report in the workspace once all shards are done.
+ */
+class ShardedScan {
+    static final String SHARD_DIRECTORY_NAME = ".sigma-shards";
+    static final String RESULTS_FILE_NAME = "sigma-results.json";
+    static final String ISSUES_KEY = "issues";
+    static final String FILE_NAME_KEY = "fileName";
+    /**
+     * Directories are split until there are this many units per shard, so shards balance without listing every file.
+     */
+    private static final int UNITS_PER_SHARD = 4;
+    /**
+     * A shard runs in its directory below the shard root, its paths lead back to the workspace from there.
+     */
+    private static final String WORKSPACE_FROM_SHARD = "../../";
+
+    private final SigmaBuildContext sigmaBuildContext;
+    private final FilePath workingDirectory;
+
+    ShardedScan(SigmaBuildContext sigmaBuildContext, FilePath workingDirectory) {
+        this.sigmaBuildContext = sigmaBuildContext;
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * Splits the workspace on the node.
+     *
+     * @param shardCount the number of shards, the available processors of the node when zero.
+     */
+    ShardPlan partition(int shardCount) throws IOException, InterruptedException {
+        return workingDirectory.act(new Partition(shardCount));
+    }
+
+    /**
+     * @return the result of the shards, null when the paths of a shard don't fit on its command line and the
+     *     workspace has to be analyzed in one process.
+     */
+    @Nullable
+    Result execute(ArgumentListBuilder commandLine, ShardPlan plan) throws IOException, InterruptedException {
+        List<List<String>> shards = plan.getShards();
+        PrintStream logger = sigmaBuildContext.getListener().getLogger();
+        boolean unix = sigmaBuildContext.getLauncher().isUnix();
+        for (List<String> shard : shards) {
+            if (!CommandLineBuilder.fitsCommandLine(commandLine, getShardPaths(shard), unix)) {
+                logger.println("The paths of a shard don't fit on its command line, analyzing the workspace in one"
+                        + " process.");
+                return null;
+            }
+        }
+        int parallelism = Math.max(1, Math.min(shards.size(), plan.getProcessors()));
+        logger.println(
+                String.format("Analyzing the workspace in %d shards, %d at a time.", shards.size(), parallelism));
+        FilePath shardRoot = workingDirectory.child(SHARD_DIRECTORY_NAME);
+        shardRoot.deleteRecursive();
+        List<Callable<Integer>> shardScans = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            shardScans.add(() -> scan(commandLine, shardRoot.child(String.valueOf(shard)), shard, shards));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                parallelism, new NamingThreadFactory(new DaemonThreadFactory(), "Rapid Scan Static shard"));
+        Result result = Result.SUCCESS;
+        try {
+            for (Future<Integer> returnCode : executor.invokeAll(shardScans)) {
+                if (returnCode.get() != 0) {
+                    result = Result.FAILURE;
+                }
+            }
+        } catch (ExecutionException ex) {
+            throw new IOException("A Rapid Scan Static shard failed.", ex.getCause());
+        } finally {
+            // an interrupted build stops the shards still running.
+            executor.shutdownNow();
+        }
+        int issues = workingDirectory.act(new MergeResults());
+        logger.println(
+                String.format("Merged %d issues of %d shards into %s.", issues, shards.size(), RESULTS_FILE_NAME));
+        return result;
+    }
+
+    private int scan(ArgumentListBuilder commandLine, FilePath shardDirectory, int shard, List<List<String>> shards)
+            throws IOException, InterruptedException {
+        Launcher launcher = sigmaBuildContext.getLauncher();
+        List<String> paths = shards.get(shard);
+        ArgumentListBuilder shardCommand = commandLine.clone();
+        shardCommand.add(getShardPaths(paths));
+        if (!launcher.isUnix()) {
+            shardCommand = shardCommand.toWindowsCommand();
+        }
+        shardDirectory.mkdirs();
+        // each shard prints its output at once, the output of concurrent shards isn't interleaved in the build log.
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int returnCode = launcher.launch()
+                .cmds(shardCommand)
+                .envs(sigmaBuildContext.getEnvironment())
+                .pwd(shardDirectory)
+                .stdout(output)
+                .join();
+        PrintStream logger = sigmaBuildContext.getListener().getLogger();
+        synchronized (logger) {
+            logger.println(String.format(
+                    "Shard %d of %d with %d paths finished with exit code %d.",
+                    shard + 1, shards.size(), paths.size(), returnCode));
+            output.writeTo(logger);
+        }
+        return returnCode;
+    }
+
+    /**
+     * @return the paths relative to the directory the shard runs in, shorter than absolute paths on the command line.
+     */
+    static List<String> getShardPaths(List<String> paths) {
+        List<String> shardPaths = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            shardPaths.add(WORKSPACE_FROM_SHARD + path);
+        }
+        return shardPaths;
+    }
+
+    /**
+     * Assigns the units to the shards, the largest unit first to the shard with the fewest bytes.
+     *
+     * @return the shards with their paths sorted, without empty shards.
+     */
+    static List<List<String>> balance(Map<String, Long> units, int shardCount) {
+        List<Map.Entry<String, Long>> sortedUnits = new ArrayList<>(units.entrySet());
+        sortedUnits.sort(Map.Entry.<String, Long>comparingByValue()
+                .reversed()
+                .thenComparing(Map.Entry.<String, Long>comparingByKey()));
+        List<List<String>> shards = new ArrayList<>();
+        long[] shardBytes = new long[shardCount];
+        PriorityQueue<Integer> lightestShards = new PriorityQueue<>(
+                Comparator.<Integer>comparingLong(shard -> shardBytes[shard]).thenComparing(shard -> shard));
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+            lightestShards.add(i);
+        }
+        for (Map.Entry<String, Long> unit : sortedUnits) {
+            int shard = lightestShards.poll();
+            shards.get(shard).add(unit.getKey());
+            shardBytes[shard] += unit.getValue();
+            lightestShards.add(shard);
+        }
+        List<List<String>> nonEmptyShards = new ArrayList<>();
+        for (List<String> shard : shards) {
+            if (!shard.isEmpty()) {
+                Collections.sort(shard);
+                nonEmptyShards.add(shard);
+            }
+        }
+        return nonEmptyShards;
+    }
+
+    /**
+     * Merges the results of the shards. File names are made relative to the workspace, a shard reports them relative
+     * to its own directory.
+     */
+    static JSONObject mergeResults(Path workspace, List<Path> resultFiles) throws IOException {
+        JSONObject merged = new JSONObject();
+        JSONArray issues = new JSONArray();
+        for (Path resultFile : resultFiles) {
+            Object results = JSONSerializer.toJSON(new String(Files.readAllBytes(resultFile), StandardCharsets.UTF_8));
+            JSONArray shardIssues;
+            if (results instanceof JSONObject) {
+                JSONObject resultObject = (JSONObject) results;
+                shardIssues = resultObject.optJSONArray(ISSUES_KEY);
+                for (Object key : resultObject.keySet()) {
+                    if (!ISSUES_KEY.equals(key) && !merged.has((String) key)) {
+                        merged.put(key, resultObject.get(key));
+                    }
+                }
+            } else if (results instanceof JSONArray) {
+                shardIssues = (JSONArray) results;
+            } else {
+                continue;
+            }
+            if (shardIssues == null) {
+                continue;
+            }
+            for (Object issue : shardIssues) {
+                if (issue instanceof JSONObject) {
+                    relativizeFileName(workspace, resultFile.getParent(), (JSONObject) issue);
+                }
+                issues.add(issue);
+            }
+        }
+        merged.put(ISSUES_KEY, issues);
+        return merged;
+    }
+
+    private static void relativizeFileName(Path workspace, Path shardDirectory, JSONObject issue) {
+        String fileName = issue.optString(FILE_NAME_KEY, null);
+        if (fileName == null || fileName.isEmpty()) {
+            return;
+        }
+        Path file = shardDirectory.resolve(Paths.get(fileName)).normalize();
+        if (file.startsWith(workspace)) {
+            issue.put(FILE_NAME_KEY, workspace.relativize(file).toString().replace(File.separatorChar, '/'));
+        }
+    }
+
+    /**
+     * The shards of a workspace and the number of processors of the node.
+     */
+    static final class ShardPlan implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final List<List<String>> shards;
+        private final int processors;
+
+        ShardPlan(List<List<String>> shards, int processors) {
+            this.shards = shards;
+            this.processors = processors;
+        }
+
+        List<List<String>> getShards() {
+            return shards;
+        }
+
+        int getProcessors() {
+            return processors;
+        }
+    }
+
+    /**
+     * Measures the workspace on the node and splits it into units, directories larger than a fair share are replaced
+     * by their entries.
+     */
+    private static final class Partition extends MasterToSlaveFileCallable<ShardPlan> {
+        private static final long serialVersionUID = 1L;
+        private final int shardCount;
+
+        Partition(int shardCount) {
+            this.shardCount = shardCount;
+        }
+
+        @Override
+        public ShardPlan invoke(File workspace, VirtualChannel channel) throws IOException {
+            int processors = Runtime.getRuntime().availableProcessors();
+            int shards = shardCount > 0 ? shardCount : processors;
+            Path root = workspace.toPath().toAbsolutePath().normalize();
+            Map<Path, Long> sizes = measure(root);
+            Map<Path, Long> units = new HashMap<>();
+            long totalBytes = 0;
+            for (Path entry : listEntries(root)) {
+                units.put(entry, sizes.getOrDefault(entry, 0L));
+                totalBytes += units.get(entry);
+            }
+            long fairShare = totalBytes / shards;
+            Set<Path> leaves = new HashSet<>();
+            while (units.size() < shards * UNITS_PER_SHARD) {
+                Path largest = null;
+                for (Map.Entry<Path, Long> unit : units.entrySet()) {
+                    if (!leaves.contains(unit.getKey())
+                            && Files.isDirectory(unit.getKey())
+                            && unit.getValue() > fairShare
+                            && (largest == null || unit.getValue() > units.get(largest))) {
+                        largest = unit.getKey();
+                    }
+                }
+                if (largest == null) {
+                    break;
+                }
+                List<Path> entries = listEntries(largest);
+                if (entries.isEmpty()) {
+                    leaves.add(largest);
+                    continue;
+                }
+                units.remove(largest);
+                for (Path entry : entries) {
+                    units.put(entry, sizes.getOrDefault(entry, 0L));
+                }
+            }
+            Map<String, Long> relativeUnits = new HashMap<>();
+            for (Map.Entry<Path, Long> unit : units.entrySet()) {
+                relativeUnits.put(
+                        root.relativize(unit.getKey()).toString().replace(File.separatorChar, '/'), unit.getValue());
+            }
+            return new ShardPlan(balance(relativeUnits, shards), processors);
+        }
+
+        /**
+         * @return the bytes of every file and directory below the root, symbolic links aren't followed.
+         */
+        private static Map<Path, Long> measure(Path root) throws IOException {
+            Map<Path, Long> sizes = new HashMap<>();
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    for (Path path = file; path != null && path.startsWith(root); path = path.getParent()) {
+                        sizes.merge(path, attributes.size(), Long::sum);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return sizes;
+        }
+
+        private static List<Path> listEntries(Path directory) throws IOException {
+            try (Stream<Path> entries = Files.list(directory)) {
+                return entries.filter(Partition::isScanned).collect(Collectors.toList());
+            }
+        }
+
+        private static boolean isScanned(Path entry) {
+            String name = entry.getFileName().toString();
+            return !name.equals(SHARD_DIRECTORY_NAME) && !name.equals(".git") && !name.equals(RESULTS_FILE_NAME);
+        }
+    }
+
+    /**
+     * Writes the merged report into the workspace and removes the shard directories.
+     */
+    private static final class MergeResults extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Integer invoke(File workspace, VirtualChannel channel) throws IOException {
+            Path root = workspace.toPath().toAbsolutePath().normalize();
+            Path shardRoot = root.resolve(SHARD_DIRECTORY_NAME);
+            List<Path> resultFiles = Collections.emptyList();
+            if (Files.isDirectory(shardRoot)) {
+                try (Stream<Path> files = Files.walk(shardRoot)) {
+                    resultFiles = files.filter(file -> file.getFileName().toString().equals(RESULTS_FILE_NAME))
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+            }
+            JSONObject merged = mergeResults(root, resultFiles);
+            Files.write(root.resolve(RESULTS_FILE_NAME), merged.toString().getBytes(StandardCharsets.UTF_8));
+            Util.deleteRecursive(shardRoot.toFile());
+            return merged.getJSONArray(ISSUES_KEY).size();
+        }
+    }
+}
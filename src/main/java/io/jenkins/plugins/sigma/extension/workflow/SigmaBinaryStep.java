@@ -9,6 +9,8 @@ import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Proc;
+import hudson.Util;
 import hudson.model.AbstractProject;
 import hudson.model.Computer;
 import hudson.model.Item;
@@ -23,10 +25,15 @@ import hudson.util.ArgumentListBuilder;
 import hudson.util.ListBoxModel;
 import io.jenkins.plugins.sigma.Messages;
 import io.jenkins.plugins.sigma.SigmaBuildContext;
+import io.jenkins.plugins.sigma.extension.tool.InstalledVersions;
+import io.jenkins.plugins.sigma.extension.tool.ResolvedInstallations;
 import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import jenkins.model.Jenkins;
@@ -43,6 +50,13 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
     private String sigmaToolName;
     private String commandLine;
     private boolean ignorePolicies;
+    private boolean sharded;
+    private int shardCount;
+    private boolean incremental;
+    private boolean resultCache;
+    private boolean sharedResultCache;
+    private String failFastSeverity;
+    private int failFastCount = 1;
 
     @DataBoundConstructor
     public SigmaBinaryStep() {
@@ -76,6 +90,77 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
         this.ignorePolicies = ignorePolicies;
     }
 
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    @DataBoundSetter
+    public void setSharded(final boolean sharded) {
+        this.sharded = sharded;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @param shardCount the number of Rapid Scan Static processes of a sharded scan, the processors of the node when
+     *     zero.
+     */
+    @DataBoundSetter
+    public void setShardCount(final int shardCount) {
+        this.shardCount = Math.max(0, shardCount);
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    @DataBoundSetter
+    public void setIncremental(final boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isResultCache() {
+        return resultCache;
+    }
+
+    @DataBoundSetter
+    public void setResultCache(final boolean resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public boolean isSharedResultCache() {
+        return sharedResultCache;
+    }
+
+    @DataBoundSetter
+    public void setSharedResultCache(final boolean sharedResultCache) {
+        this.sharedResultCache = sharedResultCache;
+    }
+
+    public String getFailFastSeverity() {
+        return failFastSeverity;
+    }
+
+    /**
+     * @param failFastSeverity the name of the lowest severity that counts towards stopping the scan early, blank
+     *     never stops it.
+     */
+    @DataBoundSetter
+    public void setFailFastSeverity(final String failFastSeverity) {
+        this.failFastSeverity = Util.fixEmptyAndTrim(failFastSeverity);
+    }
+
+    public int getFailFastCount() {
+        return failFastCount;
+    }
+
+    @DataBoundSetter
+    public void setFailFastCount(final int failFastCount) {
+        this.failFastCount = Math.max(1, failFastCount);
+    }
+
     @Override
     public void perform(
             Run<?, ?> run, FilePath workspace, EnvVars environment, Launcher launcher, TaskListener listener)
@@ -87,7 +172,10 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
             }
             Computer computer = workspace.toComputer();
             Node node = (computer != null) ? computer.getNode() : null;
-            Optional<SigmaToolInstallation> sigmaToolInstallation = getSigma(node, environment, listener);
+            Optional<SigmaToolInstallation> sigmaToolInstallation = getSigma(run, node, environment, listener);
+            if (node != null && sigmaToolInstallation.isPresent()) {
+                recordVersion(run, node, environment, launcher, listener, sigmaToolInstallation.get());
+            }
             execute(run, workspace, environment, launcher, listener, sigmaToolInstallation.orElse(null));
         } catch (final InterruptedException e) {
             listener.error("[ERROR] Black Duck Rapid Scan Static thread was interrupted.", e);
@@ -113,7 +201,54 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
         CommandLineBuilder commandLineBuilder = new CommandLineBuilder(sigmaBuildContext, ignorePolicies, commandLine);
         ArgumentListBuilder argumentListBuilder = commandLineBuilder.buildArgumentList();
 
-        Result result = executeSigma(sigmaBuildContext, argumentListBuilder, workingDirectory);
+        Result result = null;
+        IncrementalScan incrementalScan = null;
+        // the incremental scan, the cache and the shards add the paths they analyze to a command line without any.
+        boolean pathArguments = CommandLineBuilder.hasPathArguments(argumentListBuilder);
+        if (pathArguments && (incremental || resultCache || sharedResultCache || sharded)) {
+            listener.getLogger()
+                    .println("The command line names the paths to analyze, they are analyzed in one process without"
+                            + " the incremental scan, the result cache or shards.");
+        }
+        boolean cached = (resultCache || sharedResultCache) && !pathArguments;
+        boolean incrementalScanned = incremental && !pathArguments;
+        String fingerprint = incrementalScanned || cached
+                ? IncrementalScan.fingerprint(run.getAction(SigmaVersionAction.class), argumentListBuilder)
+                : null;
+        if (incrementalScanned) {
+            incrementalScan = new IncrementalScan(run, sigmaBuildContext, workingDirectory);
+            result = incrementalScan.execute(argumentListBuilder, fingerprint);
+        }
+        ResultCache cache = cached ? createResultCache(run, sigmaBuildContext, workingDirectory, fingerprint) : null;
+        if (result == null && cache != null) {
+            result = cache.execute(argumentListBuilder);
+        }
+        boolean shardable = sharded && !pathArguments;
+        if (result == null && shardable && CommandLineBuilder.hasRelativeOptionPaths(argumentListBuilder)) {
+            // the shards run in their own directories, relative paths would resolve against those.
+            listener.getLogger()
+                    .println("An option of the command line has a relative path, analyzing the workspace in one"
+                            + " process.");
+            shardable = false;
+        }
+        if (result == null && shardable) {
+            ShardedScan shardedScan = new ShardedScan(sigmaBuildContext, workingDirectory);
+            ShardedScan.ShardPlan plan = shardedScan.partition(shardCount);
+            if (plan.getShards().size() > 1) {
+                result = shardedScan.execute(argumentListBuilder, plan);
+            } else {
+                listener.getLogger().println("The workspace is too small to shard, analyzing it in one process.");
+            }
+        }
+        if (result == null) {
+            result = executeSigma(sigmaBuildContext, argumentListBuilder, workingDirectory);
+        }
+        if (cache != null) {
+            cache.store(result);
+        }
+        if (incrementalScan != null) {
+            incrementalScan.record(result, fingerprint);
+        }
         run.setResult(result);
         return result == Result.SUCCESS;
     }
@@ -124,6 +259,41 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
         return new SigmaBuildContext(launcher, listener, environment, sigmaToolInstallation);
     }
 
+    /**
+     * @return the result cache of the node, shared through the controller when enabled, null when the node or the
+     *     version of the binary isn't known.
+     */
+    private ResultCache createResultCache(
+            Run<?, ?> run, SigmaBuildContext sigmaBuildContext, FilePath workingDirectory, String fingerprint)
+            throws IOException, InterruptedException {
+        Computer computer = workingDirectory.toComputer();
+        Node node = (computer != null) ? computer.getNode() : null;
+        FilePath nodeRoot = (node != null) ? node.getRootPath() : null;
+        if (nodeRoot == null || fingerprint == null) {
+            sigmaBuildContext
+                    .getListener()
+                    .getLogger()
+                    .println("The result cache can't be used until the Rapid Scan Static version is known.");
+            return null;
+        }
+        RemoteResultCacheClient remote = null;
+        if (sharedResultCache) {
+            remote = RemoteResultCache.get().createClient(run);
+            if (remote == null) {
+                sigmaBuildContext
+                        .getListener()
+                        .getLogger()
+                        .println("The Jenkins URL isn't configured, cached results aren't shared.");
+            } else if (!remote.isWritable()) {
+                sigmaBuildContext
+                        .getListener()
+                        .getLogger()
+                        .println("The build of a change request only reads the shared result cache.");
+            }
+        }
+        return new ResultCache(sigmaBuildContext, workingDirectory, nodeRoot, fingerprint, remote);
+    }
+
     private Result executeSigma(
             SigmaBuildContext sigmaBuildContext, ArgumentListBuilder commandLineBuilder, FilePath workingDirectory)
             throws IOException, InterruptedException {
@@ -133,14 +303,23 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
             commands = commandLineBuilder.toWindowsCommand();
         }
 
-        int returnCode = sigmaBuildContext
+        Launcher.ProcStarter procStarter = sigmaBuildContext
                 .getLauncher()
                 .launch()
                 .cmds(commands)
                 .envs(sigmaBuildContext.getEnvironment())
-                .pwd(workingDirectory)
-                .stdout(sigmaBuildContext.getListener())
-                .join();
+                .pwd(workingDirectory);
+        if (failFastSeverity != null && !ignorePolicies) {
+            return executeMonitored(sigmaBuildContext, procStarter);
+        }
+        if (failFastSeverity != null) {
+            // the findings don't fail a scan that ignores policies, so they don't stop it either.
+            sigmaBuildContext
+                    .getListener()
+                    .getLogger()
+                    .println("Policies are ignored, the scan isn't stopped early for its findings.");
+        }
+        int returnCode = procStarter.stdout(sigmaBuildContext.getListener()).join();
 
         if (returnCode != 0) {
             return Result.FAILURE;
@@ -148,7 +327,63 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
         return Result.SUCCESS;
     }
 
-    private Optional<SigmaToolInstallation> getSigma(Node node, EnvVars environment, TaskListener listener)
+    /**
+     * Runs the scan while its output is watched for findings, and stops it as soon as the findings reach the fail
+     * fast threshold.
+     */
+    private Result executeMonitored(SigmaBuildContext sigmaBuildContext, Launcher.ProcStarter procStarter)
+            throws IOException, InterruptedException {
+        PrintStream logger = sigmaBuildContext.getListener().getLogger();
+        FindingMonitor.Severity threshold = FindingMonitor.Severity.fromName(failFastSeverity);
+        if (threshold == null) {
+            throw new AbortException(FAILURE_MESSAGE + "Unknown fail fast severity " + failFastSeverity);
+        }
+        FindingMonitor monitor = new FindingMonitor(logger, StandardCharsets.UTF_8, threshold, failFastCount);
+        Proc proc = procStarter.stdout(monitor).start();
+        int returnCode;
+        try {
+            while (proc.isAlive()) {
+                if (monitor.await(1, TimeUnit.SECONDS)) {
+                    proc.kill();
+                    break;
+                }
+            }
+            returnCode = proc.join();
+        } finally {
+            monitor.close();
+        }
+        if (monitor.isTripped()) {
+            logger.println(Messages.workflow_failFast_stopped(monitor.getCount(), threshold.getDisplayName()));
+            return Result.FAILURE;
+        }
+        return returnCode != 0 ? Result.FAILURE : Result.SUCCESS;
+    }
+
+    /**
+     * Adds the probed version of the binary to the run, the binary is probed in the background when it wasn't yet.
+     */
+    private void recordVersion(
+            Run<?, ?> run,
+            Node node,
+            EnvVars environment,
+            Launcher launcher,
+            TaskListener listener,
+            SigmaToolInstallation sigmaToolInstallation) {
+        Optional<String> executablePath = sigmaToolInstallation.getExecutablePath(launcher, listener);
+        InstalledVersions.BinaryVersion binaryVersion =
+                executablePath.isPresent() ? InstalledVersions.get().get(node, executablePath.get()) : null;
+        if (binaryVersion == null || binaryVersion.getVersion() == null) {
+            return;
+        }
+        listener.getLogger().println("Rapid Scan Static version " + binaryVersion.getVersion());
+        SigmaVersionAction versionAction =
+                new SigmaVersionAction(binaryVersion.getVersion(), binaryVersion.getChecksum());
+        run.addOrReplaceAction(versionAction);
+        versionAction.buildEnvironment(run, environment);
+    }
+
+    private Optional<SigmaToolInstallation> getSigma(
+            Run<?, ?> run, Node node, EnvVars environment, TaskListener listener)
             throws IOException, InterruptedException {
         Predicate<SigmaToolInstallation> sigmaToolFilter =
                 (installation) -> sigmaToolName != null && sigmaToolName.equals(installation.getName());
@@ -159,10 +394,16 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
         SigmaToolInstallation currentTool = null;
         if (sigmaToolInstallation.isPresent()) {
             currentTool = sigmaToolInstallation.get();
-            if (node != null) {
-                currentTool = currentTool.forNode(node, listener);
+            if (node == null) {
+                currentTool = currentTool.forEnvironment(environment);
+            } else {
+                // join an installation a sigmaPrepare step started earlier in the build.
+                SigmaToolInstallation preparedTool =
+                        PreparedInstallations.get().join(run, node, currentTool.getName(), listener);
+                currentTool = preparedTool != null
+                        ? preparedTool.forEnvironment(environment)
+                        : ResolvedInstallations.get().resolve(currentTool, node, environment, listener);
             }
-            currentTool = currentTool.forEnvironment(environment);
         }
 
         return Optional.ofNullable(currentTool);
@@ -216,6 +457,16 @@ public class SigmaBinaryStep extends Builder implements SimpleBuildStep {
             return installations.length > 0;
         }
 
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillFailFastSeverityItems() {
+            ListBoxModel items = new ListBoxModel();
+            items.add(Messages.workflow_failFast_disabled(), "");
+            for (FindingMonitor.Severity severity : FindingMonitor.Severity.values()) {
+                items.add(severity.getDisplayName(), severity.name());
+            }
+            return items;
+        }
+
         @POST
         @SuppressWarnings("unused")
         public ListBoxModel doFillSigmaToolNameItems(@AncestorInPath Item item) {
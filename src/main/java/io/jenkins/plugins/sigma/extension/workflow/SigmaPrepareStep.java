@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.AbstractProject;
+import hudson.model.Computer;
+import hudson.model.Item;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.Builder;
+import hudson.util.ListBoxModel;
+import io.jenkins.plugins.sigma.Messages;
+import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
+import java.util.Arrays;
+import java.util.Optional;
+import javax.annotation.Nonnull;
+import jenkins.model.Jenkins;
+import jenkins.tasks.SimpleBuildStep;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Starts installing Rapid Scan Static on the node of the workspace and returns immediately, so the download overlaps
+ * with the checkout and the compilation. A later {@link SigmaBinaryStep} with the same tool joins the installation.
+ */
+public class SigmaPrepareStep extends Builder implements SimpleBuildStep {
+    private String sigmaToolName;
+
+    @DataBoundConstructor
+    public SigmaPrepareStep() {}
+
+    public String getSigmaToolName() {
+        return sigmaToolName;
+    }
+
+    @DataBoundSetter
+    public void setSigmaToolName(final String sigmaToolName) {
+        this.sigmaToolName = sigmaToolName;
+    }
+
+    @Override
+    public void perform(
+            Run<?, ?> run, FilePath workspace, EnvVars environment, Launcher launcher, TaskListener listener)
+            throws AbortException {
+        Optional<SigmaToolInstallation> installation = Arrays.stream(getBinaryStepDescriptor().getInstallations())
+                .filter(tool -> tool.getName().equals(sigmaToolName))
+                .findFirst();
+        if (!installation.isPresent()) {
+            throw new AbortException("No Rapid Scan Static installation named " + sigmaToolName + " is configured.");
+        }
+        Computer computer = workspace.toComputer();
+        Node node = (computer != null) ? computer.getNode() : null;
+        if (node == null) {
+            throw new AbortException("The node of the workspace is offline, Rapid Scan Static can't be prepared.");
+        }
+        listener.getLogger().println("Preparing Rapid Scan Static " + sigmaToolName + " in the background.");
+        PreparedInstallations.get().prepare(run, node, installation.get());
+    }
+
+    private static SigmaBinaryStep.DescriptorImpl getBinaryStepDescriptor() {
+        return Jenkins.get().getDescriptorByType(SigmaBinaryStep.DescriptorImpl.class);
+    }
+
+    @Extension
+    @Symbol("sigmaPrepare")
+    public static class DescriptorImpl extends BuildStepDescriptor<Builder> {
+        @Override
+        @Nonnull
+        public String getDisplayName() {
+            return Messages.workflow_prepare_displayName();
+        }
+
+        @Override
+        public boolean isApplicable(final Class<? extends AbstractProject> jobType) {
+            return true;
+        }
+
+        @SuppressWarnings("unused")
+        public boolean hasToolsConfigured() {
+            return getBinaryStepDescriptor().hasToolsConfigured();
+        }
+
+        @POST
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillSigmaToolNameItems(@AncestorInPath Item item) {
+            return getBinaryStepDescriptor().doFillSigmaToolNameItems(item);
+        }
+    }
+}
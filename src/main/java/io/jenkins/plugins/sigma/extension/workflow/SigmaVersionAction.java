@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import hudson.EnvVars;
+import hudson.model.EnvironmentContributingAction;
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+
+/**
+ * The Rapid Scan Static version a build ran, shown on the run page and set as build environment variables.
+ */
+public class SigmaVersionAction extends InvisibleAction implements EnvironmentContributingAction {
+    public static final String VERSION_VARIABLE = "SIGMA_VERSION";
+    public static final String CHECKSUM_VARIABLE = "SIGMA_SHA256";
+    private final String version;
+    private final String checksum;
+
+    public SigmaVersionAction(String version, String checksum) {
+        this.version = version;
+        this.checksum = checksum;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public void buildEnvironment(Run<?, ?> run, EnvVars environment) {
+        environment.put(VERSION_VARIABLE, version);
+        environment.put(CHECKSUM_VARIABLE, checksum);
+    }
+}
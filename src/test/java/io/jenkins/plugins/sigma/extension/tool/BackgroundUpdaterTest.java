@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.tools.InstallSourceProperty;
+import io.jenkins.plugins.sigma.utils.TestHttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class BackgroundUpdaterTest {
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testInstalledBinaryIsUsedWithoutWaiting() throws Exception {
+        File home = temporaryFolder.newFolder("home");
+        File binaryFile = new File(home, FileDownloadInstaller.getBinaryFileName());
+        FileUtils.writeStringToFile(binaryFile, "installed binary", StandardCharsets.UTF_8);
+        // nothing listens on this port, a download on the build path would fail the installation.
+        SigmaBinaryInstaller installer = createInstaller("http://127.0.0.1:1/sigma");
+
+        SigmaToolInstallation installation = createInstallation(installer, home);
+        FilePath installLocation = installer.performInstallation(installation, jenkinsRule.jenkins, TaskListener.NULL);
+        assertEquals(home.getAbsolutePath(), installLocation.getRemote());
+        assertEquals("installed binary", FileUtils.readFileToString(binaryFile, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFirstInstallationDownloadsOnBuildPath() throws Exception {
+        byte[] content = new byte[16 * 1024];
+        new Random(24).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            File home = temporaryFolder.newFolder("home");
+            SigmaBinaryInstaller installer = createInstaller(server.getUrl());
+            installer.performInstallation(createInstallation(installer, home), jenkinsRule.jenkins, TaskListener.NULL);
+
+            File binaryFile = new File(home, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+        }
+    }
+
+    @Test
+    public void testUpdateIsSwappedInBackground() throws Exception {
+        byte[] content = new byte[16 * 1024];
+        new Random(25).nextBytes(content);
+        byte[] updatedContent = Arrays.copyOf(content, content.length + 1);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            File home = temporaryFolder.newFolder("home");
+            FilePath installLocation = new FilePath(home);
+            SigmaBinaryInstaller installer = createInstaller(server.getUrl());
+            installer.installOnNode(jenkinsRule.jenkins, installLocation, TaskListener.NULL);
+            server.setContent(updatedContent);
+            server.setResponseDelay(500);
+
+            Future<?> update = BackgroundUpdater.get().schedule(installer, jenkinsRule.jenkins, installLocation);
+            assertNotNull(update);
+            // a second build while the update runs doesn't schedule another one.
+            assertNull(BackgroundUpdater.get().schedule(installer, jenkinsRule.jenkins, installLocation));
+            update.get();
+
+            File binaryFile = new File(home, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(updatedContent, FileUtils.readFileToByteArray(binaryFile));
+        }
+    }
+
+    private static SigmaBinaryInstaller createInstaller(String downloadUrl) {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("");
+        installer.setDownloadUrl(downloadUrl);
+        installer.setTimeout(1);
+        installer.setBackgroundUpdates(true);
+        return installer;
+    }
+
+    private static SigmaToolInstallation createInstallation(SigmaBinaryInstaller installer, File home)
+            throws IOException {
+        InstallSourceProperty installSource = new InstallSourceProperty(Collections.singletonList(installer));
+        return new SigmaToolInstallation(
+                "sigma-background", home.getAbsolutePath(), Collections.singletonList(installSource));
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class BandwidthThrottleTest {
+    @Test
+    public void testUnlimitedStreamIsNotWrapped() {
+        InputStream inputStream = new ByteArrayInputStream(new byte[0]);
+        assertSame(inputStream, new BandwidthThrottle(0).throttle(inputStream));
+    }
+
+    @Test
+    public void testReadRateIsLimited() throws IOException {
+        byte[] content = new byte[64 * 1024];
+        new Random(12).nextBytes(content);
+        BandwidthThrottle throttle = new BandwidthThrottle(128 * 1024);
+        long start = System.nanoTime();
+        try (InputStream inputStream = throttle.throttle(new ByteArrayInputStream(content))) {
+            assertArrayEquals(content, IOUtils.toByteArray(inputStream));
+        }
+        // only the time of the last read is not waited for, 64 KB at 128 KB/s take close to 500 ms.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 400);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import io.jenkins.plugins.sigma.utils.SigmaTestUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BinaryPatchTest {
+    private static final String TEST_DIRECTORY = "build/tmp/test/binary_patch_test";
+    private File testDirectory = new File(TEST_DIRECTORY);
+
+    @Before
+    public void initializeData() {
+        testDirectory.mkdirs();
+    }
+
+    @After
+    public void cleanupDirectories() {
+        FileUtils.deleteQuietly(testDirectory);
+    }
+
+    @Test
+    public void testApplyPatch() throws IOException {
+        byte[] oldContent = new byte[200 * 1024];
+        new Random(17).nextBytes(oldContent);
+        byte[] newContent = Arrays.copyOf(oldContent, oldContent.length + 1024);
+        newContent[4096] ^= 0x5A;
+        newContent[oldContent.length + 10] = 42;
+
+        Path newFile = applyPatch(oldContent, SigmaTestUtil.bsdiffPatch(oldContent, newContent));
+        assertArrayEquals(newContent, Files.readAllBytes(newFile));
+    }
+
+    @Test
+    public void testApplyPatchToShorterBinary() throws IOException {
+        byte[] oldContent = new byte[64 * 1024];
+        new Random(19).nextBytes(oldContent);
+        byte[] newContent = Arrays.copyOf(oldContent, 1000);
+
+        Path newFile = applyPatch(oldContent, SigmaTestUtil.bsdiffPatch(oldContent, newContent));
+        assertArrayEquals(newContent, Files.readAllBytes(newFile));
+    }
+
+    @Test
+    public void testChecksumOfPatchedBinary() throws IOException {
+        byte[] oldContent = "old binary".getBytes(StandardCharsets.UTF_8);
+        byte[] newContent = "new binary with more bytes".getBytes(StandardCharsets.UTF_8);
+        Path oldFile = Files.write(testDirectory.toPath().resolve("old"), oldContent);
+        Path patchFile = Files.write(
+                testDirectory.toPath().resolve("patch"), SigmaTestUtil.bsdiffPatch(oldContent, newContent));
+        String checksum = BinaryPatch.apply(oldFile, patchFile, testDirectory.toPath().resolve("new"));
+        assertEquals(SigmaTestUtil.sha256Hex(newContent), checksum);
+    }
+
+    @Test
+    public void testRejectsOtherFormats() throws IOException {
+        byte[] oldContent = "old binary".getBytes(StandardCharsets.UTF_8);
+        try {
+            applyPatch(oldContent, "not a patch".getBytes(StandardCharsets.UTF_8));
+            fail("Patch didn't throw an exception for a file in another format.");
+        } catch (IOException ex) {
+            assertEquals("The patch is not in the bsdiff format.", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testRejectsTruncatedPatch() {
+        byte[] oldContent = new byte[16 * 1024];
+        new Random(20).nextBytes(oldContent);
+        byte[] newContent = Arrays.copyOf(oldContent, oldContent.length + 16 * 1024);
+        new Random(21).nextBytes(newContent);
+        try {
+            byte[] patch = SigmaTestUtil.bsdiffPatch(oldContent, newContent);
+            applyPatch(oldContent, Arrays.copyOf(patch, patch.length - 100));
+            fail("Patch didn't throw an exception for a truncated file.");
+        } catch (IOException ex) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void testReadOffset() {
+        byte[] bytes = new byte[] {1, 2, 0, 0, 0, 0, 0, 0, 5, 0, 0, 0, 0, 0, 0, (byte) 0x80};
+        assertEquals(0x0201, BinaryPatch.readOffset(bytes, 0));
+        assertEquals(-5, BinaryPatch.readOffset(bytes, 8));
+    }
+
+    private Path applyPatch(byte[] oldContent, byte[] patch) throws IOException {
+        Path oldFile = Files.write(testDirectory.toPath().resolve("old"), oldContent);
+        Path patchFile = Files.write(testDirectory.toPath().resolve("patch"), patch);
+        Path newFile = testDirectory.toPath().resolve("new");
+        BinaryPatch.apply(oldFile, patchFile, newFile);
+        return newFile;
+    }
+}
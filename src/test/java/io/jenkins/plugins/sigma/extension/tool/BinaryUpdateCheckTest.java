@@ -12,6 +12,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -111,4 +112,54 @@ public class BinaryUpdateCheckTest {
         BinaryUpdateCheck updateCheck = new BinaryUpdateCheck(binaryUrlString, 1);
         assertFalse(updateCheck.isUpToDate(installedFrom, timestampPath, otherBinayFile));
     }
+
+    @Test
+    public void testCheckIntervalSkipsDownloadHost() throws IOException, InterruptedException {
+        FilePath homeFilePath = new FilePath(homeDirectory);
+        FilePath filePathToCheck = new FilePath(fileToCheck);
+        // nothing listens on this port, any request to the download host fails.
+        String unreachableUrl = "http://127.0.0.1:1/sigma";
+        FilePath installedFrom = homeFilePath.child(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME);
+        FilePath timestampPath = homeFilePath.child(FileDownloadInstaller.TIMESTAMP_FILE_NAME);
+        installedFrom.write(unreachableUrl, StandardCharsets.UTF_8.name());
+        timestampPath.touch(System.currentTimeMillis());
+
+        BinaryUpdateCheck updateCheck = new BinaryUpdateCheck(unreachableUrl, 1000, TimeUnit.MINUTES.toMillis(15));
+        updateCheck.recordCheck(timestampPath);
+        assertTrue(homeFilePath.child(BinaryUpdateCheck.LAST_CHECK_FILE_NAME).exists());
+        assertTrue(updateCheck.isUpToDate(installedFrom, timestampPath, filePathToCheck));
+    }
+
+    @Test(expected = IOException.class)
+    public void testExpiredCheckIntervalContactsDownloadHost() throws IOException, InterruptedException {
+        FilePath homeFilePath = new FilePath(homeDirectory);
+        FilePath filePathToCheck = new FilePath(fileToCheck);
+        String unreachableUrl = "http://127.0.0.1:1/sigma";
+        FilePath installedFrom = homeFilePath.child(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME);
+        FilePath timestampPath = homeFilePath.child(FileDownloadInstaller.TIMESTAMP_FILE_NAME);
+        installedFrom.write(unreachableUrl, StandardCharsets.UTF_8.name());
+        timestampPath.touch(System.currentTimeMillis());
+
+        BinaryUpdateCheck updateCheck = new BinaryUpdateCheck(unreachableUrl, 1000, TimeUnit.MINUTES.toMillis(15));
+        updateCheck.recordCheck(timestampPath);
+        homeFilePath
+                .child(BinaryUpdateCheck.LAST_CHECK_FILE_NAME)
+                .touch(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(16));
+        updateCheck.isUpToDate(installedFrom, timestampPath, filePathToCheck);
+    }
+
+    @Test
+    public void testSuccessfulCheckIsRecorded() throws IOException, InterruptedException {
+        FilePath homeFilePath = new FilePath(homeDirectory);
+        FilePath filePathToCheck = new FilePath(fileToCheck);
+        String binaryUrlString = filePathToCheck.toURI().toURL().toString();
+        FilePath installedFrom = homeFilePath.child(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME);
+        FilePath timestampPath = homeFilePath.child(FileDownloadInstaller.TIMESTAMP_FILE_NAME);
+        installedFrom.write(binaryUrlString, StandardCharsets.UTF_8.name());
+        timestampPath.touch(System.currentTimeMillis());
+
+        BinaryUpdateCheck updateCheck = new BinaryUpdateCheck(binaryUrlString, 1, TimeUnit.MINUTES.toMillis(15));
+        assertTrue(updateCheck.isUpToDate(installedFrom, timestampPath, filePathToCheck));
+        assertTrue(homeFilePath.child(BinaryUpdateCheck.LAST_CHECK_FILE_NAME).exists());
+    }
 }
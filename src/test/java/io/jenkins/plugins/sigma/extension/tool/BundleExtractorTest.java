@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+
+import hudson.Functions;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BundleExtractorTest {
+    private static final String TEST_DIRECTORY = "build/tmp/test/bundle_extractor_test";
+    private static final byte[] BINARY = "binary".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RULES = "rules".getBytes(StandardCharsets.UTF_8);
+    private File testDirectory = new File(TEST_DIRECTORY);
+
+    @Before
+    public void initializeData() {
+        testDirectory.mkdirs();
+    }
+
+    @After
+    public void cleanupDirectories() {
+        FileUtils.deleteQuietly(testDirectory);
+    }
+
+    @Test
+    public void testIsArchive() {
+        assertTrue(BundleExtractor.isArchive("https://example.com/sigma/sigma-linux.tar.gz"));
+        assertTrue(BundleExtractor.isArchive("https://example.com/sigma/sigma-linux.TGZ?version=1"));
+        assertTrue(BundleExtractor.isArchive("https://example.com/sigma/sigma-windows.zip"));
+        assertFalse(BundleExtractor.isArchive("https://example.com/sigma/sigma.gz"));
+        assertFalse(BundleExtractor.isArchive("https://example.com/download?file=sigma.zip"));
+        assertFalse(BundleExtractor.isArchive("not a url.zip"));
+    }
+
+    @Test
+    public void testExtractTarGzip() throws IOException {
+        byte[] archive = createTarGzip("bundle/bin/sigma", 0755, "bundle/rules/default.yaml");
+        Path target = testDirectory.toPath().resolve("tar");
+        String binaryPath = extract(archive, "https://example.com/sigma.tar.gz", target);
+
+        assertEquals("bundle/bin/sigma", binaryPath);
+        assertArrayEquals(BINARY, Files.readAllBytes(target.resolve(binaryPath)));
+        assertArrayEquals(RULES, Files.readAllBytes(target.resolve("bundle/rules/default.yaml")));
+        if (!Functions.isWindows()) {
+            assertTrue(Files.isExecutable(target.resolve(binaryPath)));
+            assertFalse(Files.isExecutable(target.resolve("bundle/rules/default.yaml")));
+        }
+    }
+
+    @Test
+    public void testExtractZip() throws IOException {
+        byte[] archive = createZip("sigma.exe", "rules/default.yaml");
+        Path target = testDirectory.toPath().resolve("zip");
+        String binaryPath = extract(archive, "https://example.com/sigma.zip", target, "sigma.exe");
+
+        assertEquals("sigma.exe", binaryPath);
+        assertArrayEquals(BINARY, Files.readAllBytes(target.resolve(binaryPath)));
+        assertArrayEquals(RULES, Files.readAllBytes(target.resolve("rules/default.yaml")));
+    }
+
+    @Test
+    public void testShallowestBinaryIsUsed() throws IOException {
+        byte[] archive = createTarGzip("bundle/tools/sigma", 0755, "sigma");
+        String binaryPath = extract(archive, "https://example.com/sigma.tgz", testDirectory.toPath());
+        assertEquals("sigma", binaryPath);
+    }
+
+    @Test
+    public void testRejectsEntriesOutsideOfBundle() throws IOException {
+        byte[] archive = createZip("sigma.exe", "../outside.yaml");
+        try {
+            extract(archive, "https://example.com/sigma.zip", testDirectory.toPath().resolve("zip"), "sigma.exe");
+            fail("Extract didn't throw an exception for an entry outside of the bundle.");
+        } catch (IOException ex) {
+            assertEquals("The archive entry ../outside.yaml is outside of the bundle.", ex.getMessage());
+        }
+        assertFalse(new File(testDirectory, "outside.yaml").exists());
+    }
+
+    @Test
+    public void testRejectsEntriesThroughArchiveLinks() throws IOException {
+        assumeFalse(Functions.isWindows());
+        // each link points inside of the bundle on its own, together d/l/x is the parent of the bundle.
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream outputStream = new TarArchiveOutputStream(new GZIPOutputStream(archive))) {
+            putTarEntry(outputStream, "sigma", 0755, BINARY);
+            putTarLink(outputStream, "d/l", "..");
+            putTarLink(outputStream, "d/l/x", "..");
+            putTarEntry(outputStream, "d/l/x/evil", 0644, RULES);
+        }
+        Path target = testDirectory.toPath().resolve("tar");
+        try {
+            extract(archive.toByteArray(), "https://example.com/sigma.tar.gz", target);
+            fail("Extract didn't throw an exception for an entry inside of an archive link.");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().startsWith("The archive entry d/l/x is inside of the archive link "));
+        }
+        assertFalse(new File(testDirectory, "x").exists());
+        assertFalse(new File(testDirectory, "evil").exists());
+    }
+
+    @Test
+    public void testMissingBinary() throws IOException {
+        byte[] archive = createTarGzip("bundle/bin/other", 0755, "bundle/rules/default.yaml");
+        try {
+            extract(archive, "https://example.com/sigma.tar.gz", testDirectory.toPath());
+            fail("Extract didn't throw an exception for a bundle without the binary.");
+        } catch (IOException ex) {
+            assertEquals("The archive doesn't contain sigma.", ex.getMessage());
+        }
+    }
+
+    private static String extract(byte[] archive, String downloadUrl, Path target) throws IOException {
+        return extract(archive, downloadUrl, target, "sigma");
+    }
+
+    private static String extract(byte[] archive, String downloadUrl, Path target, String binaryName)
+            throws IOException {
+        return BundleExtractor.extract(new ByteArrayInputStream(archive), downloadUrl, target, binaryName);
+    }
+
+    static byte[] createTarGzip(String executableName, int executableMode, String rulesName) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream outputStream = new TarArchiveOutputStream(new GZIPOutputStream(archive))) {
+            putTarEntry(outputStream, executableName, executableMode, BINARY);
+            putTarEntry(outputStream, rulesName, 0644, RULES);
+        }
+        return archive.toByteArray();
+    }
+
+    static byte[] createZip(String binaryName, String rulesName) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(archive)) {
+            putZipEntry(outputStream, binaryName, BINARY);
+            putZipEntry(outputStream, rulesName, RULES);
+        }
+        return archive.toByteArray();
+    }
+
+    private static void putTarEntry(TarArchiveOutputStream outputStream, String name, int mode, byte[] content)
+            throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setMode(mode);
+        entry.setSize(content.length);
+        outputStream.putArchiveEntry(entry);
+        outputStream.write(content);
+        outputStream.closeArchiveEntry();
+    }
+
+    private static void putTarLink(TarArchiveOutputStream outputStream, String name, String linkName)
+            throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name, TarConstants.LF_SYMLINK);
+        entry.setLinkName(linkName);
+        outputStream.putArchiveEntry(entry);
+        outputStream.closeArchiveEntry();
+    }
+
+    private static void putZipEntry(ZipArchiveOutputStream outputStream, String name, byte[] content)
+            throws IOException {
+        outputStream.putArchiveEntry(new ZipArchiveEntry(name));
+        outputStream.write(content);
+        outputStream.closeArchiveEntry();
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Semaphore;
+import org.junit.Test;
+
+public class DownloadLimiterTest {
+    @Test
+    public void testInstallationsShareSemaphore() {
+        Semaphore semaphore = DownloadLimiter.getSemaphore(3);
+        assertEquals(3, semaphore.availablePermits());
+        assertSame(semaphore, DownloadLimiter.getSemaphore(3));
+        assertTrue(semaphore.tryAcquire(2));
+
+        Semaphore raised = DownloadLimiter.getSemaphore(5);
+        assertSame(semaphore, raised);
+        assertEquals(3, raised.availablePermits());
+
+        // the installations in progress keep their permits, new ones wait until they are back under the limit.
+        DownloadLimiter.getSemaphore(1);
+        assertFalse(semaphore.tryAcquire());
+        semaphore.release(2);
+        assertEquals(1, semaphore.availablePermits());
+    }
+}
@@ -3,16 +3,28 @@
  */
 package io.jenkins.plugins.sigma.extension.tool;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import hudson.FilePath;
 import hudson.Functions;
 import hudson.model.TaskListener;
 import hudson.util.StreamTaskListener;
 import io.jenkins.plugins.sigma.utils.SigmaTestUtil;
+import io.jenkins.plugins.sigma.utils.TestHttpServer;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -91,4 +103,416 @@ public class FileDownloaderTest {
         FileDownloadInstaller installer = new FileDownloadInstaller(downloadUrl, downloadLocation, 1, log, updateCheck);
         installer.call();
     }
+
+    @Test
+    public void testResumePartialDownload() throws IOException, InterruptedException {
+        byte[] content = new byte[64 * 1024];
+        new Random(1).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            File partialFile = new File(binaryFile.getPath() + FileDownloadInstaller.PARTIAL_FILE_SUFFIX);
+            int partialLength = content.length / 2;
+            FileUtils.writeByteArrayToFile(partialFile, Arrays.copyOf(content, partialLength));
+            downloadLocation
+                    .child(FileDownloadInstaller.PARTIAL_VALIDATOR_FILE_NAME)
+                    .write(server.getETag(), StandardCharsets.UTF_8.name());
+
+            createInstaller(server.getUrl(), downloadLocation).call();
+            assertEquals("bytes=" + partialLength + "-", server.getRequests().get(0).getFirst("Range"));
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+            assertFalse(partialFile.exists());
+            assertTrue(downloadLocation.child(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME).exists());
+        }
+    }
+
+    @Test
+    public void testPartialDownloadOfChangedBinaryRestarts() throws IOException, InterruptedException {
+        byte[] content = new byte[64 * 1024];
+        new Random(2).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            File partialFile = new File(binaryFile.getPath() + FileDownloadInstaller.PARTIAL_FILE_SUFFIX);
+            FileUtils.writeByteArrayToFile(partialFile, new byte[1024]);
+            downloadLocation
+                    .child(FileDownloadInstaller.PARTIAL_VALIDATOR_FILE_NAME)
+                    .write("\"a-previous-release\"", StandardCharsets.UTF_8.name());
+
+            createInstaller(server.getUrl(), downloadLocation).call();
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+            assertFalse(partialFile.exists());
+        }
+    }
+
+    @Test
+    public void testFailedDownloadKeepsMarkers() throws IOException, InterruptedException {
+        FilePath downloadLocation = new FilePath(homeDirectory);
+        String missingUrl = new File(homeDirectory, "missing-binary").toURI().toURL().toString();
+        try {
+            createInstaller(missingUrl, downloadLocation).call();
+            fail("Installer didn't throw an exception for a missing binary.");
+        } catch (IOException ex) {
+            // expected, the binary does not exist.
+        }
+        assertFalse(downloadLocation.child(FileDownloadInstaller.getBinaryFileName()).exists());
+        assertFalse(downloadLocation.child(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME).exists());
+        assertFalse(downloadLocation.child(FileDownloadInstaller.TIMESTAMP_FILE_NAME).exists());
+    }
+
+    @Test
+    public void testChecksumVerified() throws IOException, InterruptedException {
+        byte[] content = new byte[16 * 1024];
+        new Random(3).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            String checksum = SigmaTestUtil.sha256Hex(content);
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+            installer.setExpectedChecksum(checksum.toUpperCase(Locale.ENGLISH));
+            installer.call();
+            assertArrayEquals(
+                    content,
+                    FileUtils.readFileToByteArray(new File(homeDirectory, FileDownloadInstaller.getBinaryFileName())));
+            assertEquals(checksum, downloadLocation.child(FileDownloadInstaller.SHA256_FILE_NAME).readToString());
+        }
+    }
+
+    @Test
+    public void testChecksumMismatchKeepsInstalledBinary() throws IOException, InterruptedException {
+        byte[] content = new byte[16 * 1024];
+        new Random(4).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            FileUtils.writeStringToFile(binaryFile, "installed binary", StandardCharsets.UTF_8);
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+            installer.setExpectedChecksum(
+                    SigmaTestUtil.sha256Hex("a different binary".getBytes(StandardCharsets.UTF_8)));
+            try {
+                installer.call();
+                fail("Installer didn't throw an exception for a checksum mismatch.");
+            } catch (IOException ex) {
+                assertTrue(ex.getMessage().contains("does not match the expected checksum"));
+            }
+            assertEquals("installed binary", FileUtils.readFileToString(binaryFile, StandardCharsets.UTF_8));
+            assertFalse(new File(binaryFile.getPath() + FileDownloadInstaller.PARTIAL_FILE_SUFFIX).exists());
+        }
+    }
+
+    @Test
+    public void testUpdateCheckResponseIsDownloaded() throws IOException, InterruptedException {
+        byte[] content = new byte[16 * 1024];
+        new Random(6).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            int timeout = sigmaTestUtil.getTimeoutInSeconds() * 1000;
+            TaskListener log = new StreamTaskListener(new ByteArrayOutputStream());
+            String downloadUrl = server.getUrl();
+            new FileDownloadInstaller(
+                            downloadUrl, downloadLocation, timeout, log, new BinaryUpdateCheck(downloadUrl, timeout))
+                    .call();
+            assertEquals(1, server.getRequests().size());
+            assertEquals(
+                    server.getETag(),
+                    FileUtils.readFileToString(
+                            new File(homeDirectory, BinaryUpdateCheck.ETAG_FILE_NAME), StandardCharsets.UTF_8));
+
+            byte[] updatedContent = Arrays.copyOf(content, content.length + 1);
+            server.setContent(updatedContent);
+            new FileDownloadInstaller(
+                            downloadUrl, downloadLocation, timeout, log, new BinaryUpdateCheck(downloadUrl, timeout))
+                    .call();
+            // the update check and the download of the new binary share one request.
+            assertEquals(2, server.getRequests().size());
+            assertNotNull(server.getRequests().get(1).getFirst("If-None-Match"));
+            assertArrayEquals(updatedContent, FileUtils.readFileToByteArray(binaryFile));
+
+            ByteArrayOutputStream upToDateOutput = new ByteArrayOutputStream();
+            new FileDownloadInstaller(
+                            downloadUrl,
+                            downloadLocation,
+                            timeout,
+                            new StreamTaskListener(upToDateOutput),
+                            new BinaryUpdateCheck(downloadUrl, timeout))
+                    .call();
+            assertEquals(3, server.getRequests().size());
+            assertTrue(upToDateOutput.toString().contains("Skipping tool installation"));
+        }
+    }
+
+    @Test
+    public void testGzipContentEncodingDecompressed() throws IOException, InterruptedException {
+        byte[] content = new byte[32 * 1024];
+        new Random(7).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            server.setGzipEncoding(true);
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(content));
+            installer.call();
+
+            assertEquals("gzip", server.getRequests().get(0).getFirst("Accept-Encoding"));
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+        }
+    }
+
+    @Test
+    public void testGzipFileDecompressed() throws IOException, InterruptedException {
+        byte[] content = new byte[32 * 1024];
+        new Random(8).nextBytes(content);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(content);
+        }
+        try (TestHttpServer server = new TestHttpServer(compressed.toByteArray())) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl() + ".gz", downloadLocation);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(content));
+            installer.call();
+
+            assertNull(server.getRequests().get(0).getFirst("Accept-Encoding"));
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+            assertFalse(new File(homeDirectory, FileDownloadInstaller.PARTIAL_VALIDATOR_FILE_NAME).exists());
+        }
+    }
+
+    @Test
+    public void testParallelRangeDownload() throws IOException, InterruptedException {
+        byte[] content = new byte[(int) (2.5 * ParallelRangeDownload.MINIMUM_RANGE_SIZE)];
+        new Random(9).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+            installer.setParallelDownloads(4);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(content));
+            installer.call();
+
+            // the probe serves the first range, the binary is large enough for two more.
+            assertEquals(3, server.getRequests().size());
+            assertNull(server.getRequests().get(0).getFirst("Range"));
+            for (int i = 1; i < 3; i++) {
+                assertNotNull(server.getRequests().get(i).getFirst("Range"));
+                assertEquals(server.getETag(), server.getRequests().get(i).getFirst("If-Range"));
+            }
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+            assertFalse(new File(binaryFile.getPath() + FileDownloadInstaller.PARTIAL_FILE_SUFFIX).exists());
+        }
+    }
+
+    @Test
+    public void testUpdateCheckResponseDownloadedInParallel() throws IOException, InterruptedException {
+        byte[] content = new byte[(int) (2.5 * ParallelRangeDownload.MINIMUM_RANGE_SIZE)];
+        new Random(14).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            server.setGzipEncoding(true);
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            int timeout = sigmaTestUtil.getTimeoutInSeconds() * 1000;
+            TaskListener log = new StreamTaskListener(new ByteArrayOutputStream());
+            String downloadUrl = server.getUrl();
+            FileDownloadInstaller installer = new FileDownloadInstaller(
+                    downloadUrl, downloadLocation, timeout, log, new BinaryUpdateCheck(downloadUrl, timeout));
+            installer.setParallelDownloads(4);
+            installer.call();
+            assertEquals(3, server.getRequests().size());
+
+            byte[] updatedContent = Arrays.copyOf(content, content.length + 1);
+            server.setContent(updatedContent);
+            installer = new FileDownloadInstaller(
+                    downloadUrl, downloadLocation, timeout, log, new BinaryUpdateCheck(downloadUrl, timeout));
+            installer.setParallelDownloads(4);
+            installer.call();
+
+            // the update check doesn't ask for gzip, so its response is the probe of the ranged download.
+            assertEquals(6, server.getRequests().size());
+            assertNotNull(server.getRequests().get(3).getFirst("If-None-Match"));
+            assertNull(server.getRequests().get(3).getFirst("Accept-Encoding"));
+            for (int i = 4; i < 6; i++) {
+                assertNotNull(server.getRequests().get(i).getFirst("Range"));
+            }
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(updatedContent, FileUtils.readFileToByteArray(binaryFile));
+        }
+    }
+
+    @Test
+    public void testParallelDownloadWithoutRangesFallsBack() throws IOException, InterruptedException {
+        byte[] content = new byte[(int) (2.5 * ParallelRangeDownload.MINIMUM_RANGE_SIZE)];
+        new Random(10).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            server.setRangesSupported(false);
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+            installer.setParallelDownloads(4);
+            installer.call();
+
+            assertEquals(1, server.getRequests().size());
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+        }
+    }
+
+    @Test
+    public void testVersionedInstallSwitchesBackWithoutDownload() throws IOException, InterruptedException {
+        byte[] content = new byte[16 * 1024];
+        new Random(11).nextBytes(content);
+        byte[] updatedContent = Arrays.copyOf(content, content.length + 1);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+            installer.setKeepVersions(2);
+            installer.call();
+            server.setContent(updatedContent);
+            installer.call();
+
+            VersionedStore store = new VersionedStore(homeDirectory.toPath());
+            String binaryFileName = FileDownloadInstaller.getBinaryFileName();
+            assertEquals(SigmaTestUtil.sha256Hex(updatedContent), store.getCurrent());
+            assertTrue(store.contains(SigmaTestUtil.sha256Hex(content), binaryFileName));
+            assertFalse(new File(homeDirectory, binaryFileName).exists());
+
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(content));
+            installer.call();
+            assertEquals(2, server.getRequests().size());
+            assertEquals(SigmaTestUtil.sha256Hex(content), store.getCurrent());
+            File currentBinary = store.getBinary(store.getCurrent(), binaryFileName).toFile();
+            assertArrayEquals(content, FileUtils.readFileToByteArray(currentBinary));
+        }
+    }
+
+    @Test
+    public void testInstallationReport() throws IOException, InterruptedException {
+        byte[] content = new byte[16 * 1024];
+        new Random(13).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            int timeout = sigmaTestUtil.getTimeoutInSeconds() * 1000;
+            String downloadUrl = server.getUrl();
+            TaskListener log = new StreamTaskListener(new ByteArrayOutputStream());
+            FileDownloadInstaller installer = new FileDownloadInstaller(
+                    downloadUrl, downloadLocation, timeout, log, new BinaryUpdateCheck(downloadUrl, timeout));
+
+            InstallationReport downloadReport = installer.call();
+            assertFalse(downloadReport.isUpToDate());
+            assertEquals(content.length, downloadReport.getDownloadedBytes());
+            assertTrue(downloadReport.getDownloadNanos() > 0);
+
+            InstallationReport upToDateReport = installer.call();
+            assertTrue(upToDateReport.isUpToDate());
+            assertTrue(upToDateReport.getUpdateCheckNanos() > 0);
+            assertEquals(0, upToDateReport.getDownloadedBytes());
+        }
+    }
+
+    @Test
+    public void testDeltaUpdate() throws IOException, InterruptedException {
+        byte[] content = new byte[64 * 1024];
+        new Random(22).nextBytes(content);
+        byte[] updatedContent = Arrays.copyOf(content, content.length + 1024);
+        updatedContent[100] ^= 0x5A;
+        try (TestHttpServer server = new TestHttpServer(content);
+                TestHttpServer patchServer =
+                        new TestHttpServer(SigmaTestUtil.bsdiffPatch(content, updatedContent))) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(content));
+            installer.call();
+            server.setContent(updatedContent);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(updatedContent));
+            installer.setDeltaUrl(patchServer.getUrl() + "/" + FileDownloadInstaller.DELTA_CHECKSUM_PLACEHOLDER);
+            InstallationReport report = installer.call();
+
+            assertEquals(1, server.getRequests().size());
+            assertEquals(1, patchServer.getRequests().size());
+            assertTrue(report.getDownloadedBytes() < content.length);
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(updatedContent, FileUtils.readFileToByteArray(binaryFile));
+            assertEquals(
+                    SigmaTestUtil.sha256Hex(updatedContent),
+                    downloadLocation.child(FileDownloadInstaller.SHA256_FILE_NAME).readToString());
+            assertFalse(new File(homeDirectory, FileDownloadInstaller.DELTA_FILE_NAME).exists());
+        }
+    }
+
+    @Test
+    public void testDeltaMismatchFallsBackToFullDownload() throws IOException, InterruptedException {
+        byte[] content = new byte[64 * 1024];
+        new Random(23).nextBytes(content);
+        byte[] updatedContent = Arrays.copyOf(content, content.length + 1024);
+        byte[] otherContent = Arrays.copyOf(content, content.length + 2048);
+        try (TestHttpServer server = new TestHttpServer(content);
+                TestHttpServer patchServer = new TestHttpServer(SigmaTestUtil.bsdiffPatch(content, otherContent))) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(content));
+            installer.call();
+            server.setContent(updatedContent);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(updatedContent));
+            installer.setDeltaUrl(patchServer.getUrl() + "/" + FileDownloadInstaller.DELTA_CHECKSUM_PLACEHOLDER);
+            installer.call();
+
+            assertEquals(2, server.getRequests().size());
+            assertEquals(1, patchServer.getRequests().size());
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(updatedContent, FileUtils.readFileToByteArray(binaryFile));
+        }
+    }
+
+    @Test
+    public void testBundleExtractedIntoStore() throws IOException, InterruptedException {
+        String binaryName = FileDownloadInstaller.getBinaryFileName();
+        byte[] archive =
+                BundleExtractorTest.createTarGzip("bundle/bin/" + binaryName, 0755, "bundle/rules/default.yaml");
+        try (TestHttpServer server = new TestHttpServer(archive)) {
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl() + ".tar.gz", downloadLocation);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(archive));
+            installer.call();
+
+            FilePath binary = VersionedStore.resolveCurrentBinary(downloadLocation, binaryName);
+            assertNotNull(binary);
+            assertEquals("binary", binary.readToString());
+            assertTrue(binary.getParent().getParent().child("rules").child("default.yaml").exists());
+            assertFalse(new File(homeDirectory, FileDownloadInstaller.BUNDLE_STAGING_DIRECTORY_NAME).exists());
+            File versionDirectory = new File(
+                    homeDirectory, VersionedStore.STORE_DIRECTORY_NAME + "/" + SigmaTestUtil.sha256Hex(archive));
+            File executablePath = new File(versionDirectory, VersionedStore.EXECUTABLE_PATH_FILE_NAME);
+            assertEquals(
+                    "bundle/bin/" + binaryName, FileUtils.readFileToString(executablePath, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testBundleLabelledWithGzipEncodingExtracted() throws IOException, InterruptedException {
+        String binaryName = FileDownloadInstaller.getBinaryFileName();
+        byte[] archive =
+                BundleExtractorTest.createTarGzip("bundle/bin/" + binaryName, 0755, "bundle/rules/default.yaml");
+        try (TestHttpServer server = new TestHttpServer(archive)) {
+            server.setContentEncodingLabel("gzip");
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            FileDownloadInstaller installer = createInstaller(server.getUrl() + ".tar.gz", downloadLocation);
+            installer.setExpectedChecksum(SigmaTestUtil.sha256Hex(archive));
+            installer.call();
+
+            assertNull(server.getRequests().get(0).getFirst("Accept-Encoding"));
+            FilePath binary = VersionedStore.resolveCurrentBinary(downloadLocation, binaryName);
+            assertNotNull(binary);
+            assertEquals("binary", binary.readToString());
+        }
+    }
+
+    private FileDownloadInstaller createInstaller(String downloadUrl, FilePath downloadLocation) {
+        int timeout = sigmaTestUtil.getTimeoutInSeconds() * 1000;
+        TaskListener log = new StreamTaskListener(new ByteArrayOutputStream());
+        BinaryUpdateCheck updateCheck = new BinaryUpdateCheck(downloadUrl, timeout) {
+            @Override
+            public boolean isUpToDate(final FilePath installedFrom, final FilePath timestampPath, FilePath binaryPath) {
+                return false;
+            }
+        };
+        return new FileDownloadInstaller(downloadUrl, downloadLocation, timeout, log, updateCheck);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstallation;
+import io.jenkins.plugins.sigma.utils.SigmaTestUtil;
+import io.jenkins.plugins.sigma.utils.TestHttpServer;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class FleetRolloutTest {
+    private static final String ROLLOUT_LABEL = "sigma-rollout";
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Test
+    public void testRolloutInstallsOnMatchingNodes() throws Exception {
+        byte[] content = new byte[16 * 1024];
+        new Random(26).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            SigmaToolInstallation installation = createInstallation(server.getUrl());
+            DumbSlave firstAgent = jenkinsRule.createOnlineSlave(jenkinsRule.jenkins.getLabel(ROLLOUT_LABEL));
+            DumbSlave secondAgent = jenkinsRule.createOnlineSlave(jenkinsRule.jenkins.getLabel(ROLLOUT_LABEL));
+            jenkinsRule.createOnlineSlave(jenkinsRule.jenkins.getLabel("other"));
+
+            FleetRollout.Rollout rollout = FleetRollout.get().start(installation);
+            assertTrue(rollout.awaitCompletion(1, TimeUnit.MINUTES));
+
+            assertEquals(2, rollout.getNodes().size());
+            assertEquals(2, rollout.getCount(FleetRollout.State.VERIFIED));
+            for (FleetRollout.NodeProgress node : rollout.getNodes()) {
+                assertEquals(SigmaTestUtil.sha256Hex(content), node.getVersion());
+            }
+            assertNotNull(FleetRollout.getInstaller(installation, firstAgent));
+            assertNotNull(FleetRollout.getInstaller(installation, secondAgent));
+            assertSame(rollout, FleetRollout.get().getRollout());
+        }
+    }
+
+    @Test
+    public void testFailedNodeIsReported() throws Exception {
+        // nothing listens on this port, the installation on the agent fails.
+        SigmaToolInstallation installation = createInstallation("http://127.0.0.1:1/sigma");
+        jenkinsRule.createOnlineSlave(jenkinsRule.jenkins.getLabel(ROLLOUT_LABEL));
+
+        FleetRollout.Rollout rollout = FleetRollout.get().start(installation);
+        assertTrue(rollout.awaitCompletion(1, TimeUnit.MINUTES));
+
+        assertEquals(1, rollout.getCount(FleetRollout.State.FAILED));
+        FleetRollout.NodeProgress node = rollout.getNodes().get(0);
+        assertNull(node.getVersion());
+        assertNotNull(node.getMessage());
+    }
+
+    @Test
+    public void testInstallerExceptionIsReported() throws Exception {
+        SigmaToolInstallation installation = createInstallation(new FailingInstaller());
+        jenkinsRule.createOnlineSlave(jenkinsRule.jenkins.getLabel(ROLLOUT_LABEL));
+
+        FleetRollout.Rollout rollout = FleetRollout.get().start(installation);
+        assertTrue(rollout.awaitCompletion(1, TimeUnit.MINUTES));
+
+        assertEquals(1, rollout.getCount(FleetRollout.State.FAILED));
+        assertEquals(FailingInstaller.MESSAGE, rollout.getNodes().get(0).getMessage());
+    }
+
+    private SigmaToolInstallation createInstallation(String downloadUrl) throws Exception {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller(ROLLOUT_LABEL);
+        installer.setDownloadUrl(downloadUrl);
+        installer.setTimeout(1);
+        return createInstallation(installer);
+    }
+
+    private SigmaToolInstallation createInstallation(SigmaBinaryInstaller installer) throws Exception {
+        InstallSourceProperty installSource = new InstallSourceProperty(Collections.singletonList(installer));
+        SigmaToolInstallation installation =
+                new SigmaToolInstallation("sigma-rollout", "", Collections.singletonList(installSource));
+        jenkinsRule
+                .jenkins
+                .getDescriptorByType(SigmaToolInstallation.DescriptorImpl.class)
+                .setInstallations(installation);
+        return installation;
+    }
+
+    /**
+     * An installer failing with an unchecked exception, like a remoting channel closing during the installation.
+     */
+    private static final class FailingInstaller extends SigmaBinaryInstaller {
+        private static final String MESSAGE = "The channel is closing down.";
+
+        private FailingInstaller() {
+            super(ROLLOUT_LABEL);
+        }
+
+        @Override
+        FilePath installNow(ToolInstallation tool, Node node, TaskListener log) {
+            throw new IllegalStateException(MESSAGE);
+        }
+    }
+}
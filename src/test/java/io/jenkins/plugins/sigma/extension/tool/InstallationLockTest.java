@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import io.jenkins.plugins.sigma.utils.TestHttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InstallationLockTest {
+    private static final String HOME_DIRECTORY = "build/tmp/test/installation_lock_test/home";
+    private static final int EXECUTORS_PER_NODE = 8;
+    private File homeDirectory = new File(HOME_DIRECTORY);
+
+    @Before
+    public void initializeData() {
+        homeDirectory.mkdirs();
+    }
+
+    @After
+    public void cleanupDirectories() {
+        FileUtils.deleteQuietly(homeDirectory);
+    }
+
+    @Test
+    public void testConcurrentInstallationsDownloadOnce() throws Exception {
+        byte[] content = new byte[256 * 1024];
+        new Random(5).nextBytes(content);
+        ExecutorService executors = Executors.newFixedThreadPool(EXECUTORS_PER_NODE);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            // keep the first download running while the other executors arrive.
+            server.setResponseDelay(500);
+            FilePath downloadLocation = new FilePath(homeDirectory);
+            CountDownLatch startSignal = new CountDownLatch(1);
+            List<Future<InstallationReport>> installations = new ArrayList<>();
+            for (int i = 0; i < EXECUTORS_PER_NODE; i++) {
+                FileDownloadInstaller installer = createInstaller(server.getUrl(), downloadLocation);
+                installations.add(executors.submit(() -> {
+                    startSignal.await();
+                    return installer.call();
+                }));
+            }
+            startSignal.countDown();
+            int downloads = 0;
+            for (Future<InstallationReport> installation : installations) {
+                InstallationReport report = installation.get(60, TimeUnit.SECONDS);
+                if (!report.isUpToDate()) {
+                    downloads++;
+                    assertEquals(content.length, report.getDownloadedBytes());
+                }
+            }
+
+            // the executors that waited report the binary up to date, so the node picks up one installation.
+            assertEquals(1, downloads);
+            long unconditionalRequests = server.getRequests().stream()
+                    .filter(headers -> headers.getFirst("If-None-Match") == null)
+                    .count();
+            assertEquals(1, unconditionalRequests);
+            File binaryFile = new File(homeDirectory, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+            assertTrue(new File(homeDirectory, InstallationLock.LOCK_FILE_NAME).exists());
+        } finally {
+            executors.shutdownNow();
+        }
+    }
+
+    private FileDownloadInstaller createInstaller(String downloadUrl, FilePath downloadLocation) {
+        TaskListener log = new StreamTaskListener(new ByteArrayOutputStream());
+        BinaryUpdateCheck updateCheck = new BinaryUpdateCheck(downloadUrl, 1000);
+        return new FileDownloadInstaller(downloadUrl, downloadLocation, 1000, log, updateCheck);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class InstallationMetricsTest {
+    @Test
+    public void testInstallationsRecordedPerNode() {
+        InstallationMetrics metrics = new InstallationMetrics();
+        InstallationReport download = new InstallationReport();
+        download.setUpdateCheckNanos(TimeUnit.MILLISECONDS.toNanos(20));
+        download.setDownload(4000, TimeUnit.SECONDS.toNanos(2));
+        InstallationReport upToDate = new InstallationReport();
+        upToDate.setUpdateCheckNanos(TimeUnit.MILLISECONDS.toNanos(40));
+        upToDate.setUpToDate(true);
+        // an executor that waited for the installation in progress keeps the binary without a check.
+        InstallationReport waited = new InstallationReport();
+        waited.setUpToDate(true);
+
+        metrics.recordInstallation("agent-1", download, TimeUnit.SECONDS.toNanos(3));
+        metrics.recordInstallation("agent-1", upToDate, TimeUnit.MILLISECONDS.toNanos(50));
+        metrics.recordInstallation("agent-2", waited, TimeUnit.SECONDS.toNanos(1));
+
+        InstallationMetrics.Summary total = metrics.getTotal();
+        assertEquals(3, total.getInstallations().getCount());
+        assertEquals(3000, total.getInstallations().getMaxMillis());
+        assertEquals(2, total.getUpdateChecks().getCount());
+        assertEquals(30, total.getUpdateChecks().getMeanMillis());
+        assertEquals(2, total.getSkippedInstallations());
+        assertEquals(4000, total.getDownloadedBytes());
+        assertEquals(2000, total.getDownloadThroughput());
+
+        InstallationMetrics.Summary agent = metrics.getNode("agent-1");
+        assertEquals(2, agent.getInstallations().getCount());
+        assertEquals(50, agent.getInstallations().getLastMillis());
+        assertEquals(1, metrics.getNode("agent-2").getInstallations().getCount());
+        assertEquals(0, metrics.getNode("agent-2").getDownloads().getCount());
+        assertNull(metrics.getNode("agent-3"));
+    }
+
+    @Test
+    public void testResolutionsRecorded() {
+        InstallationMetrics metrics = new InstallationMetrics();
+        metrics.recordResolution(TimeUnit.MILLISECONDS.toNanos(4));
+        metrics.recordResolution(TimeUnit.MILLISECONDS.toNanos(8));
+        assertEquals(2, metrics.getResolutions().getCount());
+        assertEquals(6, metrics.getResolutions().getMeanMillis());
+        assertEquals(8, metrics.getResolutions().getMaxMillis());
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import hudson.slaves.DumbSlave;
+import hudson.tools.InstallSourceProperty;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class InstallationPrewarmerTest {
+    private static final String PREWARM_LABEL = "sigma-prewarm";
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Test
+    public void testPrewarmInstallationsMatchLabel() throws Exception {
+        SigmaToolInstallation prewarmed = createInstallation("sigma-prewarmed", true);
+        SigmaToolInstallation lazy = createInstallation("sigma-lazy", false);
+        jenkinsRule
+                .jenkins
+                .getDescriptorByType(SigmaToolInstallation.DescriptorImpl.class)
+                .setInstallations(prewarmed, lazy);
+        DumbSlave matchingAgent = jenkinsRule.createSlave(PREWARM_LABEL, null);
+        DumbSlave otherAgent = jenkinsRule.createSlave("other", null);
+
+        List<SigmaToolInstallation> installations = InstallationPrewarmer.getPrewarmInstallations(matchingAgent);
+        assertEquals(1, installations.size());
+        assertEquals("sigma-prewarmed", installations.get(0).getName());
+        assertTrue(InstallationPrewarmer.getPrewarmInstallations(otherAgent).isEmpty());
+    }
+
+    private static SigmaToolInstallation createInstallation(String name, boolean prewarm) throws Exception {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller(PREWARM_LABEL);
+        // nothing listens on this port, pre-warming the test agents fails quietly in the background.
+        installer.setDownloadUrl("http://127.0.0.1:1/sigma");
+        installer.setTimeout(1);
+        installer.setPrewarm(prewarm);
+        InstallSourceProperty installSource = new InstallSourceProperty(Collections.singletonList(installer));
+        return new SigmaToolInstallation(name, "", Collections.singletonList(installSource));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeFalse;
+
+import hudson.Functions;
+import io.jenkins.plugins.sigma.utils.SigmaTestUtil;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class InstalledVersionsTest {
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void requireShell() {
+        // the test binaries are shell scripts.
+        assumeFalse(Functions.isWindows());
+    }
+
+    @Test
+    public void testVersionIsProbedOnce() throws Exception {
+        File home = temporaryFolder.newFolder("home");
+        String script = "#!/bin/sh\necho\necho 'sigma version 1.2.3'\n";
+        File binary = createBinary(home, script);
+        String executablePath = binary.getAbsolutePath();
+
+        // the build doesn't wait for the probe.
+        assertNull(InstalledVersions.get().get(jenkinsRule.jenkins, executablePath));
+        awaitProbe(executablePath);
+
+        InstalledVersions.BinaryVersion binaryVersion =
+                InstalledVersions.get().get(jenkinsRule.jenkins, executablePath);
+        assertNotNull(binaryVersion);
+        String checksum = SigmaTestUtil.sha256Hex(script.getBytes(StandardCharsets.UTF_8));
+        assertEquals(checksum, binaryVersion.getChecksum());
+        assertEquals("sigma version 1.2.3", binaryVersion.getVersion());
+        assertEquals("sigma version 1.2.3", InstalledVersions.get().getVersion(checksum));
+        assertEquals(
+                Arrays.asList(checksum, "sigma version 1.2.3"),
+                Files.readAllLines(new File(home, InstalledVersions.VERSION_FILE_NAME).toPath()));
+    }
+
+    @Test
+    public void testVersionFileOfSameBinaryIsUsed() throws Exception {
+        File home = temporaryFolder.newFolder("home");
+        String script = "#!/bin/sh\nexit 1\n";
+        File binary = createBinary(home, script);
+        String checksum = SigmaTestUtil.sha256Hex(script.getBytes(StandardCharsets.UTF_8));
+        FileUtils.writeStringToFile(
+                new File(home, InstalledVersions.VERSION_FILE_NAME),
+                checksum + "\nsigma version 2.0.0\n",
+                StandardCharsets.UTF_8);
+
+        awaitProbe(binary.getAbsolutePath());
+        InstalledVersions.BinaryVersion binaryVersion =
+                InstalledVersions.get().get(jenkinsRule.jenkins, binary.getAbsolutePath());
+        assertNotNull(binaryVersion);
+        assertEquals("sigma version 2.0.0", binaryVersion.getVersion());
+    }
+
+    @Test
+    public void testFailingBinaryHasNoVersion() throws Exception {
+        File home = temporaryFolder.newFolder("home");
+        File binary = createBinary(home, "#!/bin/sh\nexit 1\n");
+
+        awaitProbe(binary.getAbsolutePath());
+        InstalledVersions.BinaryVersion binaryVersion =
+                InstalledVersions.get().get(jenkinsRule.jenkins, binary.getAbsolutePath());
+        assertNotNull(binaryVersion);
+        assertNull(binaryVersion.getVersion());
+    }
+
+    private void awaitProbe(String executablePath) throws Exception {
+        // a probe scheduled by a build may still run, the next one starts after it.
+        Future<?> probe;
+        while ((probe = InstalledVersions.get().schedule(jenkinsRule.jenkins, executablePath)) == null) {
+            Thread.sleep(10);
+        }
+        probe.get();
+    }
+
+    private static File createBinary(File home, String script) throws Exception {
+        File binary = new File(home, SigmaToolInstallation.UNIX_SIGMA_COMMAND);
+        FileUtils.writeStringToFile(binary, script, StandardCharsets.UTF_8);
+        binary.setExecutable(true);
+        return binary;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.EnvVars;
+import hudson.Functions;
+import hudson.model.TaskListener;
+import hudson.tools.InstallSourceProperty;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class ResolvedInstallationsTest {
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFixedHomeIsResolvedOnce() throws Exception {
+        File home = temporaryFolder.newFolder("home");
+        File binaryFile = createBinary(home);
+        SigmaToolInstallation installation =
+                new SigmaToolInstallation("sigma-fixed", home.getAbsolutePath(), Collections.emptyList());
+        configure(installation);
+
+        assertEquals(Optional.of(binaryFile.getAbsolutePath()), resolveExecutable(installation));
+        // the second build doesn't check the node, it finds the cached resolution.
+        assertTrue(binaryFile.delete());
+        assertEquals(Optional.of(binaryFile.getAbsolutePath()), resolveExecutable(installation));
+
+        ResolvedInstallations.get().invalidateAll();
+        assertFalse(resolveExecutable(installation).isPresent());
+    }
+
+    @Test
+    public void testEnvironmentSpecificHome() throws Exception {
+        File firstHome = temporaryFolder.newFolder("first");
+        File secondHome = temporaryFolder.newFolder("second");
+        File firstBinary = createBinary(firstHome);
+        File secondBinary = createBinary(secondHome);
+        String home = temporaryFolder.getRoot().getAbsolutePath() + File.separator + "${SIGMA_HOME}";
+        SigmaToolInstallation installation = new SigmaToolInstallation("sigma-env", home, Collections.emptyList());
+        configure(installation);
+
+        assertEquals(Optional.of(firstBinary.getAbsolutePath()), resolveExecutable(installation, "first"));
+        assertEquals(Optional.of(secondBinary.getAbsolutePath()), resolveExecutable(installation, "second"));
+    }
+
+    @Test
+    public void testInstallerCheckIntervalLimitsCaching() throws Exception {
+        File home = temporaryFolder.newFolder("home");
+        File binaryFile = createBinary(home);
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("");
+        installer.setDownloadUrl("http://127.0.0.1:1/sigma");
+        installer.setTimeout(1);
+        installer.setBackgroundUpdates(true);
+        InstallSourceProperty installSource = new InstallSourceProperty(Collections.singletonList(installer));
+        SigmaToolInstallation installation = new SigmaToolInstallation(
+                "sigma-installed", home.getAbsolutePath(), Collections.singletonList(installSource));
+        configure(installation);
+
+        assertEquals(0, ResolvedInstallations.getTimeToLiveMillis(installation, jenkinsRule.jenkins));
+        assertEquals(Optional.of(binaryFile.getAbsolutePath()), resolveExecutable(installation));
+
+        installer.setCheckInterval(5);
+        assertEquals(5 * 60 * 1000, ResolvedInstallations.getTimeToLiveMillis(installation, jenkinsRule.jenkins));
+    }
+
+    private void configure(SigmaToolInstallation installation) {
+        jenkinsRule
+                .jenkins
+                .getDescriptorByType(SigmaToolInstallation.DescriptorImpl.class)
+                .setInstallations(installation);
+    }
+
+    private Optional<String> resolveExecutable(SigmaToolInstallation installation) throws Exception {
+        return resolveExecutable(installation, "home");
+    }
+
+    private Optional<String> resolveExecutable(SigmaToolInstallation installation, String sigmaHome)
+            throws Exception {
+        EnvVars environment = new EnvVars("SIGMA_HOME", sigmaHome);
+        SigmaToolInstallation resolved = ResolvedInstallations.get()
+                .resolve(installation, jenkinsRule.jenkins, environment, TaskListener.NULL);
+        return resolved.getExecutablePath(jenkinsRule.createLocalLauncher(), TaskListener.NULL);
+    }
+
+    private static File createBinary(File home) throws Exception {
+        String binaryName = Functions.isWindows()
+                ? SigmaToolInstallation.WINDOWS_SIGMA_COMMAND
+                : SigmaToolInstallation.UNIX_SIGMA_COMMAND;
+        File binaryFile = new File(home, binaryName);
+        FileUtils.writeStringToFile(binaryFile, "binary", StandardCharsets.UTF_8);
+        return binaryFile;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import io.jenkins.plugins.sigma.utils.SigmaTestUtil;
+import io.jenkins.plugins.sigma.utils.TestHttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedBinaryCacheTest {
+    private static final String TEST_DIRECTORY = "build/tmp/test/shared_binary_cache_test";
+    private static final int AGENTS_PER_HOST = 8;
+    private File testDirectory = new File(TEST_DIRECTORY);
+    private File sharedDirectory = new File(testDirectory, "shared");
+    private SigmaTestUtil sigmaTestUtil = new SigmaTestUtil();
+
+    @Before
+    public void initializeData() throws IOException {
+        sigmaTestUtil.loadProperties();
+        sharedDirectory.mkdirs();
+    }
+
+    @After
+    public void cleanupDirectories() {
+        FileUtils.deleteQuietly(testDirectory);
+    }
+
+    @Test
+    public void testAgentsShareOneDownload() throws IOException {
+        byte[] content = new byte[16 * 1024];
+        new Random(14).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            File firstHome = new File(testDirectory, "first");
+            File secondHome = new File(testDirectory, "second");
+            InstallationReport firstReport = createInstaller(server.getUrl(), firstHome).call();
+            InstallationReport secondReport = createInstaller(server.getUrl(), secondHome).call();
+
+            // the second agent finds the cache entry up to date.
+            assertEquals(content.length, firstReport.getDownloadedBytes());
+            assertEquals(0, secondReport.getDownloadedBytes());
+            String checksum = SigmaTestUtil.sha256Hex(content);
+            String binaryName = FileDownloadInstaller.getBinaryFileName();
+            SharedBinaryCache sharedCache = new SharedBinaryCache(sharedDirectory, server.getUrl());
+            assertTrue(Files.exists(sharedCache.getBinary(checksum, binaryName)));
+            for (File home : new File[] {firstHome, secondHome}) {
+                assertArrayEquals(content, FileUtils.readFileToByteArray(new File(home, binaryName)));
+                assertEquals(
+                        checksum,
+                        FileUtils.readFileToString(
+                                new File(home, FileDownloadInstaller.SHA256_FILE_NAME), StandardCharsets.UTF_8));
+                assertFalse(new File(home, binaryName + FileDownloadInstaller.PARTIAL_FILE_SUFFIX).exists());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentAgentsAddChecksum() throws Exception {
+        byte[] content = new byte[16 * 1024];
+        new Random(17).nextBytes(content);
+        ExecutorService agents = Executors.newFixedThreadPool(AGENTS_PER_HOST);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            CountDownLatch startSignal = new CountDownLatch(1);
+            List<Future<InstallationReport>> installations = new ArrayList<>();
+            for (int i = 0; i < AGENTS_PER_HOST; i++) {
+                File home = new File(testDirectory, "agent" + i);
+                FileDownloadInstaller installer = createInstaller(server.getUrl(), home);
+                installations.add(agents.submit(() -> {
+                    startSignal.await();
+                    return installer.call();
+                }));
+            }
+            startSignal.countDown();
+            for (Future<InstallationReport> installation : installations) {
+                installation.get(60, TimeUnit.SECONDS);
+            }
+
+            String binaryName = FileDownloadInstaller.getBinaryFileName();
+            Path binary = new SharedBinaryCache(sharedDirectory, server.getUrl())
+                    .getBinary(SigmaTestUtil.sha256Hex(content), binaryName);
+            assertArrayEquals(content, Files.readAllBytes(binary));
+            try (Stream<Path> checksumEntry = Files.list(binary.getParent())) {
+                assertEquals(1, checksumEntry.count());
+            }
+            for (int i = 0; i < AGENTS_PER_HOST; i++) {
+                File home = new File(testDirectory, "agent" + i);
+                assertArrayEquals(content, FileUtils.readFileToByteArray(new File(home, binaryName)));
+            }
+        } finally {
+            agents.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCachedChecksumSkipsDownloadHost() throws IOException {
+        byte[] content = new byte[16 * 1024];
+        new Random(15).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            String checksum = SigmaTestUtil.sha256Hex(content);
+            FileDownloadInstaller firstInstaller = createInstaller(server.getUrl(), new File(testDirectory, "first"));
+            firstInstaller.setExpectedChecksum(checksum);
+            firstInstaller.call();
+            int requests = server.getRequests().size();
+
+            File secondHome = new File(testDirectory, "second");
+            FileDownloadInstaller secondInstaller = createInstaller(server.getUrl(), secondHome);
+            secondInstaller.setExpectedChecksum(checksum);
+            secondInstaller.call();
+            assertEquals(requests, server.getRequests().size());
+            File binaryFile = new File(secondHome, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+
+            InstallationReport report = secondInstaller.call();
+            assertTrue(report.isUpToDate());
+            assertEquals(requests, server.getRequests().size());
+        }
+    }
+
+    @Test
+    public void testMissingSharedDirectoryDownloadsIntoHome() throws IOException {
+        byte[] content = new byte[16 * 1024];
+        new Random(16).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            File home = new File(testDirectory, "home");
+            FileDownloadInstaller installer = createInstaller(server.getUrl(), home);
+            installer.setSharedCachePath(new File(testDirectory, "missing").getPath());
+            installer.call();
+
+            File binaryFile = new File(home, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+            assertFalse(new File(testDirectory, "missing").exists());
+        }
+    }
+
+    @Test
+    public void testLinkReplacesTarget() throws IOException {
+        Path source = testDirectory.toPath().resolve("source");
+        Path target = testDirectory.toPath().resolve("target");
+        Files.write(source, "binary".getBytes(StandardCharsets.UTF_8));
+        Files.write(target, "stale".getBytes(StandardCharsets.UTF_8));
+        SharedBinaryCache.link(source, target);
+        assertEquals("binary", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+    }
+
+    private FileDownloadInstaller createInstaller(String downloadUrl, File home) {
+        int timeout = sigmaTestUtil.getTimeoutInSeconds() * 1000;
+        TaskListener log = new StreamTaskListener(new ByteArrayOutputStream());
+        FileDownloadInstaller installer = new FileDownloadInstaller(
+                downloadUrl, new FilePath(home), timeout, log, new BinaryUpdateCheck(downloadUrl, timeout));
+        installer.setSharedCachePath(sharedDirectory.getPath());
+        return installer;
+    }
+}
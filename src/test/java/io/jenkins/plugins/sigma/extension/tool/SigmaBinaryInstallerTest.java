@@ -5,6 +5,7 @@ package io.jenkins.plugins.sigma.extension.tool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -12,10 +13,12 @@ import hudson.AbortException;
 import hudson.FilePath;
 import hudson.model.Node;
 import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
 import hudson.tasks.Maven;
 import hudson.util.FormValidation;
 import hudson.util.StreamTaskListener;
 import io.jenkins.plugins.sigma.Messages;
+import io.jenkins.plugins.sigma.utils.SigmaTestUtil;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
@@ -45,6 +48,84 @@ public class SigmaBinaryInstallerTest {
         assertEquals(timeout, installer.getTimeout());
     }
 
+    @Test
+    public void testCheckInterval() {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("sigma-test");
+        assertEquals(0, installer.getCheckInterval());
+        installer.setCheckInterval(15);
+        assertEquals(15, installer.getCheckInterval());
+        installer.setCheckInterval(-1);
+        assertEquals(0, installer.getCheckInterval());
+    }
+
+    @Test
+    public void testParallelDownloads() {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("sigma-test");
+        assertEquals(1, installer.getParallelDownloads());
+        installer.setParallelDownloads(4);
+        assertEquals(4, installer.getParallelDownloads());
+        installer.setParallelDownloads(0);
+        assertEquals(1, installer.getParallelDownloads());
+        installer.setParallelDownloads(100);
+        assertEquals(SigmaBinaryInstaller.MAX_PARALLEL_DOWNLOADS, installer.getParallelDownloads());
+    }
+
+    @Test
+    public void testDownloadLimits() {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("sigma-test");
+        assertEquals(0, installer.getMaxConcurrentDownloads());
+        assertEquals(0, installer.getBandwidthLimit());
+        installer.setMaxConcurrentDownloads(10);
+        installer.setBandwidthLimit(2048);
+        assertEquals(10, installer.getMaxConcurrentDownloads());
+        assertEquals(2048, installer.getBandwidthLimit());
+        installer.setMaxConcurrentDownloads(-1);
+        installer.setBandwidthLimit(-1);
+        assertEquals(0, installer.getMaxConcurrentDownloads());
+        assertEquals(0, installer.getBandwidthLimit());
+    }
+
+    @Test
+    public void testSharedCachePath() {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("sigma-test");
+        assertNull(installer.getSharedCachePath());
+        installer.setSharedCachePath(" /mnt/sigma-cache ");
+        assertEquals("/mnt/sigma-cache", installer.getSharedCachePath());
+        installer.setSharedCachePath("  ");
+        assertNull(installer.getSharedCachePath());
+    }
+
+    @Test
+    public void testDeltaUrl() {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("sigma-test");
+        assertNull(installer.getDeltaUrl());
+        installer.setDeltaUrl("https://example.com/sigma/{sha256}.bsdiff ");
+        assertEquals("https://example.com/sigma/{sha256}.bsdiff", installer.getDeltaUrl());
+        installer.setDeltaUrl("");
+        assertNull(installer.getDeltaUrl());
+    }
+
+    @Test
+    public void testChecksumSetters() {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("sigma-test");
+        installer.setChecksum("  ");
+        installer.setChecksumUrl("https://www.blackduck.com/sigma.sha256 ");
+        assertNull(installer.getChecksum());
+        assertEquals("https://www.blackduck.com/sigma.sha256", installer.getChecksumUrl());
+    }
+
+    @Test
+    public void testDescriptorValidatorChecksum() {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("sigma-test");
+        SigmaBinaryInstaller.DescriptorImpl descriptor = installer.getDescriptor();
+        assertEquals(FormValidation.Kind.OK, descriptor.doCheckChecksum("").kind);
+        assertEquals(
+                FormValidation.Kind.OK,
+                descriptor.doCheckChecksum("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855").kind);
+        assertEquals(FormValidation.Kind.ERROR, descriptor.doCheckChecksum("not-a-checksum").kind);
+        assertEquals(FormValidation.Kind.ERROR, descriptor.doCheckChecksumUrl("htp:a_bad_url").kind);
+    }
+
     @Test
     public void testDescriptor() {
         String label = "sigma-test";
@@ -136,4 +217,32 @@ public class SigmaBinaryInstallerTest {
                     "Failed to install Rapid Scan Static on Node sigma-test-node from downloadUrl.", ex.getMessage());
         }
     }
+
+    @Test
+    public void testControllerCacheInstall() throws Exception {
+        SigmaTestUtil sigmaTestUtil = new SigmaTestUtil();
+        sigmaTestUtil.loadProperties();
+        String downloadUrl = sigmaTestUtil.getDownloadUrl();
+        int timeout = sigmaTestUtil.getTimeoutInSeconds();
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller(null);
+        installer.setDownloadUrl(downloadUrl);
+        installer.setTimeout(timeout);
+        installer.setCacheOnController(true);
+        assertTrue(installer.isCacheOnController());
+        SigmaToolInstallation toolInstallation =
+                new SigmaToolInstallation("sigma-cache-test", "", Collections.emptyList());
+        DumbSlave agent = jenkinsRule.createOnlineSlave();
+        TaskListener log = jenkinsRule.createTaskListener();
+
+        FilePath installLocation = installer.performInstallation(toolInstallation, agent, log);
+        ControllerBinaryCache binaryCache =
+                new ControllerBinaryCache(ControllerBinaryCache.getDefaultCacheRoot(), downloadUrl);
+        String binaryFileName = FileDownloadInstaller.getBinaryFileName();
+        assertTrue(binaryCache.getCacheLocation().child(binaryFileName).exists());
+        assertTrue(installLocation.child(binaryFileName).exists());
+        assertEquals(downloadUrl, installLocation.child(FileDownloadInstaller.INSTALLED_FROM_FILE_NAME).readToString());
+        assertEquals(
+                binaryCache.getCacheLocation().child(FileDownloadInstaller.SHA256_FILE_NAME).readToString(),
+                installLocation.child(FileDownloadInstaller.SHA256_FILE_NAME).readToString());
+    }
 }
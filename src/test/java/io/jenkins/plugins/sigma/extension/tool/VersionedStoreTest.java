@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import hudson.FilePath;
+import io.jenkins.plugins.sigma.utils.SigmaTestUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VersionedStoreTest {
+    private static final String HOME_DIRECTORY = "build/tmp/test/versioned_store_test/home";
+    private static final String BINARY_NAME = "sigma";
+    private File homeDirectory = new File(HOME_DIRECTORY);
+
+    @Before
+    public void initializeData() {
+        homeDirectory.mkdirs();
+    }
+
+    @After
+    public void cleanupDirectories() {
+        FileUtils.deleteQuietly(homeDirectory);
+    }
+
+    @Test
+    public void testSwitchCurrentVersion() throws IOException, InterruptedException {
+        VersionedStore store = new VersionedStore(homeDirectory.toPath());
+        FilePath home = new FilePath(homeDirectory);
+        assertNull(store.getCurrent());
+        assertNull(VersionedStore.resolveCurrentBinary(home, BINARY_NAME));
+
+        String first = addVersion(store, "first");
+        String second = addVersion(store, "second");
+        store.switchTo(first);
+        assertEquals(first, store.getCurrent());
+        FilePath currentBinary = VersionedStore.resolveCurrentBinary(home, BINARY_NAME);
+        assertEquals("first", currentBinary.readToString());
+
+        store.switchTo(second);
+        assertEquals(second, store.getCurrent());
+        // the binary resolved before the switch is still in place.
+        assertEquals("first", currentBinary.readToString());
+        assertEquals("second", VersionedStore.resolveCurrentBinary(home, BINARY_NAME).readToString());
+    }
+
+    @Test
+    public void testGarbageCollectionKeepsRecentlyUsed() throws IOException {
+        VersionedStore store = new VersionedStore(homeDirectory.toPath());
+        String oldest = addVersion(store, "oldest");
+        String older = addVersion(store, "older");
+        String current = addVersion(store, "current");
+        markUsed(oldest, 3000);
+        markUsed(older, 2000);
+        store.switchTo(current);
+
+        List<String> deleted = store.collectGarbage(2);
+        assertEquals(Collections.singletonList(oldest), deleted);
+        assertFalse(store.contains(oldest, BINARY_NAME));
+        assertTrue(store.contains(older, BINARY_NAME));
+        assertTrue(store.contains(current, BINARY_NAME));
+    }
+
+    @Test
+    public void testClearCurrent() throws IOException, InterruptedException {
+        VersionedStore store = new VersionedStore(homeDirectory.toPath());
+        store.switchTo(addVersion(store, "binary"));
+        store.clearCurrent();
+        assertNull(store.getCurrent());
+        assertNull(VersionedStore.resolveCurrentBinary(new FilePath(homeDirectory), BINARY_NAME));
+    }
+
+    private String addVersion(VersionedStore store, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String checksum = SigmaTestUtil.sha256Hex(bytes);
+        Path binary = homeDirectory.toPath().resolve(BINARY_NAME + FileDownloadInstaller.PARTIAL_FILE_SUFFIX);
+        Files.write(binary, bytes);
+        store.add(binary, checksum, BINARY_NAME);
+        return checksum;
+    }
+
+    private void markUsed(String checksum, long millisecondsAgo) throws IOException {
+        Path lastUsed = homeDirectory
+                .toPath()
+                .resolve(VersionedStore.STORE_DIRECTORY_NAME)
+                .resolve(checksum)
+                .resolve(VersionedStore.LAST_USED_FILE_NAME);
+        Files.write(lastUsed, new byte[0]);
+        Files.setLastModifiedTime(lastUsed, FileTime.fromMillis(System.currentTimeMillis() - millisecondsAgo));
+    }
+}
@@ -3,6 +3,9 @@
  */
 package io.jenkins.plugins.sigma.extension.workflow;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import hudson.EnvVars;
 import hudson.Launcher;
 import hudson.model.BuildListener;
@@ -14,6 +17,8 @@ import io.jenkins.plugins.sigma.SigmaBuildContext;
 import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
 import io.jenkins.plugins.sigma.utils.ArgumentListAssertions;
 import java.util.Collections;
+import java.util.List;
+import org.apache.commons.lang.StringUtils;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -212,4 +217,39 @@ public class CommandLineBuilderTest {
                 "policy/file/path",
                 "checkers");
     }
+
+    @Test
+    public void testHasPathArguments() {
+        assertFalse(CommandLineBuilder.hasPathArguments(
+                new ArgumentListBuilder("sigma").addTokenized("analyze --ignore-policies --format jenkins")));
+        assertFalse(CommandLineBuilder.hasPathArguments(
+                new ArgumentListBuilder("sigma").addTokenized("analyze --format=jenkins --config=/rules.yaml")));
+        assertTrue(CommandLineBuilder.hasPathArguments(
+                new ArgumentListBuilder("sigma").addTokenized("analyze --format jenkins src")));
+        // the value of an option that isn't known to take one is taken as a path.
+        assertTrue(CommandLineBuilder.hasPathArguments(
+                new ArgumentListBuilder("sigma").addTokenized("analyze --config rules.yaml")));
+    }
+
+    @Test
+    public void testHasRelativeOptionPaths() {
+        assertFalse(CommandLineBuilder.hasRelativeOptionPaths(
+                new ArgumentListBuilder("sigma").addTokenized("analyze --format=jenkins --severity=high")));
+        assertFalse(CommandLineBuilder.hasRelativeOptionPaths(new ArgumentListBuilder("sigma")
+                .addTokenized("analyze --config=/home/rules.yaml --policy=C:/policy.yaml")));
+        assertTrue(CommandLineBuilder.hasRelativeOptionPaths(
+                new ArgumentListBuilder("sigma").addTokenized("analyze --config=rules.yaml")));
+        assertTrue(CommandLineBuilder.hasRelativeOptionPaths(
+                new ArgumentListBuilder("sigma").addTokenized("analyze --policy=config/policy")));
+    }
+
+    @Test
+    public void testFitsCommandLine() {
+        ArgumentListBuilder commandLine = new ArgumentListBuilder("sigma").addTokenized("analyze --format jenkins");
+        List<String> paths = Collections.nCopies(1000, StringUtils.repeat("a", 40) + ".c");
+        assertTrue(CommandLineBuilder.fitsCommandLine(commandLine, paths, true));
+        // Windows allows a command line of less than 32K characters.
+        assertFalse(CommandLineBuilder.fitsCommandLine(commandLine, paths, false));
+        assertTrue(CommandLineBuilder.fitsCommandLine(commandLine, paths.subList(0, 100), false));
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class FindingMonitorTest {
+    @Test
+    public void testParse() {
+        assertEquals(FindingMonitor.Severity.HIGH, FindingMonitor.parse("{\"severity\":\"HIGH\",\"message\":\"x\"}"));
+        assertEquals(FindingMonitor.Severity.NORMAL, FindingMonitor.parse("src/a.c:12 severity: medium"));
+        assertEquals(FindingMonitor.Severity.ERROR, FindingMonitor.parse("Severity=critical"));
+        assertEquals(FindingMonitor.Severity.LOW, FindingMonitor.parse("\"severity\": \"low\""));
+        assertNull(FindingMonitor.parse("Analyzing 12 files."));
+        assertNull(FindingMonitor.parse("severity: unknown"));
+    }
+
+    @Test
+    public void testTripsAtLimit() throws IOException, InterruptedException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        FindingMonitor monitor = new FindingMonitor(log, StandardCharsets.UTF_8, FindingMonitor.Severity.HIGH, 2);
+        write(monitor, "Analyzing 3 files.\n");
+        write(monitor, "{\"severity\":\"NORMAL\"}\n");
+        write(monitor, "{\"severity\":\"HIGH\"}\n");
+        assertFalse(monitor.await(10, TimeUnit.MILLISECONDS));
+        assertEquals(1, monitor.getCount());
+
+        write(monitor, "{\"severity\":\"ERROR\"}\n");
+        assertTrue(monitor.await(10, TimeUnit.MILLISECONDS));
+        assertTrue(monitor.isTripped());
+        assertEquals(2, monitor.getCount());
+    }
+
+    @Test
+    public void testOutputPassedOn() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        FindingMonitor monitor = new FindingMonitor(log, StandardCharsets.UTF_8, FindingMonitor.Severity.LOW, 1);
+        write(monitor, "first line\nlast line without end");
+        monitor.close();
+        assertEquals("first line\nlast line without end", log.toString(StandardCharsets.UTF_8.name()));
+        assertFalse(monitor.isTripped());
+    }
+
+    private static void write(FindingMonitor monitor, String output) throws IOException {
+        monitor.write(output.getBytes(StandardCharsets.UTF_8));
+    }
+}
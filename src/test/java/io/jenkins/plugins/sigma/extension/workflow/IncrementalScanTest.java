@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.Launcher;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.StreamTaskListener;
+import io.jenkins.plugins.sigma.SigmaBuildContext;
+import io.jenkins.plugins.sigma.utils.TestSigmaScript;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class IncrementalScanTest {
+    private static final String FIRST_VERSION = StringUtils.repeat("a", 64);
+    private static final String SECOND_VERSION = StringUtils.repeat("b", 64);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFingerprint() {
+        SigmaVersionAction versionAction = new SigmaVersionAction("sigma 1.0.0", FIRST_VERSION);
+        String fingerprint = IncrementalScan.fingerprint(versionAction, commandLine("/agent-1/tools/sigma", "analyze"));
+
+        // the tool home differs between nodes, the scan is the same.
+        assertEquals(fingerprint, IncrementalScan.fingerprint(versionAction, commandLine("/agent-2/sigma", "analyze")));
+        assertNotEquals(
+                fingerprint, IncrementalScan.fingerprint(versionAction, commandLine("/agent-1/tools/sigma", "other")));
+        assertNotEquals(
+                fingerprint,
+                IncrementalScan.fingerprint(
+                        new SigmaVersionAction("sigma 1.0.1", SECOND_VERSION),
+                        commandLine("/agent-1/tools/sigma", "analyze")));
+        assertNull(IncrementalScan.fingerprint(null, commandLine("/agent-1/tools/sigma", "analyze")));
+    }
+
+    @Test
+    public void testFingerprintOfBundleVersion() {
+        SigmaVersionAction versionAction = new SigmaVersionAction("sigma 1.0.0", FIRST_VERSION);
+        // a new bundle with the same binary brings other rule packs.
+        assertNotEquals(
+                IncrementalScan.fingerprint(versionAction, commandLine("/tools/store/" + FIRST_VERSION + "/bin/sigma")),
+                IncrementalScan.fingerprint(
+                        versionAction, commandLine("/tools/store/" + SECOND_VERSION + "/bin/sigma")));
+    }
+
+    @Test
+    public void testCarryForward() {
+        JSONObject previous = JSONObject.fromObject("{\"_type\":\"old\",\"issues\":["
+                + "{\"fileName\":\"src/changed.c\",\"message\":\"fixed\"},"
+                + "{\"fileName\":\"/workspace/src/deleted.c\",\"message\":\"deleted\"},"
+                + "{\"fileName\":\"./src/unchanged.c\",\"message\":\"kept\"}]}");
+        JSONObject current = JSONObject.fromObject("{\"_type\":\"new\",\"issues\":["
+                + "{\"fileName\":\"src/changed.c\",\"message\":\"new\"}]}");
+
+        JSONObject merged = IncrementalScan.carryForward(
+                previous,
+                current,
+                new HashSet<>(Arrays.asList("src/changed.c", "src/deleted.c")),
+                "/workspace");
+        assertEquals("new", merged.getString("_type"));
+        assertEquals(Arrays.asList("kept", "new"), getMessages(merged.getJSONArray("issues")));
+    }
+
+    @Test
+    public void testCarryForwardWithoutAnalyzedFiles() {
+        JSONObject previous = JSONObject.fromObject("{\"issues\":["
+                + "{\"fileName\":\"src/deleted.c\",\"message\":\"deleted\"},"
+                + "{\"fileName\":\"src/unchanged.c\",\"message\":\"kept\"}]}");
+
+        JSONObject merged = IncrementalScan.carryForward(
+                previous, null, new HashSet<>(Arrays.asList("src/deleted.c")), "/workspace");
+        assertEquals(Arrays.asList("kept"), getMessages(merged.getJSONArray("issues")));
+    }
+
+    @Test
+    public void testCarryForwardIssuesWithoutFile() {
+        JSONObject previous = JSONObject.fromObject("{\"issues\":["
+                + "{\"message\":\"project\"},"
+                + "{\"message\":\"repeated\"}]}");
+        JSONObject current = JSONObject.fromObject("{\"issues\":[{\"message\":\"repeated\"}]}");
+
+        JSONObject merged = IncrementalScan.carryForward(previous, current, Collections.emptySet(), "/workspace");
+        assertEquals(Arrays.asList("project", "repeated"), getMessages(merged.getJSONArray("issues")));
+    }
+
+    @Test
+    public void testExecuteAnalyzesChangedFiles() throws Exception {
+        // the test binary is a shell script.
+        assumeFalse(Functions.isWindows());
+        File workspace = temporaryFolder.newFolder("workspace");
+        assumeTrue("git isn't available", git(workspace, "init", "-q"));
+        writeFile(workspace, "src/changed.c", "int a;");
+        writeFile(workspace, "src/unchanged.c", "int b;");
+        writeFile(workspace, "src/uncommitted.c", "int d;");
+        writeFile(workspace, ".gitignore", ShardedScan.RESULTS_FILE_NAME);
+        commit(workspace);
+        File sigma = TestSigmaScript.createAnalyzer(temporaryFolder.newFolder("tool"));
+        ArgumentListBuilder commandLine =
+                new ArgumentListBuilder(sigma.getAbsolutePath()).addTokenized("analyze --format jenkins");
+        String fingerprint =
+                IncrementalScan.fingerprint(new SigmaVersionAction("sigma 1.0.0", FIRST_VERSION), commandLine);
+
+        Run<?, ?> previousRun = mockRun(temporaryFolder.newFolder("previous"), null);
+        writeFile(
+                workspace,
+                ShardedScan.RESULTS_FILE_NAME,
+                "{\"issues\":[" + issue(new File(workspace, "src/changed.c").getAbsolutePath(), "fixed") + ","
+                        + issue(new File(workspace, "src/unchanged.c").getAbsolutePath(), "kept") + ","
+                        + issue(new File(workspace, "src/uncommitted.c").getAbsolutePath(), "stale") + ","
+                        + "{\"message\":\"project\"}]}");
+        IncrementalScan previousIncrementalScan =
+                new IncrementalScan(previousRun, createBuildContext(), new FilePath(workspace));
+        previousIncrementalScan.record(Result.SUCCESS, fingerprint);
+        ArgumentCaptor<IncrementalScanAction> previousScan = ArgumentCaptor.forClass(IncrementalScanAction.class);
+        Mockito.verify(previousRun).addOrReplaceAction(previousScan.capture());
+        Mockito.doReturn(previousScan.getValue()).when(previousRun).getAction(IncrementalScanAction.class);
+        // the next scan may run in another workspace, the recorded file names are relative.
+        assertEquals(
+                Arrays.asList(" project", "src/changed.c fixed", "src/unchanged.c kept", "src/uncommitted.c stale"),
+                getFileIssues(new File(previousRun.getRootDir(), ShardedScan.RESULTS_FILE_NAME)));
+
+        writeFile(workspace, "src/changed.c", "int a = 1;");
+        writeFile(workspace, "src/added.c", "int c;");
+        commit(workspace);
+        // changes that aren't committed and files git doesn't track are analyzed as well.
+        writeFile(workspace, "src/uncommitted.c", "int d = 1;");
+        writeFile(workspace, "src/untracked.c", "int e;");
+        Run<?, ?> run = mockRun(temporaryFolder.newFolder("current"), previousRun);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        IncrementalScan incrementalScan = new IncrementalScan(run, createBuildContext(log), new FilePath(workspace));
+        assertEquals(Result.SUCCESS, incrementalScan.execute(commandLine, fingerprint));
+        assertEquals(
+                Arrays.asList(
+                        " project",
+                        "src/added.c analyzed",
+                        "src/changed.c analyzed",
+                        "src/unchanged.c kept",
+                        "src/uncommitted.c analyzed",
+                        "src/untracked.c analyzed"),
+                getFileIssues(new File(workspace, ShardedScan.RESULTS_FILE_NAME)));
+        assertTrue(log.toString(StandardCharsets.UTF_8.name()).contains("Analyzed 4 of 4 files changed"));
+
+        // another binary or command line analyzes all files.
+        incrementalScan = new IncrementalScan(run, createBuildContext(), new FilePath(workspace));
+        assertNull(incrementalScan.execute(commandLine, "other"));
+    }
+
+    private static ArgumentListBuilder commandLine(String executable, String... arguments) {
+        return new ArgumentListBuilder(executable).add(arguments);
+    }
+
+    private static List<String> getMessages(JSONArray issues) {
+        return issues.stream()
+                .map(issue -> ((JSONObject) issue).getString("message"))
+                .collect(Collectors.toList());
+    }
+
+    private static Run<?, ?> mockRun(File rootDir, Run<?, ?> previousRun) {
+        Run<?, ?> run = Mockito.mock(Run.class);
+        Mockito.doReturn(rootDir).when(run).getRootDir();
+        Mockito.doReturn(previousRun).when(run).getPreviousCompletedBuild();
+        return run;
+    }
+
+    private static SigmaBuildContext createBuildContext() {
+        return createBuildContext(new ByteArrayOutputStream());
+    }
+
+    private static SigmaBuildContext createBuildContext(ByteArrayOutputStream log) {
+        TaskListener listener = new StreamTaskListener(log);
+        return new SigmaBuildContext(new Launcher.LocalLauncher(listener), listener, new EnvVars(), null);
+    }
+
+    private static String issue(String fileName, String message) {
+        return new JSONObject()
+                .element("fileName", fileName)
+                .element("message", message)
+                .toString();
+    }
+
+    /**
+     * @return the file name and the message of every issue, sorted.
+     */
+    private static List<String> getFileIssues(File resultsFile) throws IOException {
+        JSONArray issues = JSONObject.fromObject(FileUtils.readFileToString(resultsFile, StandardCharsets.UTF_8))
+                .getJSONArray("issues");
+        List<String> fileIssues = new ArrayList<>();
+        for (int i = 0; i < issues.size(); i++) {
+            JSONObject issue = issues.getJSONObject(i);
+            fileIssues.add(issue.optString("fileName", "") + ' ' + issue.getString("message"));
+        }
+        Collections.sort(fileIssues);
+        return fileIssues;
+    }
+
+    private static void writeFile(File workspace, String path, String content) throws IOException {
+        FileUtils.writeStringToFile(new File(workspace, path), content, StandardCharsets.UTF_8);
+    }
+
+    private static void commit(File workspace) throws InterruptedException {
+        assertTrue(git(workspace, "add", "-A"));
+        assertTrue(git(
+                workspace,
+                "-c",
+                "user.name=test",
+                "-c",
+                "user.email=test@example.com",
+                "-c",
+                "commit.gpgsign=false",
+                "commit",
+                "-q",
+                "-m",
+                "change"));
+    }
+
+    /**
+     * @return true when git succeeded, false when it failed or isn't installed.
+     */
+    private static boolean git(File workspace, String... arguments) throws InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(workspace)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor() == 0;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.tools.InstallSourceProperty;
+import hudson.util.StreamTaskListener;
+import io.jenkins.plugins.sigma.extension.tool.FileDownloadInstaller;
+import io.jenkins.plugins.sigma.extension.tool.SigmaBinaryInstaller;
+import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
+import io.jenkins.plugins.sigma.utils.TestHttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.mockito.Mockito;
+
+public class PreparedInstallationsTest {
+    private static final String TOOL_NAME = "sigma-prepared";
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPreparedInstallationIsJoined() throws Exception {
+        byte[] content = new byte[16 * 1024];
+        new Random(26).nextBytes(content);
+        try (TestHttpServer server = new TestHttpServer(content)) {
+            File home = temporaryFolder.newFolder("home");
+            Run<?, ?> run = mockRun("prepared#1");
+            PreparedInstallations preparedInstallations = PreparedInstallations.get();
+            preparedInstallations.prepare(run, jenkinsRule.jenkins, createInstallation(server.getUrl(), home));
+
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            SigmaToolInstallation installation = preparedInstallations.join(
+                    run, jenkinsRule.jenkins, TOOL_NAME, new StreamTaskListener(log, StandardCharsets.UTF_8));
+            assertNotNull(installation);
+            // the installation ran in the background, its log is replayed into the log of the joining step.
+            assertTrue(log.toString(StandardCharsets.UTF_8).contains("Rapid Scan Static installation: "));
+            assertEquals(home.getAbsolutePath(), installation.getHome());
+            File binaryFile = new File(home, FileDownloadInstaller.getBinaryFileName());
+            assertArrayEquals(content, FileUtils.readFileToByteArray(binaryFile));
+            assertEquals(1, server.getRequests().size());
+            // a joined installation is only used once, a second scan checks the installation itself.
+            assertNull(preparedInstallations.join(run, jenkinsRule.jenkins, TOOL_NAME, TaskListener.NULL));
+        }
+    }
+
+    @Test
+    public void testFailedPreparationIsNotJoined() throws Exception {
+        Run<?, ?> run = mockRun("prepared#2");
+        PreparedInstallations preparedInstallations = PreparedInstallations.get();
+        // nothing listens on this port.
+        SigmaToolInstallation installation =
+                createInstallation("http://127.0.0.1:1/sigma", temporaryFolder.newFolder("home"));
+        preparedInstallations.prepare(run, jenkinsRule.jenkins, installation);
+        assertNull(preparedInstallations.join(run, jenkinsRule.jenkins, TOOL_NAME, TaskListener.NULL));
+    }
+
+    @Test
+    public void testFinishedBuildDropsPreparedInstallations() throws Exception {
+        Run<?, ?> run = mockRun("prepared#3");
+        PreparedInstallations preparedInstallations = PreparedInstallations.get();
+        SigmaToolInstallation installation =
+                createInstallation("http://127.0.0.1:1/sigma", temporaryFolder.newFolder("home"));
+        preparedInstallations.prepare(run, jenkinsRule.jenkins, installation);
+        preparedInstallations.onFinalized(run);
+        assertNull(preparedInstallations.join(run, jenkinsRule.jenkins, TOOL_NAME, TaskListener.NULL));
+    }
+
+    private static Run<?, ?> mockRun(String externalizableId) {
+        Run<?, ?> run = Mockito.mock(Run.class);
+        Mockito.when(run.getExternalizableId()).thenReturn(externalizableId);
+        return run;
+    }
+
+    private static SigmaToolInstallation createInstallation(String downloadUrl, File home) throws IOException {
+        SigmaBinaryInstaller installer = new SigmaBinaryInstaller("");
+        installer.setDownloadUrl(downloadUrl);
+        installer.setTimeout(1);
+        InstallSourceProperty installSource = new InstallSourceProperty(Collections.singletonList(installer));
+        return new SigmaToolInstallation(TOOL_NAME, home.getAbsolutePath(), Collections.singletonList(installSource));
+    }
+}
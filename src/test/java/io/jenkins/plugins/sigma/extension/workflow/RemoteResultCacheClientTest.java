@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.jenkins.plugins.sigma.utils.TestResultCacheServer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+public class RemoteResultCacheClientTest {
+    private static final String TEST_DIRECTORY = "build/tmp/test/remote_result_cache_client_test";
+    private static final String TOKEN = "token";
+    private static final byte[] ISSUES = "[{\"message\":\"cached\"}]".getBytes(StandardCharsets.UTF_8);
+    private Path cacheRoot = new File(TEST_DIRECTORY).getAbsoluteFile().toPath();
+
+    @After
+    public void cleanupDirectories() {
+        FileUtils.deleteQuietly(cacheRoot.toFile());
+    }
+
+    @Test
+    public void testUploadAndDownload() throws IOException, InterruptedException {
+        try (TestResultCacheServer server = new TestResultCacheServer(RemoteResultCacheClient.TOKEN_HEADER, TOKEN)) {
+            RemoteResultCacheClient client = new RemoteResultCacheClient(server.getUrl(), TOKEN, true);
+            Path uploaded = ResultCache.getEntry(cacheRoot.resolve("first"), ResultCache.getEntryName("a", "b"));
+            ResultCache.writeEntry(uploaded, ISSUES);
+
+            RemoteResultCacheClient.Transfer upload = client.upload(Collections.singletonList(uploaded));
+            assertEquals(1, upload.getCount());
+            assertNull(upload.getFailure());
+            assertArrayEquals(ISSUES, server.getEntries().get(uploaded.getFileName().toString()));
+
+            Path downloaded = ResultCache.getEntry(cacheRoot.resolve("second"), ResultCache.getEntryName("a", "b"));
+            Path missing = ResultCache.getEntry(cacheRoot.resolve("second"), ResultCache.getEntryName("a", "c"));
+            RemoteResultCacheClient.Transfer download = client.download(Arrays.asList(downloaded, missing));
+            assertEquals(1, download.getCount());
+            assertNull(download.getFailure());
+            assertArrayEquals(ISSUES, Files.readAllBytes(downloaded));
+            assertFalse(Files.exists(missing));
+            assertEquals(Arrays.asList(TOKEN, TOKEN, TOKEN), server.getTokens());
+        }
+    }
+
+    @Test
+    public void testFailedRequestStopsTransfer() throws IOException, InterruptedException {
+        try (TestResultCacheServer server = new TestResultCacheServer(RemoteResultCacheClient.TOKEN_HEADER, TOKEN)) {
+            server.setFailureCode(500);
+            RemoteResultCacheClient client = new RemoteResultCacheClient(server.getUrl(), TOKEN, true);
+            Path entry = ResultCache.getEntry(cacheRoot, ResultCache.getEntryName("a", "b"));
+
+            RemoteResultCacheClient.Transfer download = client.download(Collections.singletonList(entry));
+            assertEquals(0, download.getCount());
+            assertNotNull(download.getFailure());
+            assertTrue(download.getFailure().contains("500"));
+            assertFalse(Files.exists(entry));
+        }
+    }
+
+    @Test
+    public void testUnreachableController() throws InterruptedException {
+        // nothing listens on this port.
+        RemoteResultCacheClient client = new RemoteResultCacheClient("http://127.0.0.1:1/cache/", TOKEN, true);
+        Path entry = ResultCache.getEntry(cacheRoot, ResultCache.getEntryName("a", "b"));
+
+        RemoteResultCacheClient.Transfer download = client.download(Collections.singletonList(entry));
+        assertEquals(0, download.getCount());
+        assertNotNull(download.getFailure());
+    }
+}
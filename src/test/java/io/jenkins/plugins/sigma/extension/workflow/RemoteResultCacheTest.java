@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.Action;
+import hudson.model.Cause;
+import hudson.model.Executor;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.SleepBuilder;
+
+public class RemoteResultCacheTest {
+    private static final byte[] ISSUES = "[{\"message\":\"shared\"}]".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Run<?, ?>> runningBuilds = new ArrayList<>();
+
+    @After
+    public void stopBuilds() throws Exception {
+        for (Run<?, ?> build : runningBuilds) {
+            Executor executor = build.getExecutor();
+            if (executor != null) {
+                executor.interrupt();
+            }
+            jenkinsRule.waitForCompletion(build);
+        }
+    }
+
+    @Test
+    public void testEntriesSharedBetweenNodes() throws Exception {
+        FreeStyleBuild build = startBuild(jenkinsRule.createFreeStyleProject());
+        RemoteResultCacheClient client = RemoteResultCache.get().createClient(build);
+        assertNotNull(client);
+        assertTrue(client.isWritable());
+        String entryName = ResultCache.getEntryName("fingerprint", "content");
+        Path firstNode = temporaryFolder.newFolder("first").toPath();
+        Path uploaded = ResultCache.getEntry(firstNode, entryName);
+        ResultCache.writeEntry(uploaded, ISSUES);
+
+        RemoteResultCacheClient.Transfer upload = client.upload(Collections.singletonList(uploaded));
+        assertEquals(1, upload.getCount());
+        assertNull(upload.getFailure());
+        assertTrue(Files.exists(ResultCache.getEntry(getCacheRoot(build), entryName)));
+
+        Path secondNode = temporaryFolder.newFolder("second").toPath();
+        Path downloaded = ResultCache.getEntry(secondNode, entryName);
+        RemoteResultCacheClient.Transfer download = client.download(Collections.singletonList(downloaded));
+        assertEquals(1, download.getCount());
+        assertArrayEquals(ISSUES, Files.readAllBytes(downloaded));
+    }
+
+    @Test
+    public void testRequestWithoutTokenRejected() throws IOException, InterruptedException {
+        String entryName = ResultCache.getEntryName("fingerprint", "content");
+        RemoteResultCacheClient client = new RemoteResultCacheClient(getCacheUrl(), "forged", true);
+        Path entry = ResultCache.getEntry(temporaryFolder.getRoot().toPath(), entryName);
+        ResultCache.writeEntry(entry, ISSUES);
+
+        RemoteResultCacheClient.Transfer upload = client.upload(Collections.singletonList(entry));
+        assertEquals(0, upload.getCount());
+        assertTrue(upload.getFailure().contains("403"));
+    }
+
+    @Test
+    public void testTokenOfAnotherBuildRejected() throws Exception {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        FreeStyleBuild finishedBuild = jenkinsRule.buildAndAssertSuccess(project);
+        FreeStyleBuild runningBuild = startBuild(project);
+        String entryName = ResultCache.getEntryName("fingerprint", "content");
+        String finishedToken = RemoteResultCache.getToken(finishedBuild, true);
+        String runningToken = RemoteResultCache.getToken(runningBuild, true);
+
+        // the token of a build expires when it finishes.
+        assertEquals(HttpURLConnection.HTTP_FORBIDDEN, put(entryName, finishedToken, ISSUES));
+        // a token can't be moved to another build.
+        String movedToken = runningToken.substring(0, runningToken.indexOf('.'))
+                + finishedToken.substring(finishedToken.indexOf('.'));
+        assertEquals(HttpURLConnection.HTTP_FORBIDDEN, put(entryName, movedToken, ISSUES));
+        assertFalse(Files.exists(ResultCache.getEntry(getCacheRoot(runningBuild), entryName)));
+
+        assertEquals(HttpURLConnection.HTTP_CREATED, put(entryName, runningToken, ISSUES));
+        assertTrue(Files.exists(ResultCache.getEntry(getCacheRoot(runningBuild), entryName)));
+    }
+
+    @Test
+    public void testChangeRequestOnlyReads() throws Exception {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        project.addProperty(new ParametersDefinitionProperty(
+                Collections.<ParameterDefinition>singletonList(new StringParameterDefinition("CHANGE_ID", "1"))));
+        FreeStyleBuild build = startBuild(project, new ParametersAction(new StringParameterValue("CHANGE_ID", "1")));
+        RemoteResultCacheClient client = RemoteResultCache.get().createClient(build);
+        assertNotNull(client);
+        assertFalse(client.isWritable());
+        String entryName = ResultCache.getEntryName("fingerprint", "content");
+        Path entry = ResultCache.getEntry(temporaryFolder.getRoot().toPath(), entryName);
+        ResultCache.writeEntry(entry, ISSUES);
+
+        assertEquals(0, client.upload(Collections.singletonList(entry)).getCount());
+        String readToken = RemoteResultCache.getToken(build, false);
+        assertEquals(HttpURLConnection.HTTP_FORBIDDEN, put(entryName, readToken, ISSUES));
+        assertFalse(Files.exists(ResultCache.getEntry(getCacheRoot(build), entryName)));
+        RemoteResultCacheClient.Transfer download = client.download(Collections.singletonList(entry));
+        assertEquals(0, download.getCount());
+        assertNull(download.getFailure());
+    }
+
+    @Test
+    public void testFoldersDontShareEntries() throws Exception {
+        jenkinsRule.jenkins.setNumExecutors(2);
+        MockFolder firstFolder = jenkinsRule.createFolder("first");
+        MockFolder secondFolder = jenkinsRule.createFolder("second");
+        RemoteResultCacheClient firstClient = RemoteResultCache.get()
+                .createClient(startBuild(firstFolder.createProject(FreeStyleProject.class, "job")));
+        RemoteResultCacheClient secondClient = RemoteResultCache.get()
+                .createClient(startBuild(secondFolder.createProject(FreeStyleProject.class, "job")));
+        assertNotNull(firstClient);
+        assertNotNull(secondClient);
+        String entryName = ResultCache.getEntryName("fingerprint", "content");
+        Path uploaded = ResultCache.getEntry(temporaryFolder.newFolder("first").toPath(), entryName);
+        ResultCache.writeEntry(uploaded, ISSUES);
+        assertEquals(1, firstClient.upload(Collections.singletonList(uploaded)).getCount());
+
+        Path downloaded = ResultCache.getEntry(temporaryFolder.newFolder("second").toPath(), entryName);
+        assertEquals(0, secondClient.download(Collections.singletonList(downloaded)).getCount());
+        assertEquals(1, firstClient.download(Collections.singletonList(downloaded)).getCount());
+    }
+
+    @Test
+    public void testInvalidEntryRejected() throws Exception {
+        FreeStyleBuild build = startBuild(jenkinsRule.createFreeStyleProject());
+        String entryName = ResultCache.getEntryName("fingerprint", "content");
+        assertEquals(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                put(
+                        entryName,
+                        RemoteResultCache.getToken(build, true),
+                        "{\"issues\":[]}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesEvicted() throws Exception {
+        FreeStyleBuild build = startBuild(jenkinsRule.createFreeStyleProject());
+        RemoteResultCacheClient client = RemoteResultCache.get().createClient(build);
+        assertNotNull(client);
+        RemoteResultCache.get().setMaxSizeBytes(ISSUES.length * 3L);
+        Path node = temporaryFolder.newFolder("node").toPath();
+        List<Path> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Path entry = ResultCache.getEntry(node, ResultCache.getEntryName("fingerprint", String.valueOf(i)));
+            ResultCache.writeEntry(entry, ISSUES);
+            // one upload after another, the entries are used in this order.
+            assertEquals(1, client.upload(Collections.singletonList(entry)).getCount());
+            entries.add(entry);
+            Thread.sleep(10);
+        }
+
+        Path cacheRoot = getCacheRoot(build);
+        assertFalse(Files.exists(ResultCache.getEntry(cacheRoot, entries.get(0).getFileName().toString())));
+        assertTrue(Files.exists(ResultCache.getEntry(cacheRoot, entries.get(4).getFileName().toString())));
+    }
+
+    /**
+     * Starts a build that runs until the test ends.
+     */
+    private FreeStyleBuild startBuild(FreeStyleProject project, Action... actions) throws Exception {
+        project.getBuildersList().add(new SleepBuilder(Long.MAX_VALUE));
+        FreeStyleBuild build = project.scheduleBuild2(0, new Cause.UserIdCause(), actions).waitForStart();
+        runningBuilds.add(build);
+        return build;
+    }
+
+    private int put(String entryName, String token, byte[] content) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(getCacheUrl() + entryName).openConnection();
+        connection.setRequestMethod("PUT");
+        connection.setRequestProperty(RemoteResultCacheClient.TOKEN_HEADER, token);
+        connection.setDoOutput(true);
+        try (OutputStream outputStream = connection.getOutputStream()) {
+            outputStream.write(content);
+        }
+        return connection.getResponseCode();
+    }
+
+    private static Path getCacheRoot(Run<?, ?> build) {
+        return RemoteResultCache.get().getCacheRoot().toPath().resolve(RemoteResultCache.getDomain(build));
+    }
+
+    private String getCacheUrl() throws IOException {
+        return jenkinsRule.getURL() + RemoteResultCache.URL_NAME + "/";
+    }
+}
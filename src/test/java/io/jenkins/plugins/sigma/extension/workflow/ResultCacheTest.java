@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.Launcher;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.StreamTaskListener;
+import io.jenkins.plugins.sigma.SigmaBuildContext;
+import io.jenkins.plugins.sigma.utils.TestSigmaScript;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultCacheTest {
+    private static final String TEST_DIRECTORY = "build/tmp/test/result_cache_test";
+    private static final String FINGERPRINT = "fingerprint";
+    private File testDirectory = new File(TEST_DIRECTORY).getAbsoluteFile();
+    private File workspace = new File(testDirectory, "workspace");
+    private File nodeRoot = new File(testDirectory, "node");
+
+    @Before
+    public void initializeData() {
+        workspace.mkdirs();
+        nodeRoot.mkdirs();
+    }
+
+    @After
+    public void cleanupDirectories() {
+        FileUtils.deleteQuietly(testDirectory);
+    }
+
+    @Test
+    public void testEntryName() {
+        assertEquals(ResultCache.getEntryName(FINGERPRINT, "abc"), ResultCache.getEntryName(FINGERPRINT, "abc"));
+        assertNotEquals(ResultCache.getEntryName(FINGERPRINT, "abc"), ResultCache.getEntryName(FINGERPRINT, "abd"));
+        assertNotEquals(ResultCache.getEntryName(FINGERPRINT, "abc"), ResultCache.getEntryName("other", "abc"));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws IOException {
+        Path cacheRoot = nodeRoot.toPath().resolve(ResultCache.CACHE_DIRECTORY_NAME);
+        Path oldest = writeEntry(cacheRoot, "aa/oldest.json", 1000);
+        Path older = writeEntry(cacheRoot, "bb/older.json", 2000);
+        Path recent = writeEntry(cacheRoot, "aa/recent.json", 3000);
+
+        assertEquals(0, ResultCache.evict(cacheRoot, 30));
+        assertEquals(1, ResultCache.evict(cacheRoot, 20));
+        assertFalse(Files.exists(oldest));
+        assertTrue(Files.exists(older));
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    public void testOnlyChangedFilesAnalyzed() throws IOException, InterruptedException {
+        // the test binary is a shell script.
+        assumeFalse(Functions.isWindows());
+        File sigma = TestSigmaScript.createAnalyzer(testDirectory);
+        ArgumentListBuilder commandLine =
+                new ArgumentListBuilder(sigma.getAbsolutePath()).addTokenized("analyze --format jenkins");
+        fillCache(commandLine);
+
+        writeFile("src/b.c", "int b = 1;");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        assertEquals(Result.SUCCESS, createResultCache(log).execute(commandLine));
+        assertTrue(log.toString(StandardCharsets.UTF_8.name()).contains("Analyzed 1 of 3 files"));
+        assertEquals(
+                Arrays.asList(" project", "/elsewhere/d.c full", "src/a.c full", "src/b.c analyzed"),
+                getFileIssues());
+        assertEquals(0, new File(nodeRoot, ResultCache.HIT_DIRECTORY_NAME).list().length);
+    }
+
+    @Test
+    public void testWorkspaceIssuesKeptWithoutScan() throws IOException, InterruptedException {
+        // the test binary is a shell script.
+        assumeFalse(Functions.isWindows());
+        File sigma = TestSigmaScript.createAnalyzer(testDirectory);
+        ArgumentListBuilder commandLine =
+                new ArgumentListBuilder(sigma.getAbsolutePath()).addTokenized("analyze --format jenkins");
+        fillCache(commandLine);
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        assertEquals(Result.SUCCESS, createResultCache(log).execute(commandLine));
+        assertTrue(log.toString(StandardCharsets.UTF_8.name()).contains("Analyzed 0 of 3 files"));
+        assertEquals(
+                Arrays.asList(" project", "/elsewhere/d.c full", "src/a.c full", "src/b.c full"), getFileIssues());
+
+        // the files of another workspace are in the cache, the issues of that workspace aren't.
+        File otherWorkspace = new File(testDirectory, "other-workspace");
+        FileUtils.copyDirectory(workspace, otherWorkspace);
+        log = new ByteArrayOutputStream();
+        assertNull(createResultCache(log, otherWorkspace).execute(commandLine));
+        assertTrue(log.toString(StandardCharsets.UTF_8.name())
+                .contains("The issues of the workspace that don't belong to one of its files aren't in the result"
+                        + " cache"));
+    }
+
+    @Test
+    public void testHitsEvictedDuringScanAreAssembled() throws IOException, InterruptedException {
+        // the test binary is a shell script.
+        assumeFalse(Functions.isWindows());
+        File sigma = TestSigmaScript.createAnalyzer(testDirectory);
+        ArgumentListBuilder commandLine =
+                new ArgumentListBuilder(sigma.getAbsolutePath()).addTokenized("analyze --format jenkins");
+        fillCache(commandLine);
+
+        // a concurrent build evicts the whole cache while the missed file is analyzed.
+        File evictingSigma = new File(testDirectory, "evicting-sigma");
+        FileUtils.writeStringToFile(
+                evictingSigma,
+                "#!/bin/sh\nrm -rf '" + new File(nodeRoot, ResultCache.CACHE_DIRECTORY_NAME) + "'\nexec '" + sigma
+                        + "' \"$@\"\n",
+                StandardCharsets.UTF_8);
+        evictingSigma.setExecutable(true);
+        writeFile("src/b.c", "int b = 1;");
+        ArgumentListBuilder evictingCommandLine =
+                new ArgumentListBuilder(evictingSigma.getAbsolutePath()).addTokenized("analyze --format jenkins");
+        assertEquals(Result.SUCCESS, createResultCache(new ByteArrayOutputStream()).execute(evictingCommandLine));
+        assertEquals(
+                Arrays.asList(" project", "/elsewhere/d.c full", "src/a.c full", "src/b.c analyzed"),
+                getFileIssues());
+    }
+
+    @Test
+    public void testTooManyMissesAnalyzeAllFiles() throws IOException, InterruptedException {
+        writeFile("src/a.c", "int a;");
+        writeFile("src/b.c", "int b;");
+        writeFile(ShardedScan.RESULTS_FILE_NAME, "{\"issues\":[]}");
+        createResultCache(new ByteArrayOutputStream()).store(Result.SUCCESS);
+
+        for (int i = 0; i < 2000; i++) {
+            writeFile("src/generated/" + StringUtils.repeat("long-directory-name/", 5) + i + ".c", "int g;");
+        }
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        assertNull(createResultCache(log).execute(new ArgumentListBuilder("sigma", "analyze")));
+        assertTrue(log.toString(StandardCharsets.UTF_8.name())
+                .contains("The 2000 files missing from the result cache don't fit on a command line"));
+    }
+
+    /**
+     * Fills the cache with a full scan of three files, two of them with issues, and issues of the workspace without a
+     * file or with a file outside of it.
+     */
+    private void fillCache(ArgumentListBuilder commandLine) throws IOException, InterruptedException {
+        writeFile("src/a.c", "int a;");
+        writeFile("src/b.c", "int b;");
+        writeFile("src/c.c", "int c;");
+        writeFile(".git/HEAD", "ref: refs/heads/main");
+        ResultCache fullScan = createResultCache(new ByteArrayOutputStream());
+        assertNull(fullScan.execute(commandLine));
+        writeFile(
+                ShardedScan.RESULTS_FILE_NAME,
+                "{\"issues\":[{\"fileName\":\"./src/a.c\",\"message\":\"full\"},"
+                        + "{\"fileName\":\"src/b.c\",\"message\":\"full\"},"
+                        + "{\"fileName\":\"/elsewhere/d.c\",\"message\":\"full\"},"
+                        + "{\"message\":\"project\"}]}");
+        fullScan.store(Result.SUCCESS);
+    }
+
+    /**
+     * @return the file name and the message of every issue in the results of the workspace, sorted.
+     */
+    private List<String> getFileIssues() throws IOException {
+        String results = FileUtils.readFileToString(
+                new File(workspace, ShardedScan.RESULTS_FILE_NAME), StandardCharsets.UTF_8);
+        JSONArray issues = JSONObject.fromObject(results).getJSONArray("issues");
+        List<String> fileIssues = new ArrayList<>();
+        for (int i = 0; i < issues.size(); i++) {
+            JSONObject issue = issues.getJSONObject(i);
+            fileIssues.add(issue.optString("fileName", "") + ' ' + issue.getString("message"));
+        }
+        Collections.sort(fileIssues);
+        return fileIssues;
+    }
+
+    private ResultCache createResultCache(ByteArrayOutputStream log) {
+        return createResultCache(log, workspace);
+    }
+
+    private ResultCache createResultCache(ByteArrayOutputStream log, File workingDirectory) {
+        TaskListener listener = new StreamTaskListener(log);
+        SigmaBuildContext sigmaBuildContext =
+                new SigmaBuildContext(new Launcher.LocalLauncher(listener), listener, new EnvVars(), null);
+        return new ResultCache(
+                sigmaBuildContext, new FilePath(workingDirectory), new FilePath(nodeRoot), FINGERPRINT, null);
+    }
+
+    private void writeFile(String path, String content) throws IOException {
+        FileUtils.writeStringToFile(new File(workspace, path), content, StandardCharsets.UTF_8);
+    }
+
+    private static Path writeEntry(Path cacheRoot, String name, long lastModified) throws IOException {
+        Path entry = cacheRoot.resolve(name);
+        Files.createDirectories(entry.getParent());
+        Files.write(entry, "[\"issues\"]".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(lastModified));
+        return entry;
+    }
+}
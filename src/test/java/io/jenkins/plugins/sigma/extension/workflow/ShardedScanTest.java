@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.Launcher;
+import hudson.model.Result;
+import hudson.model.TaskListener;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.StreamTaskListener;
+import io.jenkins.plugins.sigma.SigmaBuildContext;
+import io.jenkins.plugins.sigma.utils.TestSigmaScript;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardedScanTest {
+    private static final String TEST_DIRECTORY = "build/tmp/test/sharded_scan_test";
+    private File testDirectory = new File(TEST_DIRECTORY).getAbsoluteFile();
+    private File workspace = new File(testDirectory, "workspace");
+
+    @Before
+    public void initializeData() {
+        workspace.mkdirs();
+    }
+
+    @After
+    public void cleanupDirectories() {
+        FileUtils.deleteQuietly(testDirectory);
+    }
+
+    @Test
+    public void testBalance() {
+        Map<String, Long> units = new HashMap<>();
+        units.put("large", 100L);
+        units.put("medium", 60L);
+        units.put("small-a", 30L);
+        units.put("small-b", 30L);
+        units.put("tiny", 1L);
+
+        List<List<String>> shards = ShardedScan.balance(units, 2);
+        assertEquals(
+                Arrays.asList(Arrays.asList("large", "tiny"), Arrays.asList("medium", "small-a", "small-b")), shards);
+    }
+
+    @Test
+    public void testBalanceWithoutEmptyShards() {
+        List<List<String>> shards = ShardedScan.balance(Collections.singletonMap("only", 10L), 8);
+        assertEquals(Collections.singletonList(Collections.singletonList("only")), shards);
+    }
+
+    @Test
+    public void testPartitionSplitsLargeDirectories() throws IOException, InterruptedException {
+        writeFile("src/main/a.c", 4000);
+        writeFile("src/main/b.c", 4000);
+        writeFile("src/test/c.c", 4000);
+        writeFile("docs/readme.md", 100);
+        writeFile(".git/objects/pack", 100000);
+
+        ShardedScan shardedScan =
+                new ShardedScan(createBuildContext(new ByteArrayOutputStream()), new FilePath(workspace));
+        List<List<String>> shards = shardedScan.partition(3).getShards();
+        assertEquals(3, shards.size());
+        List<String> units = new ArrayList<>();
+        shards.forEach(units::addAll);
+        Collections.sort(units);
+        assertEquals(Arrays.asList("docs", "src/main/a.c", "src/main/b.c", "src/test"), units);
+    }
+
+    @Test
+    public void testMergeResults() throws IOException {
+        Path shardRoot = workspace.toPath().resolve(ShardedScan.SHARD_DIRECTORY_NAME);
+        Path firstShard = Files.createDirectories(shardRoot.resolve("0"));
+        Path secondShard = Files.createDirectories(shardRoot.resolve("1"));
+        Path firstResults = Files.write(
+                firstShard.resolve(ShardedScan.RESULTS_FILE_NAME),
+                "{\"_type\":\"report\",\"issues\":[{\"fileName\":\"../../src/a.c\",\"message\":\"first\"}]}"
+                        .getBytes(StandardCharsets.UTF_8));
+        String absoluteFileName = new File(workspace, "docs/b.c").getAbsolutePath().replace("\\", "\\\\");
+        Path secondResults = Files.write(
+                secondShard.resolve(ShardedScan.RESULTS_FILE_NAME),
+                ("[{\"fileName\":\"" + absoluteFileName + "\",\"message\":\"second\"}]")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        JSONObject merged = ShardedScan.mergeResults(
+                workspace.toPath().toAbsolutePath().normalize(), Arrays.asList(firstResults, secondResults));
+        assertEquals("report", merged.getString("_type"));
+        JSONArray issues = merged.getJSONArray("issues");
+        assertEquals(2, issues.size());
+        assertEquals("src/a.c", issues.getJSONObject(0).getString("fileName"));
+        assertEquals("docs/b.c", issues.getJSONObject(1).getString("fileName"));
+    }
+
+    @Test
+    public void testExecuteMergesShardResults() throws IOException, InterruptedException {
+        // the test binary is a shell script.
+        assumeFalse(Functions.isWindows());
+        File sigma = TestSigmaScript.createAnalyzer(testDirectory);
+        writeFile("first/a.c", 100);
+        writeFile("second/b.c", 100);
+        writeFile("third/c.c", 100);
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ShardedScan shardedScan = new ShardedScan(createBuildContext(log), new FilePath(workspace));
+        ShardedScan.ShardPlan plan = shardedScan.partition(3);
+        ArgumentListBuilder commandLine =
+                new ArgumentListBuilder(sigma.getAbsolutePath()).addTokenized("analyze --format jenkins");
+        assertEquals(Result.SUCCESS, shardedScan.execute(commandLine, plan));
+
+        String results = FileUtils.readFileToString(
+                new File(workspace, ShardedScan.RESULTS_FILE_NAME), StandardCharsets.UTF_8);
+        JSONArray issues = JSONObject.fromObject(results).getJSONArray("issues");
+        List<String> fileNames = new ArrayList<>();
+        for (int i = 0; i < issues.size(); i++) {
+            fileNames.add(issues.getJSONObject(i).getString("fileName"));
+        }
+        Collections.sort(fileNames);
+        assertEquals(Arrays.asList("first", "second", "third"), fileNames);
+        assertFalse(new File(workspace, ShardedScan.SHARD_DIRECTORY_NAME).exists());
+    }
+
+    @Test
+    public void testShardTooLongForCommandLineNotStarted() throws IOException, InterruptedException {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            paths.add(String.format("src/generated/%0100d.c", i));
+        }
+        ShardedScan.ShardPlan plan =
+                new ShardedScan.ShardPlan(Arrays.asList(paths, Collections.singletonList("docs")), 2);
+        ArgumentListBuilder commandLine = new ArgumentListBuilder("sigma").addTokenized("analyze --format jenkins");
+        assertFalse(CommandLineBuilder.fitsCommandLine(commandLine, ShardedScan.getShardPaths(paths), true));
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ShardedScan shardedScan = new ShardedScan(createBuildContext(log), new FilePath(workspace));
+        assertNull(shardedScan.execute(commandLine, plan));
+        assertTrue(log.toString(StandardCharsets.UTF_8.name()).contains("don't fit on its command line"));
+        assertFalse(new File(workspace, ShardedScan.SHARD_DIRECTORY_NAME).exists());
+        assertFalse(new File(workspace, ShardedScan.RESULTS_FILE_NAME).exists());
+    }
+
+    @Test
+    public void testShardPathsRelativeToShardDirectory() {
+        assertEquals(
+                Arrays.asList("../../src/a.c", "../../docs"),
+                ShardedScan.getShardPaths(Arrays.asList("src/a.c", "docs")));
+    }
+
+    private void writeFile(String path, int size) throws IOException {
+        File file = new File(workspace, path);
+        FileUtils.writeByteArrayToFile(file, new byte[size]);
+    }
+
+    private static SigmaBuildContext createBuildContext(ByteArrayOutputStream log) {
+        TaskListener listener = new StreamTaskListener(log);
+        return new SigmaBuildContext(new Launcher.LocalLauncher(listener), listener, new EnvVars(), null);
+    }
+}
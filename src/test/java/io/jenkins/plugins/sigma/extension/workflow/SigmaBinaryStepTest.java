@@ -5,10 +5,15 @@ package io.jenkins.plugins.sigma.extension.workflow;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
 
 import hudson.EnvVars;
+import hudson.Functions;
 import hudson.Launcher;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
 import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
@@ -16,11 +21,14 @@ import hudson.slaves.EnvironmentVariablesNodeProperty;
 import hudson.util.ListBoxModel;
 import hudson.util.StreamTaskListener;
 import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
+import io.jenkins.plugins.sigma.utils.TestSigmaScript;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
@@ -31,6 +39,9 @@ public class SigmaBinaryStepTest {
     @Rule
     public JenkinsRule jenkinsRule = new JenkinsRule();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void testStepFields() {
         SigmaBinaryStep step = new SigmaBinaryStep();
@@ -42,6 +53,71 @@ public class SigmaBinaryStepTest {
         assertFalse(step.isIgnorePolicies());
     }
 
+    @Test
+    public void testShardFields() {
+        SigmaBinaryStep step = new SigmaBinaryStep();
+        assertFalse(step.isSharded());
+        assertEquals(0, step.getShardCount());
+        step.setSharded(true);
+        step.setShardCount(-4);
+        assertTrue(step.isSharded());
+        assertEquals(0, step.getShardCount());
+        step.setShardCount(8);
+        assertEquals(8, step.getShardCount());
+    }
+
+    @Test
+    public void testResultCacheField() {
+        SigmaBinaryStep step = new SigmaBinaryStep();
+        assertFalse(step.isResultCache());
+        step.setResultCache(true);
+        assertTrue(step.isResultCache());
+        assertFalse(step.isSharedResultCache());
+        step.setSharedResultCache(true);
+        assertTrue(step.isSharedResultCache());
+    }
+
+    @Test
+    public void testFailFastFields() {
+        SigmaBinaryStep step = new SigmaBinaryStep();
+        assertNull(step.getFailFastSeverity());
+        assertEquals(1, step.getFailFastCount());
+        step.setFailFastSeverity(" ");
+        assertNull(step.getFailFastSeverity());
+        step.setFailFastSeverity("HIGH");
+        step.setFailFastCount(0);
+        assertEquals("HIGH", step.getFailFastSeverity());
+        assertEquals(1, step.getFailFastCount());
+        step.setFailFastCount(5);
+        assertEquals(5, step.getFailFastCount());
+
+        ListBoxModel severities = new SigmaBinaryStep.DescriptorImpl().doFillFailFastSeverityItems();
+        assertEquals(5, severities.size());
+        assertEquals("", severities.get(0).value);
+        assertEquals("ERROR", severities.get(4).value);
+    }
+
+    @Test
+    public void testFailFastStopsScan() throws Exception {
+        assumeFalse(Functions.isWindows());
+        FreeStyleProject project = createFindingProject(60, false);
+
+        long start = System.currentTimeMillis();
+        FreeStyleBuild build = jenkinsRule.buildAndAssertStatus(Result.FAILURE, project);
+        assertTrue(System.currentTimeMillis() - start < 30_000);
+        jenkinsRule.assertLogContains("1 findings of severity High or higher were reported", build);
+    }
+
+    @Test
+    public void testFailFastIgnoredWithPolicies() throws Exception {
+        assumeFalse(Functions.isWindows());
+        FreeStyleProject project = createFindingProject(1, true);
+
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+        jenkinsRule.assertLogContains("the scan isn't stopped early", build);
+        jenkinsRule.assertLogNotContains("findings of severity", build);
+    }
+
     @Test
     public void testDescriptor() {
         SigmaBinaryStep.DescriptorImpl descriptor = new SigmaBinaryStep.DescriptorImpl();
@@ -75,4 +151,25 @@ public class SigmaBinaryStepTest {
         step.perform(run, null, environment, launcher, taskListener);
         assertEquals(Result.UNSTABLE, buildResultCaptor.getValue());
     }
+
+    /**
+     * Creates a project that scans with a binary reporting a blocking finding right away and then analyzing for the
+     * given number of seconds.
+     */
+    private FreeStyleProject createFindingProject(int seconds, boolean ignorePolicies) throws Exception {
+        File home = temporaryFolder.newFolder("home");
+        TestSigmaScript.createFindingReporter(home, seconds);
+        jenkinsRule
+                .jenkins
+                .getDescriptorByType(SigmaToolInstallation.DescriptorImpl.class)
+                .setInstallations(
+                        new SigmaToolInstallation("sigma-test", home.getAbsolutePath(), Collections.emptyList()));
+        SigmaBinaryStep step = new SigmaBinaryStep();
+        step.setSigmaToolName("sigma-test");
+        step.setIgnorePolicies(ignorePolicies);
+        step.setFailFastSeverity("HIGH");
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject();
+        project.getBuildersList().add(step);
+        return project;
+    }
 }
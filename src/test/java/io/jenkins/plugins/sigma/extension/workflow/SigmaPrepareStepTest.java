@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.extension.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.mockito.Mockito;
+
+public class SigmaPrepareStepTest {
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Test
+    public void testStepFields() {
+        SigmaPrepareStep step = new SigmaPrepareStep();
+        step.setSigmaToolName("sigma-test");
+        assertEquals("sigma-test", step.getSigmaToolName());
+    }
+
+    @Test
+    public void testDescriptorListsBinaryStepInstallations() {
+        SigmaPrepareStep.DescriptorImpl descriptor =
+                jenkinsRule.jenkins.getDescriptorByType(SigmaPrepareStep.DescriptorImpl.class);
+        assertFalse(descriptor.hasToolsConfigured());
+        jenkinsRule
+                .jenkins
+                .getDescriptorByType(SigmaBinaryStep.DescriptorImpl.class)
+                .setInstallations(new SigmaToolInstallation("sigma-test", "home", Collections.emptyList()));
+        assertTrue(descriptor.hasToolsConfigured());
+        assertEquals("sigma-test", descriptor.doFillSigmaToolNameItems(null).get(0).name);
+    }
+
+    @Test
+    public void testMissingToolFailsStep() throws Exception {
+        SigmaPrepareStep step = new SigmaPrepareStep();
+        step.setSigmaToolName("missing");
+        Run<?, ?> run = Mockito.mock(Run.class);
+        FilePath workspace = jenkinsRule.jenkins.getRootPath();
+        try {
+            step.perform(
+                    run, workspace, new EnvVars(), new Launcher.LocalLauncher(TaskListener.NULL), TaskListener.NULL);
+            fail("Step didn't fail for a tool that isn't configured.");
+        } catch (AbortException ex) {
+            assertTrue(ex.getMessage().contains("missing"));
+        }
+    }
+}
@@ -3,20 +3,26 @@
  */
 package io.jenkins.plugins.sigma.utils;
 
+import hudson.Util;
 import hudson.tools.InstallSourceProperty;
 import io.jenkins.plugins.sigma.extension.tool.SigmaBinaryInstaller;
 import io.jenkins.plugins.sigma.extension.tool.SigmaToolInstallation;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.function.Supplier;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.junit.rules.TestWatcher;
@@ -80,6 +86,60 @@ public class SigmaTestUtil extends TestWatcher {
         return Optional.empty();
     }
 
+    public static String sha256Hex(byte[] content) {
+        try {
+            return Util.toHexString(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates a bsdiff 4 patch with a single control entry, the bytes both binaries share are a diff and the rest of
+     * the new binary is extra.
+     */
+    public static byte[] bsdiffPatch(byte[] oldContent, byte[] newContent) throws IOException {
+        int diffLength = Math.min(oldContent.length, newContent.length);
+        byte[] control = new byte[24];
+        writeOffset(control, 0, diffLength);
+        writeOffset(control, 8, newContent.length - diffLength);
+        byte[] diff = new byte[diffLength];
+        for (int i = 0; i < diffLength; i++) {
+            diff[i] = (byte) (newContent[i] - oldContent[i]);
+        }
+        byte[] compressedControl = bzip2(control, 0, control.length);
+        byte[] compressedDiff = bzip2(diff, 0, diff.length);
+        byte[] header = new byte[32];
+        System.arraycopy("BSDIFF40".getBytes(StandardCharsets.US_ASCII), 0, header, 0, 8);
+        writeOffset(header, 8, compressedControl.length);
+        writeOffset(header, 16, compressedDiff.length);
+        writeOffset(header, 24, newContent.length);
+        ByteArrayOutputStream patch = new ByteArrayOutputStream();
+        patch.write(header);
+        patch.write(compressedControl);
+        patch.write(compressedDiff);
+        patch.write(bzip2(newContent, diffLength, newContent.length - diffLength));
+        return patch.toByteArray();
+    }
+
+    private static byte[] bzip2(byte[] content, int offset, int length) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new BZip2CompressorOutputStream(compressed)) {
+            outputStream.write(content, offset, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void writeOffset(byte[] bytes, int offset, long value) {
+        long magnitude = Math.abs(value);
+        for (int i = 0; i < 8; i++) {
+            bytes[offset + i] = (byte) (magnitude >>> (8 * i));
+        }
+        if (value < 0) {
+            bytes[offset + 7] |= (byte) 0x80;
+        }
+    }
+
     public String readPipelineScript(String resourcePath) {
         String pipelineScript = "";
         try {
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.utils;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Local stand-in for the binary download host. Serves one file and supports byte ranges with If-Range and
+ * conditional requests with If-None-Match.
+ */
+public class TestHttpServer implements AutoCloseable {
+    public static final String BINARY_PATH = "/sigma";
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Headers> requests = new CopyOnWriteArrayList<>();
+    private volatile byte[] content;
+    private volatile String etag;
+    private volatile long responseDelayInMilliseconds;
+    private volatile boolean gzipEncoding;
+    private volatile String contentEncodingLabel;
+    private volatile boolean rangesSupported = true;
+
+    public TestHttpServer(byte[] content) throws IOException {
+        setContent(content);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(BINARY_PATH, this::handleBinaryRequest);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + BINARY_PATH;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+        this.etag = "\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"";
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    public List<Headers> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Delays every response, which keeps concurrent downloads overlapping.
+     */
+    public void setResponseDelay(long responseDelayInMilliseconds) {
+        this.responseDelayInMilliseconds = responseDelayInMilliseconds;
+    }
+
+    /**
+     * Compresses full responses with gzip content encoding when the request accepts it.
+     */
+    public void setGzipEncoding(boolean gzipEncoding) {
+        this.gzipEncoding = gzipEncoding;
+    }
+
+    /**
+     * Labels full responses with a content encoding without encoding them, like a host that serves gzip files with
+     * {@code Content-Encoding: gzip}.
+     */
+    public void setContentEncodingLabel(String contentEncodingLabel) {
+        this.contentEncodingLabel = contentEncodingLabel;
+    }
+
+    /**
+     * A host without range support doesn't advertise byte ranges and answers every request with the whole file.
+     */
+    public void setRangesSupported(boolean rangesSupported) {
+        this.rangesSupported = rangesSupported;
+    }
+
+    private void handleBinaryRequest(HttpExchange exchange) throws IOException {
+        Headers requestHeaders = exchange.getRequestHeaders();
+        requests.add(requestHeaders);
+        if (responseDelayInMilliseconds > 0) {
+            try {
+                Thread.sleep(responseDelayInMilliseconds);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = content;
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.add("ETag", etag);
+        if (rangesSupported) {
+            responseHeaders.add("Accept-Ranges", "bytes");
+        }
+        if (etag.equals(requestHeaders.getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        String range = rangesSupported ? requestHeaders.getFirst("Range") : null;
+        String ifRange = requestHeaders.getFirst("If-Range");
+        int start = 0;
+        int end = body.length - 1;
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Math.min(end, Integer.parseInt(bounds[1]));
+            }
+            if (start > end) {
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            responseHeaders.add("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+            exchange.sendResponseHeaders(206, end - start + 1);
+        } else if (gzipEncoding && StringUtils.contains(requestHeaders.getFirst("Accept-Encoding"), "gzip")) {
+            responseHeaders.add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream responseBody = new GZIPOutputStream(exchange.getResponseBody())) {
+                responseBody.write(body);
+            }
+            return;
+        } else {
+            if (contentEncodingLabel != null) {
+                responseHeaders.add("Content-Encoding", contentEncodingLabel);
+            }
+            exchange.sendResponseHeaders(200, body.length);
+        }
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body, start, end - start + 1);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
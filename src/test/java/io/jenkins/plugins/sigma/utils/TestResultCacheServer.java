@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Local stand-in for the result cache of the controller. Keeps the entries in memory, answers {@code GET} and
+ * {@code PUT} for requests with the token and records the tokens of all requests.
+ */
+public class TestResultCacheServer implements AutoCloseable {
+    public static final String CACHE_PATH = "/cache/";
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+    private final List<String> tokens = new CopyOnWriteArrayList<>();
+    private final String tokenHeader;
+    private final String token;
+    private volatile int failureCode;
+
+    public TestResultCacheServer(String tokenHeader, String token) throws IOException {
+        this.tokenHeader = tokenHeader;
+        this.token = token;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(CACHE_PATH, this::handleEntryRequest);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + CACHE_PATH;
+    }
+
+    public Map<String, byte[]> getEntries() {
+        return entries;
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Answers every request with the status code, zero serves the entries again.
+     */
+    public void setFailureCode(int failureCode) {
+        this.failureCode = failureCode;
+    }
+
+    private void handleEntryRequest(HttpExchange exchange) throws IOException {
+        String requestToken = exchange.getRequestHeaders().getFirst(tokenHeader);
+        tokens.add(String.valueOf(requestToken));
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            byte[] content = IOUtils.toByteArray(requestBody);
+            String entryName = exchange.getRequestURI().getPath().substring(CACHE_PATH.length());
+            if (failureCode != 0) {
+                exchange.sendResponseHeaders(failureCode, -1);
+            } else if (!token.equals(requestToken)) {
+                exchange.sendResponseHeaders(403, -1);
+            } else if ("PUT".equals(exchange.getRequestMethod())) {
+                entries.put(entryName, content);
+                exchange.sendResponseHeaders(201, -1);
+            } else if (entries.containsKey(entryName)) {
+                byte[] entry = entries.get(entryName);
+                exchange.sendResponseHeaders(200, entry.length);
+                try (OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(entry);
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024 Black Duck Software, Inc. All rights reserved worldwide.
+ */
+package io.jenkins.plugins.sigma.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Shell scripts standing in for the Rapid Scan Static binary, they run with {@code analyze --format jenkins} and
+ * the paths to analyze.
+ */
+public final class TestSigmaScript {
+    private TestSigmaScript() {}
+
+    /**
+     * Creates a binary that reports one issue with the message {@code analyzed} for every path it is given, it writes
+     * them into sigma-results.json in its working directory.
+     */
+    public static File createAnalyzer(File directory) throws IOException {
+        return create(
+                new File(directory, "sigma"),
+                "#!/bin/sh\n"
+                        + "shift 3\n"
+                        + "separator=''\n"
+                        + "issues=''\n"
+                        + "for path in \"$@\"; do\n"
+                        + "  issue=\"{\\\"fileName\\\":\\\"$path\\\",\\\"message\\\":\\\"analyzed\\\"}\"\n"
+                        + "  issues=\"$issues$separator$issue\"\n"
+                        + "  separator=','\n"
+                        + "done\n"
+                        + "echo \"{\\\"issues\\\":[$issues]}\" > sigma-results.json\n");
+    }
+
+    /**
+     * Creates a binary that reports a finding of high severity as soon as it analyzes, and then keeps analyzing for
+     * the given number of seconds without writing any results. Other commands, like the version probe, exit right
+     * away.
+     */
+    public static File createFindingReporter(File directory, int seconds) throws IOException {
+        return create(
+                new File(directory, "sigma"),
+                "#!/bin/sh\n"
+                        + "if [ \"$1\" != analyze ]; then\n"
+                        + "  exit 0\n"
+                        + "fi\n"
+                        + "echo '{\"severity\":\"HIGH\",\"message\":\"blocking\"}'\n"
+                        + "sleep " + seconds + "\n");
+    }
+
+    private static File create(File sigma, String script) throws IOException {
+        FileUtils.writeStringToFile(sigma, script, StandardCharsets.UTF_8);
+        sigma.setExecutable(true);
+        return sigma;
+    }
+}